@@ -8,11 +8,14 @@ import java.util.*;
 import java.io.File;
 import com.shipwrecked.gamecenter.games.TicTacToeGame;
 import com.shipwrecked.gamecenter.games.ChessGame;
+import com.shipwrecked.gamecenter.games.DinoGame;
+import com.shipwrecked.gamecenter.scores.ScoreStore;
 
 public class GameLauncher extends JFrame {
     private Set<String> unlockedGames;
     private JPanel gamesPanel;
     private static final int WINS_TO_UNLOCK = 2;
+    private ScoreStore scoreStore;
 
     // Fun color scheme
     private static final Color BACKGROUND_COLOR = new Color(108, 99, 255);  // Playful purple
@@ -53,6 +56,7 @@ public class GameLauncher extends JFrame {
         unlockedGames = new HashSet<>();
         unlockedGames.add("Tic-Tac-Toe");
         unlockedGames.add("Chess");
+        unlockedGames.add("Dinosaur Game");
 
         // Create main panel with gradient background
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10)) {
@@ -106,6 +110,8 @@ public class GameLauncher extends JFrame {
         addGameButton("Tic-Tac-Toe", true, () -> launchTicTacToe());
         gamesPanel.add(Box.createVerticalStrut(15));
         addGameButton("Chess", true, () -> launchChess());
+        gamesPanel.add(Box.createVerticalStrut(15));
+        addGameButton("Dinosaur Game", true, () -> launchDinoGame());
         gamesPanel.add(Box.createVerticalStrut(10));
         gamesPanel.revalidate();
         gamesPanel.repaint();
@@ -159,6 +165,7 @@ public class GameLauncher extends JFrame {
         String iconText = switch (gameName) {
             case "Tic-Tac-Toe" -> "❌⭕";
             case "Chess" -> "♟️";
+            case "Dinosaur Game" -> "🦖";
             default -> "🎮";
         };
         JLabel iconLabel = new JLabel(iconText);
@@ -191,6 +198,21 @@ public class GameLauncher extends JFrame {
         setVisible(false);
     }
 
+    private void launchDinoGame() {
+        DinoGame game = new DinoGame(this);
+        game.setVisible(true);
+        setVisible(false);
+    }
+
+    // Opened on first use and shared by every game window; saved on exit
+    public synchronized ScoreStore scoreStore() {
+        if (scoreStore == null) {
+            scoreStore = new ScoreStore(ScoreStore.defaultFile());
+            Runtime.getRuntime().addShutdownHook(new Thread(scoreStore::close, "score-store-close"));
+        }
+        return scoreStore;
+    }
+
     public void checkAndUnlockGames(int playerWins) {
         if (playerWins >= WINS_TO_UNLOCK) {
             unlockedGames.add("Chess");
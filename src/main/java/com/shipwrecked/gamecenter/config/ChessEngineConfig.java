@@ -0,0 +1,25 @@
+package com.shipwrecked.gamecenter.config;
+
+import com.shipwrecked.gamecenter.engine.LazySmpEngine;
+import com.shipwrecked.gamecenter.engine.SearchEngine;
+import com.shipwrecked.gamecenter.engine.TranspositionTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChessEngineConfig {
+
+    // One table for the whole server; every game's searches share it
+    @Bean
+    public TranspositionTable transpositionTable(@Value("${chess.engine.hash-size-mb:64}") int hashSizeMb) {
+        return new TranspositionTable(hashSizeMb);
+    }
+
+    // Zero or less means one search thread per core
+    @Bean
+    public SearchEngine searchEngine(TranspositionTable transpositionTable,
+                                     @Value("${chess.engine.threads:0}") int threads) {
+        return new LazySmpEngine(transpositionTable, threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,119 @@
+package com.shipwrecked.gamecenter.config;
+
+import com.shipwrecked.gamecenter.journal.BoardGameJournalAdapter;
+import com.shipwrecked.gamecenter.journal.ChessJournalAdapter;
+import com.shipwrecked.gamecenter.journal.JournalAdapter;
+import com.shipwrecked.gamecenter.journal.JournaledGameRepository;
+import com.shipwrecked.gamecenter.models.BoardGame;
+import com.shipwrecked.gamecenter.models.ChessGame;
+import com.shipwrecked.gamecenter.repository.ChessGameCodec;
+import com.shipwrecked.gamecenter.repository.ExternalGameRepository;
+import com.shipwrecked.gamecenter.repository.FileGameStateStore;
+import com.shipwrecked.gamecenter.repository.GameRepository;
+import com.shipwrecked.gamecenter.repository.GameStateStore;
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class GameRepositoryConfig {
+
+    /*
+     * Shared web games. Accepted moves go to a journal under games.journal.directory, so the
+     * games survive a restart; live games and evictions show up under
+     * /actuator/metrics/games.live and games.evicted.
+     */
+    @Bean(destroyMethod = "close")
+    public JournaledGameRepository<BoardGame> ticTacToeRepository(
+            @Value("${tictactoe.games.max-size:10000}") int maxSize,
+            @Value("${tictactoe.games.idle-ttl:30m}") Duration idleTtl,
+            JournalSettings journal,
+            MeterRegistry meterRegistry) {
+        JournaledGameRepository<BoardGame> repository = journal.repository(
+            "tictactoe", new BoardGameJournalAdapter(), maxSize, idleTtl);
+        registerMeters(repository, "tictactoe", meterRegistry);
+        return repository;
+    }
+
+    // Chess games shared between two players (from matchmaking)
+    @Bean(destroyMethod = "close")
+    public JournaledGameRepository<ChessGame> chessRepository(
+            @Value("${chess.games.max-size:10000}") int maxSize,
+            @Value("${chess.games.idle-ttl:30m}") Duration idleTtl,
+            JournalSettings journal,
+            MeterRegistry meterRegistry) {
+        JournaledGameRepository<ChessGame> repository = journal.repository(
+            "chess", new ChessJournalAdapter(), maxSize, idleTtl);
+        registerMeters(repository, "chess", meterRegistry);
+        return repository;
+    }
+
+    @Bean
+    public JournalSettings journalSettings(
+            @Value("${games.journal.directory:${user.home}/.gamecenter/journal}") Path directory,
+            @Value("${games.journal.commit-interval:5ms}") Duration commitInterval,
+            @Value("${games.journal.snapshot-interval:5m}") Duration snapshotInterval,
+            @Value("${games.journal.sync:true}") boolean sync) {
+        return new JournalSettings(directory, commitInterval, snapshotInterval, sync);
+    }
+
+    // Kept next to the journal by default, so seat tokens still work for recovered games
+    @Bean
+    public SeatTokens seatTokens(
+            @Value("${games.seat-key-file:${games.journal.directory:${user.home}/.gamecenter/journal}/seat.key}") Path keyFile) {
+        return SeatTokens.fromKeyFile(keyFile);
+    }
+
+    public record JournalSettings(Path directory, Duration commitInterval, Duration snapshotInterval, boolean sync) {
+
+        <T> JournaledGameRepository<T> repository(String game, JournalAdapter<T> adapter, int maxSize, Duration idleTtl) {
+            return new JournaledGameRepository<>(directory.resolve(game), adapter, maxSize, idleTtl,
+                                                 commitInterval, snapshotInterval, sync);
+        }
+    }
+
+    private static void registerMeters(GameRepository<?> repository, String game, MeterRegistry meterRegistry) {
+        Gauge.builder("games.live", repository, GameRepository::size)
+            .tag("game", game)
+            .description("Games currently held in memory")
+            .register(meterRegistry);
+        FunctionCounter.builder("games.evicted", repository, GameRepository::evictionCount)
+            .tag("game", game)
+            .description("Games dropped for being idle or to stay under the size bound")
+            .register(meterRegistry);
+    }
+
+    /*
+     * Single-player chess games. The HTTP session only holds the game id; the game itself is
+     * stored encoded, so sessions stay small and the store can be swapped for a shared one by
+     * replacing the chessSessionStore bean.
+     */
+    @Bean(destroyMethod = "close")
+    public FileGameStateStore chessSessionStore(
+            @Value("${chess.sessions.directory:${java.io.tmpdir}/gamecenter/chess-sessions}") Path directory,
+            @Value("${chess.sessions.idle-ttl:2h}") Duration idleTtl) {
+        return new FileGameStateStore(directory, idleTtl);
+    }
+
+    @Bean
+    public GameRepository<ChessGame> chessSessionRepository(GameStateStore chessSessionStore,
+                                                            MeterRegistry meterRegistry) {
+        GameRepository<ChessGame> repository = new ExternalGameRepository<>(chessSessionStore, new ChessGameCodec());
+        Gauge.builder("games.live", repository, GameRepository::size)
+            .tag("game", "chess-session")
+            .description("Games currently held in the session store")
+            .register(meterRegistry);
+        FunctionCounter.builder("games.evicted", repository, GameRepository::evictionCount)
+            .tag("game", "chess-session")
+            .description("Games dropped for being idle")
+            .register(meterRegistry);
+        return repository;
+    }
+}
@@ -0,0 +1,47 @@
+package com.shipwrecked.gamecenter.config;
+
+import com.shipwrecked.gamecenter.leaderboard.LeaderboardService;
+import com.shipwrecked.gamecenter.scores.ScoreEntry;
+import com.shipwrecked.gamecenter.scores.ScoreGames;
+import com.shipwrecked.gamecenter.scores.ScoreStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class LeaderboardConfig {
+
+    /*
+     * Rankings live in memory and are saved to their own file now and then. On startup they
+     * come from that file, topped up from the high-score tables, which also hold scores the
+     * desktop launcher wrote since the last save.
+     */
+    @Bean(destroyMethod = "close")
+    public LeaderboardService leaderboardService(
+            @Value("${leaderboard.queue-capacity:100000}") int queueCapacity,
+            @Value("${leaderboard.max-batch:4096}") int maxBatch,
+            @Value("${leaderboard.file:${user.home}/.gamecenter/leaderboard.dat}") String file,
+            @Value("${leaderboard.save-interval:1m}") Duration saveInterval,
+            ScoreStore scoreStore,
+            ScoreGames knownGames,
+            MeterRegistry meterRegistry) {
+        LeaderboardService service = new LeaderboardService(queueCapacity, maxBatch, Path.of(file), saveInterval);
+        for (String game : scoreStore.games()) {
+            if (!knownGames.isKnown(game)) {
+                continue;
+            }
+            for (ScoreEntry entry : scoreStore.top(game, ScoreStore.GAME_CAPACITY)) {
+                service.submit(game, entry.player(), entry.score());
+            }
+        }
+        Gauge.builder("leaderboard.queued", service, LeaderboardService::queued)
+            .description("Scores waiting to be applied to the leaderboards")
+            .register(meterRegistry);
+        return service;
+    }
+}
@@ -0,0 +1,40 @@
+package com.shipwrecked.gamecenter.config;
+
+import com.shipwrecked.gamecenter.matchmaking.GameType;
+import com.shipwrecked.gamecenter.matchmaking.Matchmaker;
+import com.shipwrecked.gamecenter.models.BoardGame;
+import com.shipwrecked.gamecenter.models.ChessGame;
+import com.shipwrecked.gamecenter.models.TicTacToeGame;
+import com.shipwrecked.gamecenter.repository.GameRepository;
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class MatchmakingConfig {
+
+    // Matches are pushed to /topic/matchmaking/{ticketId}, so clients need not poll for them
+    @Bean(destroyMethod = "close")
+    public Matchmaker matchmaker(GameRepository<BoardGame> ticTacToeGames,
+                                 @Qualifier("chessRepository") GameRepository<ChessGame> chessGames,
+                                 SimpMessagingTemplate messagingTemplate,
+                                 SeatTokens seatTokens,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${matchmaking.tick:100ms}") Duration tick,
+                                 @Value("${matchmaking.rating-band:100}") int ratingBand,
+                                 @Value("${matchmaking.band-growth-per-second:25}") double bandGrowthPerSecond,
+                                 @Value("${matchmaking.max-wait:2m}") Duration maxWait) {
+        return new Matchmaker(
+            Map.of(GameType.TICTACTOE, () -> ticTacToeGames.create(new TicTacToeGame()),
+                   GameType.CHESS, () -> chessGames.create(new ChessGame())),
+            ticket -> messagingTemplate.convertAndSend("/topic/matchmaking/" + ticket.getId(), ticket),
+            seatTokens, meterRegistry, tick, ratingBand, bandGrowthPerSecond, maxWait);
+    }
+}
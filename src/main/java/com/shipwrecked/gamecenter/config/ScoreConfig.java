@@ -0,0 +1,26 @@
+package com.shipwrecked.gamecenter.config;
+
+import com.shipwrecked.gamecenter.scores.ScoreGames;
+import com.shipwrecked.gamecenter.scores.ScoreStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+@Configuration
+public class ScoreConfig {
+
+    // Defaults to the desktop launcher's file, so both show the same scores
+    @Bean(destroyMethod = "close")
+    public ScoreStore scoreStore(@Value("${scores.file:}") String file) {
+        return new ScoreStore(file.isBlank() ? ScoreStore.defaultFile() : Path.of(file));
+    }
+
+    @Bean
+    public ScoreGames scoreGames(@Value("${scores.games:dino,tictactoe,chess}") List<String> games) {
+        return new ScoreGames(new HashSet<>(games));
+    }
+}
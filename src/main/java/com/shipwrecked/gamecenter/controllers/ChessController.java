@@ -1,44 +1,224 @@
 package com.shipwrecked.gamecenter.controllers;
 
+import com.shipwrecked.gamecenter.engine.SearchEngine;
+import com.shipwrecked.gamecenter.engine.SearchLimits;
+import com.shipwrecked.gamecenter.matchmaking.GameType;
+import com.shipwrecked.gamecenter.models.ChessDelta;
 import com.shipwrecked.gamecenter.models.ChessGame;
 import com.shipwrecked.gamecenter.models.ChessMove;
+import com.shipwrecked.gamecenter.repository.GameRepository;
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpSession;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Controller
 @RequestMapping("/chess")
 public class ChessController {
+    private static final DateTimeFormatter PGN_DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+    // The session holds only this id; the game lives in the session store
+    private static final String GAME_ID = "chessGameId";
+
+    private final SearchEngine searchEngine;
+    private final SearchLimits computerLimits;
+    private final GameRepository<ChessGame> sharedGames;
+    private final GameRepository<ChessGame> sessionGames;
+    private final SeatTokens seatTokens;
+
+    public ChessController(SearchEngine searchEngine,
+                           @Qualifier("chessRepository") GameRepository<ChessGame> sharedGames,
+                           @Qualifier("chessSessionRepository") GameRepository<ChessGame> sessionGames,
+                           SeatTokens seatTokens,
+                           @Value("${chess.engine.move-time-ms:1000}") long moveTimeMillis,
+                           @Value("${chess.engine.max-depth:64}") int maxDepth) {
+        this.searchEngine = searchEngine;
+        this.sharedGames = sharedGames;
+        this.sessionGames = sessionGames;
+        this.seatTokens = seatTokens;
+        this.computerLimits = new SearchLimits(maxDepth, moveTimeMillis);
+    }
     
     @GetMapping
     public String chess(Model model, HttpSession session) {
-        ChessGame game = (ChessGame) session.getAttribute("chessGame");
-        if (game == null) {
-            game = new ChessGame();
-            session.setAttribute("chessGame", game);
-        }
+        ChessGame game = withGame(session, Function.identity())
+            .orElseGet(() -> startGame(session, new ChessGame()));
         model.addAttribute("game", game);
         return "chess";
     }
 
+    // Full snapshot, for clients that have lost track of the game
+    @GetMapping("/state")
+    @ResponseBody
+    public ChessGame state(HttpSession session) {
+        return withGame(session, Function.identity()).orElse(null);
+    }
+
+    /*
+     * The move endpoints answer with a ChessDelta when the client passes the positionHash it
+     * last saw as "since" and that still matches; otherwise with the whole ChessGame.
+     */
+
     @PostMapping("/move")
     @ResponseBody
-    public ChessGame makeMove(@RequestBody ChessMove move, HttpSession session) {
-        ChessGame game = (ChessGame) session.getAttribute("chessGame");
-        if (game != null && game.isValidMove(move)) {
-            game.makeMove(move);
-            session.setAttribute("chessGame", game);
+    public Object makeMove(@RequestBody ChessMove move,
+                           @RequestParam(required = false) String since,
+                           HttpSession session) {
+        return withGame(session, game -> {
+            boolean inSync = isInSync(game, since);
+            boolean applied = false;
+            if (game.isValidMove(move)) {
+                game.makeMove(move);
+                applied = true;
+            }
+            return respond(game, inSync, applied);
+        }).orElse(null);
+    }
+
+    @PostMapping("/computer-move")
+    @ResponseBody
+    public Object computerMove(@RequestParam(required = false) String since, HttpSession session) {
+        return withGame(session, game -> {
+            boolean inSync = isInSync(game, since);
+            boolean applied = game.makeComputerMove(searchEngine, computerLimits);
+            return respond(game, inSync, applied);
+        }).orElse(null);
+    }
+
+    @PostMapping("/undo")
+    @ResponseBody
+    public Object undoMove(@RequestParam(required = false) String since, HttpSession session) {
+        return withGame(session, game -> {
+            boolean inSync = isInSync(game, since);
+            boolean applied = game.undoMove();
+            return respond(game, inSync, applied);
+        }).orElse(null);
+    }
+
+    private static boolean isInSync(ChessGame game, String since) {
+        return since != null && since.equals(game.getPositionHash());
+    }
+
+    private static Object respond(ChessGame game, boolean inSync, boolean applied) {
+        if (!inSync) {
+            return game;
         }
-        return game;
+        return applied ? game.lastChange() : ChessDelta.unchanged(game);
     }
 
     @PostMapping("/reset")
     @ResponseBody
     public ChessGame resetGame(HttpSession session) {
-        ChessGame game = new ChessGame();
-        session.setAttribute("chessGame", game);
+        return startGame(session, new ChessGame());
+    }
+
+    // Replaces the session game with one set up from a FEN position
+    @PostMapping(value = "/fen", consumes = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public ResponseEntity<ChessGame> loadFen(@RequestBody String fen, HttpSession session) {
+        try {
+            return ResponseEntity.ok(startGame(session, new ChessGame(fen.trim())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/pgn", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public ResponseEntity<String> exportPgn(HttpSession session) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Casual game");
+        tags.put("Site", "Shipwrecked Game Center");
+        tags.put("Date", LocalDate.now().format(PGN_DATE));
+        return withGame(session, game -> game.toPgn(tags))
+            .map(pgn -> ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"game.pgn\"")
+                .body(pgn))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Replaces the session game with the first game of a PGN text, replayed to its end
+    @PostMapping(value = "/pgn", consumes = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public ResponseEntity<ChessGame> importPgn(@RequestBody String pgn, HttpSession session) {
+        try {
+            return ResponseEntity.ok(startGame(session, ChessGame.fromPgn(pgn)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Runs an action on this session's game in the session store, which saves any change
+    private <R> Optional<R> withGame(HttpSession session, Function<ChessGame, R> action) {
+        String gameId = (String) session.getAttribute(GAME_ID);
+        return gameId == null ? Optional.empty() : sessionGames.update(gameId, action);
+    }
+
+    // Stores a new game for this session in place of the old one
+    private ChessGame startGame(HttpSession session, ChessGame game) {
+        String oldId = (String) session.getAttribute(GAME_ID);
+        if (oldId != null) {
+            sessionGames.remove(oldId);
+        }
+        session.setAttribute(GAME_ID, sessionGames.create(game));
         return game;
     }
-} 
\ No newline at end of file
+
+    // Two-player games created by matchmaking, shared by id instead of living in one session
+    @GetMapping("/games/{gameId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> sharedGame(@PathVariable String gameId) {
+        return sharedGames.update(gameId, ChessController::describe)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // token is the seat token from the player's match ticket; only the side to move may move
+    @PostMapping("/games/{gameId}/move")
+    @ResponseBody
+    public ResponseEntity<Object> sharedMove(@PathVariable String gameId,
+                                             @RequestBody ChessMove move,
+                                             @RequestParam(required = false) String since,
+                                             @RequestParam(required = false) String token) {
+        return sharedGames.update(gameId, game -> {
+                String seat = game.isWhiteTurn() ? GameType.CHESS.getFirstSeat() : GameType.CHESS.getSecondSeat();
+                if (!seatTokens.holds(token, gameId, seat)) {
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                }
+                if (!game.isValidMove(move)) {
+                    return ResponseEntity.badRequest().build();
+                }
+                boolean inSync = isInSync(game, since);
+                game.makeMove(move);
+                return ResponseEntity.ok(inSync ? game.lastChange() : describe(game));
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Same fields as a serialized ChessGame, captured while the game's lock is held
+    private static Map<String, Object> describe(ChessGame game) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("board", game.getBoard());
+        response.put("whiteTurn", game.isWhiteTurn());
+        response.put("moveHistory", new ArrayList<>(game.getMoveHistory()));
+        response.put("status", game.getStatus());
+        response.put("winner", game.getWinner());
+        response.put("positionHash", game.getPositionHash());
+        return response;
+    }
+}
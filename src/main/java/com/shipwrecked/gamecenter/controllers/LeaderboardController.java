@@ -0,0 +1,93 @@
+package com.shipwrecked.gamecenter.controllers;
+
+import com.shipwrecked.gamecenter.leaderboard.Leaderboard;
+import com.shipwrecked.gamecenter.leaderboard.LeaderboardService;
+import com.shipwrecked.gamecenter.leaderboard.RankedScore;
+import com.shipwrecked.gamecenter.scores.ScoreGames;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+ * Leaderboard reads carry an ETag of the snapshot they were read from, so a client polling an
+ * unchanged leaderboard gets 304 Not Modified without the page being built again.
+ */
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+    private static final int MAX_PAGE = 1000;
+
+    private final LeaderboardService leaderboards;
+    private final ScoreGames knownGames;
+
+    public LeaderboardController(LeaderboardService leaderboards, ScoreGames knownGames) {
+        this.leaderboards = leaderboards;
+        this.knownGames = knownGames;
+    }
+
+    @GetMapping("/{game}")
+    public ResponseEntity<Map<String, Object>> page(@PathVariable String game,
+                                                    @RequestParam(defaultValue = "0") int offset,
+                                                    @RequestParam(defaultValue = "100") int limit,
+                                                    WebRequest request) {
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Leaderboard> leaderboard = leaderboards.leaderboard(game);
+        if (leaderboard.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Leaderboard.Snapshot snapshot = leaderboard.get().snapshot();
+        String etag = leaderboards.etag(snapshot);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(Map.of("game", game,
+                         "players", snapshot.size(),
+                         "entries", snapshot.top(offset, limit)));
+    }
+
+    @GetMapping("/{game}/players/{player}")
+    public ResponseEntity<RankedScore> rank(@PathVariable String game, @PathVariable String player,
+                                            WebRequest request) {
+        Optional<Leaderboard> leaderboard = leaderboards.leaderboard(game);
+        if (leaderboard.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Tagged with the snapshot from before the lookup, so the tag is never newer than the answer
+        String etag = leaderboards.etag(leaderboard.get().snapshot());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return leaderboard.get().rank(player)
+            .map(ranked -> ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(ranked))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Scores are applied in batches shortly after; 503 means the queue filled up after "queued" of them
+    @PostMapping("/{game}")
+    public ResponseEntity<Map<String, Object>> submit(@PathVariable String game,
+                                                      @RequestBody List<LeaderboardService.Score> scores) {
+        // Only configured games, so posts cannot use up the service's game limit
+        if (!knownGames.isKnown(game)) {
+            return ResponseEntity.notFound().build();
+        }
+        int queued;
+        try {
+            queued = leaderboards.submitAll(game, scores);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        HttpStatus status = queued == scores.size() ? HttpStatus.ACCEPTED : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(Map.of("queued", queued));
+    }
+}
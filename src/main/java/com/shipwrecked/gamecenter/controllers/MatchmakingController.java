@@ -0,0 +1,43 @@
+package com.shipwrecked.gamecenter.controllers;
+
+import com.shipwrecked.gamecenter.matchmaking.GameType;
+import com.shipwrecked.gamecenter.matchmaking.MatchTicket;
+import com.shipwrecked.gamecenter.matchmaking.Matchmaker;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/matchmaking")
+public class MatchmakingController {
+
+    private final Matchmaker matchmaker;
+
+    public MatchmakingController(Matchmaker matchmaker) {
+        this.matchmaker = matchmaker;
+    }
+
+    // Subscribe to /topic/matchmaking/{id} for the match, or poll GET /{id}
+    @PostMapping("/join")
+    public MatchTicket join(@RequestParam GameType game, @RequestParam(required = false) Integer rating) {
+        return matchmaker.join(game, rating);
+    }
+
+    @GetMapping("/{ticketId}")
+    public ResponseEntity<MatchTicket> ticket(@PathVariable String ticketId) {
+        return matchmaker.find(ticketId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{ticketId}")
+    public ResponseEntity<Void> cancel(@PathVariable String ticketId) {
+        if (matchmaker.find(ticketId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Too late once the ticket has been matched or has expired
+        return matchmaker.cancel(ticketId)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.shipwrecked.gamecenter.controllers;
+
+import com.shipwrecked.gamecenter.leaderboard.LeaderboardService;
+import com.shipwrecked.gamecenter.scores.ScoreEntry;
+import com.shipwrecked.gamecenter.scores.ScoreGames;
+import com.shipwrecked.gamecenter.scores.ScoreStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// High-score tables, read from the same score file the desktop launcher writes
+@RestController
+@RequestMapping("/api/scores")
+public class ScoreController {
+
+    private final ScoreStore scores;
+    private final LeaderboardService leaderboards;
+    private final ScoreGames knownGames;
+
+    public ScoreController(ScoreStore scores, LeaderboardService leaderboards, ScoreGames knownGames) {
+        this.scores = scores;
+        this.leaderboards = leaderboards;
+        this.knownGames = knownGames;
+    }
+
+    @GetMapping
+    public List<String> games() {
+        return scores.games();
+    }
+
+    @GetMapping("/{game}")
+    public ResponseEntity<List<ScoreEntry>> top(@PathVariable String game,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > ScoreStore.GAME_CAPACITY) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(scores.top(game, limit));
+    }
+
+    @GetMapping("/{game}/players/{player}")
+    public ResponseEntity<List<ScoreEntry>> topForPlayer(@PathVariable String game,
+                                                         @PathVariable String player,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > ScoreStore.PLAYER_CAPACITY) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(scores.topForPlayer(game, player, limit));
+    }
+
+    /*
+     * "ranked" is false when the score is below everything the table keeps; it also goes to the
+     * leaderboard. 503 means the leaderboard queue was full and the score was kept nowhere, so
+     * it can be posted again. The leaderboard goes first because only it can turn a score away.
+     */
+    @PostMapping("/{game}")
+    public ResponseEntity<Map<String, Object>> submit(@PathVariable String game,
+                                                      @RequestParam String player,
+                                                      @RequestParam long score) {
+        // Only configured games, so posts cannot use up the store's few game slots
+        if (!knownGames.isKnown(game)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            if (!leaderboards.submit(game, player, score)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            boolean ranked = scores.submit(game, player, score);
+            return ResponseEntity.ok(Map.of("ranked", ranked));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
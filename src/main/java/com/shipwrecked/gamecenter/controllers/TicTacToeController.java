@@ -1,123 +1,132 @@
 package com.shipwrecked.gamecenter.controllers;
 
+import com.shipwrecked.gamecenter.models.BoardGame;
+import com.shipwrecked.gamecenter.models.TicTacToeOracle;
+import com.shipwrecked.gamecenter.repository.GameRepository;
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 
 @RestController
 @RequestMapping("/api/tictactoe")
 public class TicTacToeController {
     
-    private final Map<String, GameState> games = new HashMap<>();
+    private final GameRepository<BoardGame> games;
+    private final TicTacToeEvents events;
+    private final SeatTokens seatTokens;
     
+    public TicTacToeController(GameRepository<BoardGame> games, TicTacToeEvents events, SeatTokens seatTokens) {
+        this.games = games;
+        this.events = events;
+        this.seatTokens = seatTokens;
+    }
+    
+    /*
+     * Any board size is an m,n,k-game (see BoardGame.of). The creator plays both seats, so
+     * gets both seat tokens; the game id alone is a watch link that cannot move.
+     */
     @PostMapping("/new")
-    public ResponseEntity<Map<String, Object>> newGame() {
-        String gameId = UUID.randomUUID().toString();
-        GameState game = new GameState();
-        games.put(gameId, game);
+    public ResponseEntity<Map<String, Object>> newGame(
+            @RequestParam(defaultValue = "3") int rows,
+            @RequestParam(defaultValue = "3") int cols,
+            @RequestParam(defaultValue = "3") int k) {
+        BoardGame game;
+        try {
+            game = BoardGame.of(rows, cols, k);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String gameId = games.create(game);
         
         Map<String, Object> response = new HashMap<>();
         response.put("gameId", gameId);
+        response.put("rows", game.getRows());
+        response.put("cols", game.getCols());
+        response.put("k", game.getK());
         response.put("board", game.getBoard());
         response.put("currentPlayer", game.getCurrentPlayer());
+        response.put("seats", Map.of(
+            "X", seatTokens.issue(gameId, "X"),
+            "O", seatTokens.issue(gameId, "O")));
         
         return ResponseEntity.ok(response);
     }
     
+    // token is the seat token of the player to move
     @PostMapping("/{gameId}/move")
     public ResponseEntity<Map<String, Object>> makeMove(
             @PathVariable String gameId,
-            @RequestParam int position) {
+            @RequestParam int position,
+            @RequestParam(required = false) String token) {
         
-        GameState game = games.get(gameId);
-        if (game == null) {
+        // Runs under the game's own lock, so the check and the move cannot interleave
+        return games.update(gameId, game -> {
+                if (!seatTokens.holds(token, gameId, game.getCurrentPlayer())) {
+                    return new MoveOutcome(ResponseEntity.status(HttpStatus.FORBIDDEN).build(), null);
+                }
+                if (!game.isValidMove(position)) {
+                    return new MoveOutcome(ResponseEntity.badRequest().build(), null);
+                }
+                
+                String player = game.getCurrentPlayer();
+                game.makeMove(position);
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("board", game.getBoard());
+                response.put("currentPlayer", game.getCurrentPlayer());
+                response.put("winner", game.getWinner());
+                response.put("draw", game.isDraw());
+                
+                return new MoveOutcome(ResponseEntity.ok(response), TicTacToeEvents.moveUpdate(game, position, player));
+            }, outcome -> {
+                // Anyone watching over WebSocket sees moves made over HTTP too, once they are stored
+                if (outcome.update() != null) {
+                    events.publish(gameId, outcome.update());
+                }
+            })
+            .map(MoveOutcome::response)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    // The reply to the player, and what watchers are told if the move was made
+    private record MoveOutcome(ResponseEntity<Map<String, Object>> response, Map<String, Object> update) {
+    }
+    
+    @GetMapping("/{gameId}/hint")
+    public ResponseEntity<Map<String, Object>> hint(
+            @PathVariable String gameId,
+            @RequestParam(defaultValue = "PERFECT") TicTacToeOracle.Difficulty difficulty) {
+        
+        // The lock is held only to copy the board; searching after it never holds up a move
+        RandomGenerator random = ThreadLocalRandom.current();
+        Optional<Map.Entry<String, Supplier<BoardGame.Hint>>> pending =
+            games.read(gameId, game -> Map.entry(game.getCurrentPlayer(), game.hint(difficulty, random)));
+        if (pending.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        
-        if (!game.isValidMove(position)) {
+        BoardGame.Hint hint = pending.get().getValue().get();
+        if (hint.position() < 0) {
             return ResponseEntity.badRequest().build();
         }
         
-        game.makeMove(position);
-        
         Map<String, Object> response = new HashMap<>();
-        response.put("board", game.getBoard());
-        response.put("currentPlayer", game.getCurrentPlayer());
-        response.put("winner", game.getWinner());
-        response.put("draw", game.isDraw());
+        response.put("position", hint.position());
+        response.put("currentPlayer", pending.get().getKey());
+        // Forced result for the player to move, if one is known
+        response.put("outlook", switch (hint.predictedResult()) {
+            case 1 -> "win";
+            case -1 -> "loss";
+            default -> "even";
+        });
         
         return ResponseEntity.ok(response);
     }
-    
-    private static class GameState {
-        private final String[] board;
-        private String currentPlayer;
-        private String winner;
-        private boolean draw;
-        
-        public GameState() {
-            this.board = new String[9];
-            this.currentPlayer = "X";
-            this.winner = null;
-            this.draw = false;
-        }
-        
-        public boolean isValidMove(int position) {
-            return position >= 0 && position < 9 && board[position] == null && winner == null && !draw;
-        }
-        
-        public void makeMove(int position) {
-            board[position] = currentPlayer;
-            checkWin();
-            if (!draw && winner == null) {
-                currentPlayer = currentPlayer.equals("X") ? "O" : "X";
-            }
-        }
-        
-        private void checkWin() {
-            int[][] winPatterns = {
-                {0, 1, 2}, {3, 4, 5}, {6, 7, 8}, // Rows
-                {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, // Columns
-                {0, 4, 8}, {2, 4, 6}             // Diagonals
-            };
-            
-            for (int[] pattern : winPatterns) {
-                if (board[pattern[0]] != null &&
-                    board[pattern[0]].equals(board[pattern[1]]) &&
-                    board[pattern[0]].equals(board[pattern[2]])) {
-                    winner = board[pattern[0]];
-                    return;
-                }
-            }
-            
-            // Check for draw
-            boolean allFilled = true;
-            for (String cell : board) {
-                if (cell == null) {
-                    allFilled = false;
-                    break;
-                }
-            }
-            draw = allFilled && winner == null;
-        }
-        
-        public String[] getBoard() {
-            return board;
-        }
-        
-        public String getCurrentPlayer() {
-            return currentPlayer;
-        }
-        
-        public String getWinner() {
-            return winner;
-        }
-        
-        public boolean isDraw() {
-            return draw;
-        }
-    }
-} 
\ No newline at end of file
+}
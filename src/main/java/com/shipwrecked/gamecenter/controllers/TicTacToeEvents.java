@@ -0,0 +1,133 @@
+package com.shipwrecked.gamecenter.controllers;
+
+import com.shipwrecked.gamecenter.models.BoardGame;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes tic-tac-toe updates to everyone watching a game on {@code /topic/tictactoe/{gameId}}.
+ * Subscribers get only what changed (the cell played and the new status); the full board is
+ * sent once, when they subscribe to {@code /app/tictactoe/{gameId}}.
+ */
+@Component
+public class TicTacToeEvents {
+    static final String TOPIC_PREFIX = "/topic/tictactoe/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /*
+     * Each session's subscriptions (subscription id -> game), and how many subscriptions each
+     * game has. A session's map is only changed inside compute on its key, so a disconnect
+     * takes everything the session watched in one remove.
+     */
+    private final Map<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> viewers = new ConcurrentHashMap<>();
+
+    public TicTacToeEvents(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    /*
+     * What watchers are told about a move, read while the game's lock is held. Publish it from
+     * the then of GameRepository.update, so it goes out only once the move is stored, and in
+     * the order moves were made.
+     */
+    static Map<String, Object> moveUpdate(BoardGame game, int position, String player) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("type", "move");
+        update.put("position", position);
+        update.put("player", player);
+        update.put("currentPlayer", game.getCurrentPlayer());
+        update.put("winner", game.getWinner());
+        update.put("draw", game.isDraw());
+        return update;
+    }
+
+    public void publish(String gameId, Map<String, Object> update) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + gameId, update);
+    }
+
+    Map<String, Object> state(String gameId, BoardGame game) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("type", "state");
+        state.put("gameId", gameId);
+        state.put("rows", game.getRows());
+        state.put("cols", game.getCols());
+        state.put("k", game.getK());
+        state.put("board", game.getBoard());
+        state.put("currentPlayer", game.getCurrentPlayer());
+        state.put("winner", game.getWinner());
+        state.put("draw", game.isDraw());
+        state.put("viewers", viewerCount(gameId));
+        return state;
+    }
+
+    static Map<String, Object> error(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("type", "error");
+        error.put("message", message);
+        return error;
+    }
+
+    int viewerCount(String gameId) {
+        return viewers.getOrDefault(gameId, 0);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return;
+        }
+        String gameId = destination.substring(TOPIC_PREFIX.length());
+        subscriptions.compute(headers.getSessionId(), (sessionId, watched) -> {
+            Map<String, String> updated = watched == null ? new HashMap<>() : watched;
+            updated.put(headers.getSubscriptionId(), gameId);
+            return updated;
+        });
+        publishViewers(gameId, viewers.merge(gameId, 1, Integer::sum));
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        String[] gameId = new String[1];
+        subscriptions.computeIfPresent(headers.getSessionId(), (sessionId, watched) -> {
+            gameId[0] = watched.remove(headers.getSubscriptionId());
+            return watched.isEmpty() ? null : watched;
+        });
+        if (gameId[0] != null) {
+            leave(gameId[0]);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> watched = subscriptions.remove(event.getSessionId());
+        if (watched != null) {
+            watched.values().forEach(this::leave);
+        }
+    }
+
+    private void leave(String gameId) {
+        Integer remaining = viewers.computeIfPresent(gameId, (id, count) -> count > 1 ? count - 1 : null);
+        publishViewers(gameId, remaining == null ? 0 : remaining);
+    }
+
+    private void publishViewers(String gameId, int count) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("type", "viewers");
+        update.put("viewers", count);
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + gameId, update);
+    }
+}
@@ -0,0 +1,72 @@
+package com.shipwrecked.gamecenter.controllers;
+
+import com.shipwrecked.gamecenter.models.BoardGame;
+import com.shipwrecked.gamecenter.repository.GameRepository;
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+/**
+ * Tic-tac-toe over STOMP. Subscribing to {@code /app/tictactoe/{gameId}} returns the full
+ * game once; moves sent to {@code /app/tictactoe/{gameId}/move} are broadcast as deltas on
+ * {@code /topic/tictactoe/{gameId}}, and rejected moves are answered on
+ * {@code /user/queue/errors}. A move must carry the seat token of the player to move, so
+ * spectators, who only have the game id, cannot play.
+ */
+@Controller
+public class TicTacToeSocketController {
+
+    public record MoveMessage(int position, String token) {
+    }
+
+    private final GameRepository<BoardGame> games;
+    private final TicTacToeEvents events;
+    private final SeatTokens seatTokens;
+
+    public TicTacToeSocketController(GameRepository<BoardGame> games, TicTacToeEvents events,
+                                     SeatTokens seatTokens) {
+        this.games = games;
+        this.events = events;
+        this.seatTokens = seatTokens;
+    }
+
+    @SubscribeMapping("/tictactoe/{gameId}")
+    public Map<String, Object> subscribe(@DestinationVariable String gameId) {
+        return games.read(gameId, game -> events.state(gameId, game))
+            .orElseGet(() -> TicTacToeEvents.error("Unknown game"));
+    }
+
+    @MessageMapping("/tictactoe/{gameId}/move")
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> move(@DestinationVariable String gameId, MoveMessage move) {
+        // Why the move was turned down, or the update watchers get once it is made
+        Map<String, Object> outcome = games.update(gameId, game -> {
+                String player = game.getCurrentPlayer();
+                if (!seatTokens.holds(move.token(), gameId, player)) {
+                    return TicTacToeEvents.error("Not your turn");
+                }
+                if (!game.isValidMove(move.position())) {
+                    return TicTacToeEvents.error("Invalid move");
+                }
+                game.makeMove(move.position());
+                return TicTacToeEvents.moveUpdate(game, move.position(), player);
+            }, result -> {
+                if (!isError(result)) {
+                    events.publish(gameId, result);
+                }
+            })
+            .orElseGet(() -> TicTacToeEvents.error("Unknown game"));
+
+        // Nothing goes back to the sender on success; the broadcast carries the move
+        return isError(outcome) ? outcome : null;
+    }
+
+    private static boolean isError(Map<String, Object> message) {
+        return "error".equals(message.get("type"));
+    }
+}
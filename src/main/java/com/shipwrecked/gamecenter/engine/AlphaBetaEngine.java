@@ -0,0 +1,341 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Iterative-deepening principal variation search with quiescence search.
+ * Move ordering uses the transposition table move, the previous iteration's PV, MVV-LVA for
+ * captures, killer moves and a history table. All per-search state lives in a
+ * {@link Searcher}; the only shared state is the lock-free {@link TranspositionTable}, so one
+ * engine can serve concurrent games.
+ */
+public class AlphaBetaEngine implements SearchEngine {
+    public static final int INFINITY = 32_000;
+    public static final int MATE = 31_000;
+
+    static final int MAX_PLY = 128;
+
+    // Check the clock every 2048 nodes
+    private static final int TIME_CHECK_MASK = 2047;
+
+    private static final int DEFAULT_HASH_MB = 16;
+
+    private final TranspositionTable table;
+
+    public AlphaBetaEngine() {
+        this(new TranspositionTable(DEFAULT_HASH_MB));
+    }
+
+    public AlphaBetaEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public SearchResult search(Position position, SearchLimits limits, SearchListener listener, AtomicBoolean stopSignal) {
+        table.newSearch();
+        return search(position, limits, 1, listener, stopSignal);
+    }
+
+    /**
+     * One search thread whose iterations start at {@code startDepth}. Used by {@link LazySmpEngine}.
+     */
+    SearchResult search(Position position, SearchLimits limits, int startDepth,
+                        SearchListener listener, AtomicBoolean stopSignal) {
+        return new Searcher(table, limits, listener, stopSignal).run(position, startDepth);
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    private static final class Searcher {
+        private final TranspositionTable table;
+        private final SearchLimits limits;
+        private final SearchListener listener;
+        private final AtomicBoolean stopSignal;
+        private final long startNanos;
+        private final long deadlineNanos;
+
+        // The root is copied once and then searched with make/unmake
+        private final Position position = new Position();
+        private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final int[][] moveScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+        private final int[] pvLength = new int[MAX_PLY + 1];
+        private final int[][] killers = new int[MAX_PLY][2];
+        private final int[][] history = new int[64][64];
+        private final MoveGenerator generator = new MoveGenerator();
+
+        // Previous iteration's principal variation, searched first
+        private final int[] previousPv = new int[MAX_PLY + 1];
+        private int previousPvLength;
+
+        private long nodes;
+        private boolean stopped;
+
+        Searcher(TranspositionTable table, SearchLimits limits, SearchListener listener, AtomicBoolean stopSignal) {
+            this.table = table;
+            this.limits = limits;
+            this.listener = listener;
+            this.stopSignal = stopSignal;
+            this.startNanos = System.nanoTime();
+            this.deadlineNanos = limits.hasTimeLimit() ? startNanos + limits.getTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        }
+
+        SearchResult run(Position root, int startDepth) {
+            position.copyFrom(root);
+
+            int bestMove = Move.NONE;
+            int bestScore = 0;
+            int completedDepth = 0;
+            for (int depth = Math.min(startDepth, limits.getDepth()); depth <= limits.getDepth(); depth++) {
+                int score = negamax(depth, -INFINITY, INFINITY, 0);
+                if (stopped && completedDepth > 0) {
+                    break;
+                }
+                if (pvLength[0] > 0) {
+                    bestMove = pv[0][0];
+                    bestScore = score;
+                }
+                completedDepth = depth;
+                previousPvLength = pvLength[0];
+                System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+                if (!stopped) {
+                    listener.onIteration(new SearchResult(bestMove, bestScore, depth, nodes, elapsedMillis()));
+                }
+
+                // A forced mate will not get any shorter, and the next iteration would likely not finish in time
+                if (stopped || isMateScore(score)
+                    || (limits.hasTimeLimit() && elapsedMillis() > limits.getTimeMillis() / 2)) {
+                    break;
+                }
+            }
+
+            if (bestMove == Move.NONE) {
+                // Out of time before the first iteration produced a line: fall back to any legal move
+                int count = generator.generateLegal(position, moves[0], 0);
+                bestMove = count > 0 ? moves[0][0] : Move.NONE;
+            }
+            return new SearchResult(bestMove, bestScore, completedDepth, nodes, elapsedMillis());
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            pvLength[ply] = 0;
+            if (depth <= 0) {
+                return quiesce(alpha, beta, ply);
+            }
+            if (checkStop()) {
+                return 0;
+            }
+            nodes++;
+
+            if (ply > 0 && (position.halfMoveClock() >= 100 || position.isRepetition())) {
+                return 0;
+            }
+            if (ply >= MAX_PLY - 1) {
+                return Evaluator.evaluate(position);
+            }
+
+            int us = position.sideToMove();
+            boolean inCheck = position.isInCheck(us);
+            if (inCheck) {
+                depth++;
+            }
+
+            // Cut off from the table only in null-window nodes so the PV stays intact
+            long key = position.hash();
+            long entry = table.probe(key);
+            int ttMove = Move.NONE;
+            if (entry != 0L) {
+                ttMove = TranspositionTable.move(entry);
+                if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                    int ttScore = TranspositionTable.score(entry, ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.UPPER && ttScore <= alpha)) {
+                        return ttScore;
+                    }
+                }
+            }
+
+            int[] list = moves[ply];
+            int count = generator.generatePseudoLegal(position, list, 0);
+            scoreMoves(position, list, count, ply, ttMove);
+
+            int originalAlpha = alpha;
+            int legal = 0;
+            int bestScore = -INFINITY;
+            int bestMove = Move.NONE;
+            for (int i = 0; i < count; i++) {
+                int move = pickNext(list, moveScores[ply], i, count);
+                position.makeMove(move);
+                if (position.isInCheck(us)) {
+                    position.unmakeMove();
+                    continue;
+                }
+                legal++;
+
+                int score;
+                if (legal == 1) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                } else {
+                    // Null-window probe; re-search only if the move might beat the PV
+                    score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                    if (score > alpha && score < beta) {
+                        score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                    }
+                }
+                position.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        updatePv(ply, move);
+                        if (alpha >= beta) {
+                            if (!Move.isCapture(move)) {
+                                storeKiller(ply, move);
+                                history[Move.from(move)][Move.to(move)] += depth * depth;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if (legal == 0) {
+                return inCheck ? -MATE + ply : 0;
+            }
+
+            int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, bestScore, depth, bound, ply);
+            return bestScore;
+        }
+
+        private int quiesce(int alpha, int beta, int ply) {
+            if (checkStop()) {
+                return 0;
+            }
+            nodes++;
+            pvLength[ply] = 0;
+
+            int standPat = Evaluator.evaluate(position);
+            if (standPat >= beta || ply >= MAX_PLY - 1) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+
+            int[] list = moves[ply];
+            int count = generator.generatePseudoLegal(position, list, 0);
+            int tactical = 0;
+            for (int i = 0; i < count; i++) {
+                if (Move.isCapture(list[i]) || Move.isPromotion(list[i])) {
+                    list[tactical++] = list[i];
+                }
+            }
+            scoreMoves(position, list, tactical, ply, Move.NONE);
+
+            int us = position.sideToMove();
+            for (int i = 0; i < tactical; i++) {
+                int move = pickNext(list, moveScores[ply], i, tactical);
+                position.makeMove(move);
+                if (position.isInCheck(us)) {
+                    position.unmakeMove();
+                    continue;
+                }
+                int score = -quiesce(-beta, -alpha, ply + 1);
+                position.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            return alpha;
+        }
+
+        private void scoreMoves(Position position, int[] list, int count, int ply, int ttMove) {
+            int[] scores = moveScores[ply];
+            int pvMove = ply < previousPvLength ? previousPv[ply] : Move.NONE;
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                if (move == ttMove) {
+                    scores[i] = 2_000_000;
+                } else if (move == pvMove) {
+                    scores[i] = 1_000_000;
+                } else if (Move.isCapture(move)) {
+                    // Most valuable victim, least valuable attacker
+                    int victim = Move.flags(move) == Move.EN_PASSANT ? Piece.PAWN : Piece.type(position.pieceAt(Move.to(move)));
+                    int attacker = Piece.type(position.pieceAt(Move.from(move)));
+                    scores[i] = 100_000 + victim * 100 - attacker;
+                } else if (Move.isPromotion(move)) {
+                    scores[i] = 90_000 + Move.promotionType(move);
+                } else if (move == killers[ply][0]) {
+                    scores[i] = 80_000;
+                } else if (move == killers[ply][1]) {
+                    scores[i] = 70_000;
+                } else {
+                    scores[i] = Math.min(history[Move.from(move)][Move.to(move)], 60_000);
+                }
+            }
+        }
+
+        // Selection sort step: swap the best remaining move into slot i
+        private static int pickNext(int[] list, int[] scores, int i, int count) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (scores[j] > scores[best]) {
+                    best = j;
+                }
+            }
+            int move = list[best];
+            list[best] = list[i];
+            list[i] = move;
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+            return move;
+        }
+
+        private void updatePv(int ply, int move) {
+            pv[ply][0] = move;
+            System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+            pvLength[ply] = pvLength[ply + 1] + 1;
+        }
+
+        private void storeKiller(int ply, int move) {
+            if (killers[ply][0] != move) {
+                killers[ply][1] = killers[ply][0];
+                killers[ply][0] = move;
+            }
+        }
+
+        private boolean checkStop() {
+            if (!stopped && (nodes & TIME_CHECK_MASK) == 0
+                && (stopSignal.get() || System.nanoTime() > deadlineNanos)) {
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Bitboard constants and precomputed attack tables.
+ * Sliding pieces are looked up through {@link Magics}.
+ * Squares are numbered a1 = 0 .. h8 = 63, so row 0 of the UI board (rank 8) holds squares 56..63.
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_3 = RANK_1 << 16;
+    public static final long RANK_4 = RANK_1 << 24;
+    public static final long RANK_5 = RANK_1 << 32;
+    public static final long RANK_6 = RANK_1 << 40;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    public static final int NO_SQUARE = -1;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Rays used by the classical sliding attack lookup, indexed by direction then square
+    private static final int NORTH = 0, EAST = 1, NORTH_EAST = 2, NORTH_WEST = 3;
+    private static final int SOUTH = 4, WEST = 5, SOUTH_WEST = 6, SOUTH_EAST = 7;
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {0, 1}, {1, 1}, {1, -1},
+        {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}
+    };
+    private static final long[][] RAYS = new long[8][64];
+    // Squares strictly between two aligned squares, and the whole line through them; 0 if not aligned
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int rank = sq >>> 3;
+            int file = sq & 7;
+
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[sq] |= bitAt(rank + step[0], file + step[1]);
+            }
+            for (int[] dir : DIRECTIONS) {
+                KING_ATTACKS[sq] |= bitAt(rank + dir[0], file + dir[1]);
+            }
+            PAWN_ATTACKS[Piece.WHITE][sq] = bitAt(rank + 1, file - 1) | bitAt(rank + 1, file + 1);
+            PAWN_ATTACKS[Piece.BLACK][sq] = bitAt(rank - 1, file - 1) | bitAt(rank - 1, file + 1);
+
+            for (int d = 0; d < 8; d++) {
+                int r = rank + DIRECTIONS[d][0];
+                int f = file + DIRECTIONS[d][1];
+                while (r >= 0 && r < 8 && f >= 0 && f < 8) {
+                    RAYS[d][sq] |= 1L << (r * 8 + f);
+                    r += DIRECTIONS[d][0];
+                    f += DIRECTIONS[d][1];
+                }
+            }
+        }
+
+        for (int sq = 0; sq < 64; sq++) {
+            for (int d = 0; d < 8; d++) {
+                // Directions d and d ^ 4 are opposite
+                long line = RAYS[d][sq] | RAYS[d ^ 4][sq] | 1L << sq;
+                long ray = RAYS[d][sq];
+                while (ray != 0) {
+                    int to = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    BETWEEN[sq][to] = RAYS[d][sq] & ~RAYS[d][to] & ~(1L << to);
+                    LINE[sq][to] = line;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static long bitAt(int rank, int file) {
+        if (rank < 0 || rank > 7 || file < 0 || file > 7) {
+            return 0L;
+        }
+        return 1L << (rank * 8 + file);
+    }
+
+    // Conversions between engine squares and the row/column layout used by the UI and ChessMove
+    public static int square(int row, int col) {
+        return (7 - row) * 8 + col;
+    }
+
+    public static int row(int square) {
+        return 7 - (square >>> 3);
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static int rank(int square) {
+        return square >>> 3;
+    }
+
+    public static int file(int square) {
+        return square & 7;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return Magics.bishopAttacks(square, occupied);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return Magics.rookAttacks(square, occupied);
+    }
+
+    // Ray-walking versions, used to build and verify the magic tables
+    static long slowBishopAttacks(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied) | positiveRay(NORTH_WEST, square, occupied)
+             | negativeRay(SOUTH_WEST, square, occupied) | negativeRay(SOUTH_EAST, square, occupied);
+    }
+
+    static long slowRookAttacks(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied) | positiveRay(EAST, square, occupied)
+             | negativeRay(SOUTH, square, occupied) | negativeRay(WEST, square, occupied);
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    // Attacks of a non-pawn piece type from the given square
+    public static long attacks(int type, int square, long occupied) {
+        return switch (type) {
+            case Piece.KNIGHT -> KNIGHT_ATTACKS[square];
+            case Piece.BISHOP -> bishopAttacks(square, occupied);
+            case Piece.ROOK -> rookAttacks(square, occupied);
+            case Piece.QUEEN -> queenAttacks(square, occupied);
+            case Piece.KING -> KING_ATTACKS[square];
+            default -> 0L;
+        };
+    }
+
+    // Rays growing towards higher square numbers stop at the lowest blocker
+    private static long positiveRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[direction][Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    // Rays growing towards lower square numbers stop at the highest blocker
+    private static long negativeRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[direction][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+}
@@ -0,0 +1,109 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Static evaluation: material plus piece-square tables, in centipawns from the side to move.
+ * Tables follow Tomasz Michniewski's "Simplified Evaluation Function" and are written
+ * from White's point of view with rank 8 on the first row, as they are usually printed.
+ */
+public final class Evaluator {
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 20000};
+
+    private static final int[][] TABLES = {
+        { // Pawn
+             0,  0,  0,  0,  0,  0,  0,  0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+             5,  5, 10, 25, 25, 10,  5,  5,
+             0,  0,  0, 20, 20,  0,  0,  0,
+             5, -5,-10,  0,  0,-10, -5,  5,
+             5, 10, 10,-20,-20, 10, 10,  5,
+             0,  0,  0,  0,  0,  0,  0,  0
+        },
+        { // Knight
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 15, 20, 20, 15,  0,-30,
+            -30,  5, 10, 15, 15, 10,  5,-30,
+            -40,-20,  0,  5,  5,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+        },
+        { // Bishop
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5,  5, 10, 10,  5,  5,-10,
+            -10,  0, 10, 10, 10, 10,  0,-10,
+            -10, 10, 10, 10, 10, 10, 10,-10,
+            -10,  5,  0,  0,  0,  0,  5,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+        },
+        { // Rook
+              0,  0,  0,  0,  0,  0,  0,  0,
+              5, 10, 10, 10, 10, 10, 10,  5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+              0,  0,  0,  5,  5,  0,  0,  0
+        },
+        { // Queen
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+              0,  0,  5,  5,  5,  5,  0, -5,
+            -10,  5,  5,  5,  5,  5,  0,-10,
+            -10,  0,  5,  0,  0,  0,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+        },
+        { // King (middle game)
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -20,-30,-30,-40,-40,-30,-30,-20,
+            -10,-20,-20,-20,-20,-20,-20,-10,
+             20, 20,  0,  0,  0,  0, 20, 20,
+             20, 30, 10,  0,  0, 10, 30, 20
+        }
+    };
+
+    // Material and position combined, indexed by piece code then square
+    private static final int[][] PIECE_SQUARE = new int[12][64];
+
+    static {
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                int whiteIndex = (7 - Bitboards.rank(sq)) * 8 + Bitboards.file(sq);
+                int blackIndex = Bitboards.rank(sq) * 8 + Bitboards.file(sq);
+                PIECE_SQUARE[Piece.make(Piece.WHITE, type)][sq] = PIECE_VALUES[type] + TABLES[type][whiteIndex];
+                PIECE_SQUARE[Piece.make(Piece.BLACK, type)][sq] = PIECE_VALUES[type] + TABLES[type][blackIndex];
+            }
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    public static int evaluate(Position position) {
+        int score = 0;
+        for (int piece = 0; piece < 12; piece++) {
+            int[] table = PIECE_SQUARE[piece];
+            long bits = position.pieces(piece);
+            int sum = 0;
+            while (bits != 0) {
+                sum += table[Long.numberOfTrailingZeros(bits)];
+                bits &= bits - 1;
+            }
+            score += piece < 6 ? sum : -sum;
+        }
+        return position.isWhiteToMove() ? score : -score;
+    }
+
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type];
+    }
+}
@@ -0,0 +1,123 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Forsyth-Edwards Notation reader and writer for {@link Position}.
+ */
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    public static Position parse(String fen) {
+        Position position = new Position();
+        load(position, fen);
+        return position;
+    }
+
+    public static void load(Position position, String fen) {
+        if (fen == null) {
+            throw new IllegalArgumentException("FEN must not be null");
+        }
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+
+        position.clear();
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = Piece.fromFenChar(c);
+                if (piece < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+                position.put(piece, rank * 8 + file);
+                file++;
+            }
+        }
+
+        int side;
+        switch (fields[1]) {
+            case "w" -> side = Piece.WHITE;
+            case "b" -> side = Piece.BLACK;
+            default -> throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+        }
+
+        int castling = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> castling |= Position.WHITE_KINGSIDE;
+                case 'Q' -> castling |= Position.WHITE_QUEENSIDE;
+                case 'k' -> castling |= Position.BLACK_KINGSIDE;
+                case 'q' -> castling |= Position.BLACK_QUEENSIDE;
+                case '-' -> { }
+                default -> throw new IllegalArgumentException("Bad castling rights in FEN: " + fen);
+            }
+        }
+
+        int epSquare = fields[3].equals("-") ? Bitboards.NO_SQUARE : parseSquare(fields[3]);
+        int halfMoves = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        int fullMoves = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        position.setState(side, castling, epSquare, halfMoves, fullMoves);
+    }
+
+    public static String toFen(Position position) {
+        StringBuilder sb = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = position.pieceAt(rank * 8 + file);
+                if (piece == Piece.NONE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(Piece.toFenChar(piece));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (rank > 0) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(position.isWhiteToMove() ? " w " : " b ");
+        int castling = position.castlingRights();
+        if (castling == 0) {
+            sb.append('-');
+        } else {
+            if ((castling & Position.WHITE_KINGSIDE) != 0) sb.append('K');
+            if ((castling & Position.WHITE_QUEENSIDE) != 0) sb.append('Q');
+            if ((castling & Position.BLACK_KINGSIDE) != 0) sb.append('k');
+            if ((castling & Position.BLACK_QUEENSIDE) != 0) sb.append('q');
+        }
+        int epSquare = position.enPassantSquare();
+        sb.append(' ').append(epSquare == Bitboards.NO_SQUARE ? "-" : Move.squareName(epSquare));
+        sb.append(' ').append(position.halfMoveClock());
+        sb.append(' ').append(position.fullMoveNumber());
+        return sb.toString();
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        return rank * 8 + file;
+    }
+}
@@ -0,0 +1,101 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lazy SMP: helper threads search the same root as the main thread and share its
+ * transposition table, so their results speed up the main search through the table only.
+ * Odd helpers start one ply deeper so the threads do not walk the tree in lockstep.
+ * The main thread's move is the one played; it stops the helpers when it finishes.
+ */
+public class LazySmpEngine implements SearchEngine, AutoCloseable {
+    private final AlphaBetaEngine engine;
+    private final int threads;
+    private final ExecutorService helpers;
+
+    public LazySmpEngine(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.engine = new AlphaBetaEngine(table);
+        this.threads = threads;
+        this.helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, new HelperThreadFactory()) : null;
+    }
+
+    @Override
+    public SearchResult search(Position position, SearchLimits limits, SearchListener listener, AtomicBoolean stopSignal) {
+        if (helpers == null) {
+            return engine.search(position, limits, listener, stopSignal);
+        }
+
+        engine.getTranspositionTable().newSearch();
+        // Helpers get their own signal: the caller's stops the main thread, which then stops them
+        AtomicBoolean stop = new AtomicBoolean();
+        // Helpers have no clock of their own; they run until the main thread is done
+        SearchLimits helperLimits = SearchLimits.depth(limits.getDepth());
+        List<Future<SearchResult>> futures = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            int startDepth = 1 + (i & 1);
+            futures.add(helpers.submit(() -> engine.search(position, helperLimits, startDepth, SearchListener.NONE, stop)));
+        }
+
+        SearchResult main;
+        try {
+            main = engine.search(position, limits, 1, listener, stopSignal);
+        } finally {
+            stop.set(true);
+        }
+
+        long nodes = main.getNodes();
+        for (Future<SearchResult> future : futures) {
+            // Helpers still queued behind another game's search are simply dropped
+            if (future.cancel(false)) {
+                continue;
+            }
+            try {
+                nodes += future.get().getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e.getCause());
+            }
+        }
+        return new SearchResult(main.getBestMove(), main.getScore(), main.getDepth(), nodes, main.getTimeMillis());
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return engine.getTranspositionTable();
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    private static final class HelperThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "chess-smp-helper-" + count.incrementAndGet());
+            // Never keep the JVM (or the Swing launcher) alive just for idle helpers
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
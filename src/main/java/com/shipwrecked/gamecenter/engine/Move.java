@@ -0,0 +1,69 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Moves packed into the low 16 bits of an int: 6 bits from, 6 bits to, 4 bits of flags.
+ * Move lists are plain int arrays so generation never allocates.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    // Flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;          // bits 0-1 select knight, bishop, rook, queen
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private Move() {
+    }
+
+    public static int make(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    // Piece type a pawn promotes to, or Piece.NONE
+    public static int promotionType(int move) {
+        return isPromotion(move) ? Piece.KNIGHT + (flags(move) & 3) : Piece.NONE;
+    }
+
+    public static String toUci(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        sb.append(squareName(from(move))).append(squareName(to(move)));
+        if (isPromotion(move)) {
+            sb.append("nbrq".charAt(flags(move) & 3));
+        }
+        return sb.toString();
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.file(square)) + (char) ('1' + Bitboards.rank(square));
+    }
+}
@@ -0,0 +1,253 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Generates moves into caller-owned int buffers (see {@link Move} for the encoding).
+ * Legal generation filters pseudo-legal moves through pins and checkers, playing only en
+ * passant captures on the position and taking them back, so the position must not be read by
+ * another thread meanwhile. Generators keep a scratch buffer; use one per thread.
+ */
+public final class MoveGenerator {
+    // No legal chess position has more than 218 moves
+    public static final int MAX_MOVES = 256;
+
+    private static final long WHITE_KINGSIDE_PATH = 0x60L;
+    private static final long WHITE_QUEENSIDE_PATH = 0x0EL;
+    private static final long BLACK_KINGSIDE_PATH = WHITE_KINGSIDE_PATH << 56;
+    private static final long BLACK_QUEENSIDE_PATH = WHITE_QUEENSIDE_PATH << 56;
+
+    // Buffer for hasLegalMove, which only needs the moves until it finds a legal one
+    private final int[] scratch = new int[MAX_MOVES];
+
+    /**
+     * Appends all legal moves to {@code moves} starting at {@code start}; returns the new end index.
+     * Checkers and pins are worked out once per position, so only king moves and en passant
+     * need an attack test of their own.
+     */
+    public int generateLegal(Position position, int[] moves, int start) {
+        int end = generatePseudoLegal(position, moves, start);
+        int us = position.sideToMove();
+        int king = position.kingSquare(us);
+        if (king == Bitboards.NO_SQUARE) {
+            // Nothing can be left in check without a king
+            return end;
+        }
+
+        long evasions = evasionTargets(position, us, king);
+        long pinned = pinnedPieces(position, us, king);
+        int legal = start;
+        for (int i = start; i < end; i++) {
+            if (isLegal(position, moves[i], us, king, evasions, pinned)) {
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Whether the side to move has any legal move, stopping at the first one found; false
+     * means checkmate or stalemate.
+     */
+    public boolean hasLegalMove(Position position) {
+        int end = generatePseudoLegal(position, scratch, 0);
+        int us = position.sideToMove();
+        int king = position.kingSquare(us);
+        if (king == Bitboards.NO_SQUARE) {
+            return end > 0;
+        }
+
+        long evasions = evasionTargets(position, us, king);
+        long pinned = pinnedPieces(position, us, king);
+        for (int i = 0; i < end; i++) {
+            if (isLegal(position, scratch[i], us, king, evasions, pinned)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Squares a non-king move must land on: anywhere, the checker or its line to the king, or none
+    private static long evasionTargets(Position position, int us, int king) {
+        long checkers = position.attackersTo(king, position.occupied()) & position.occupancy(us ^ 1);
+        if (checkers == 0) {
+            return -1L;
+        }
+        if ((checkers & (checkers - 1)) != 0) {
+            // Double check: only the king can move
+            return 0L;
+        }
+        return checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+    }
+
+    // Own pieces that are the only blocker between our king and an enemy slider
+    private static long pinnedPieces(Position position, int us, int king) {
+        int them = us ^ 1;
+        long diagonal = position.pieces(them, Piece.BISHOP) | position.pieces(them, Piece.QUEEN);
+        long straight = position.pieces(them, Piece.ROOK) | position.pieces(them, Piece.QUEEN);
+        long snipers = (Bitboards.bishopAttacks(king, 0L) & diagonal) | (Bitboards.rookAttacks(king, 0L) & straight);
+        long occupied = position.occupied();
+        long own = position.occupancy(us);
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(king, sniper) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    private static boolean isLegal(Position position, int move, int us, int king, long evasions, long pinned) {
+        int from = Move.from(move);
+        long to = 1L << Move.to(move);
+        if (from == king) {
+            // Lift the king so a slider it was blocking still counts as attacking the target.
+            // Castling generation already checked the squares the king starts on and crosses.
+            long occupied = position.occupied() ^ (1L << king);
+            return (position.attackersTo(Move.to(move), occupied) & position.occupancy(us ^ 1)) == 0;
+        }
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            // Two pawns leave one rank at once, which can open a line pins do not see; rare, so just try it
+            position.makeMove(move);
+            boolean legal = !position.isInCheck(us);
+            position.unmakeMove();
+            return legal;
+        }
+        return (evasions & to) != 0 && ((pinned & (1L << from)) == 0 || (Bitboards.line(king, from) & to) != 0);
+    }
+
+    /**
+     * Appends moves that obey piece movement rules but may leave the king in check.
+     */
+    public int generatePseudoLegal(Position position, int[] moves, int start) {
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.occupancy(us);
+        long enemy = position.occupancy(them);
+        long occupied = position.occupied();
+
+        int count = generatePawnMoves(position, us, enemy, occupied, moves, start);
+
+        for (int type = Piece.KNIGHT; type <= Piece.KING; type++) {
+            long pieces = position.pieces(us, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long targets = Bitboards.attacks(type, from, occupied) & ~own;
+                count = addMoves(from, targets & enemy, Move.CAPTURE, moves, count);
+                count = addMoves(from, targets & ~occupied, Move.QUIET, moves, count);
+            }
+        }
+
+        return generateCastling(position, us, occupied, moves, count);
+    }
+
+    private static int generatePawnMoves(Position position, int us, long enemy, long occupied,
+                                         int[] moves, int count) {
+        long pawns = position.pieces(us, Piece.PAWN);
+        long empty = ~occupied;
+        long promotionRank = us == Piece.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long single, twice, left, right;
+        int forward, leftOffset, rightOffset;
+
+        if (us == Piece.WHITE) {
+            single = (pawns << 8) & empty;
+            twice = ((single & Bitboards.RANK_3) << 8) & empty;
+            left = ((pawns & ~Bitboards.FILE_A) << 7) & enemy;
+            right = ((pawns & ~Bitboards.FILE_H) << 9) & enemy;
+            forward = 8;
+            leftOffset = 7;
+            rightOffset = 9;
+        } else {
+            single = (pawns >>> 8) & empty;
+            twice = ((single & Bitboards.RANK_6) >>> 8) & empty;
+            left = ((pawns & ~Bitboards.FILE_A) >>> 9) & enemy;
+            right = ((pawns & ~Bitboards.FILE_H) >>> 7) & enemy;
+            forward = -8;
+            leftOffset = -9;
+            rightOffset = -7;
+        }
+
+        count = addPawnMoves(single & ~promotionRank, forward, Move.QUIET, moves, count);
+        count = addPawnMoves(twice, 2 * forward, Move.DOUBLE_PAWN_PUSH, moves, count);
+        count = addPawnMoves(left & ~promotionRank, leftOffset, Move.CAPTURE, moves, count);
+        count = addPawnMoves(right & ~promotionRank, rightOffset, Move.CAPTURE, moves, count);
+        count = addPromotions(single & promotionRank, forward, Move.PROMOTION, moves, count);
+        count = addPromotions(left & promotionRank, leftOffset, Move.PROMOTION_CAPTURE, moves, count);
+        count = addPromotions(right & promotionRank, rightOffset, Move.PROMOTION_CAPTURE, moves, count);
+
+        int epSquare = position.enPassantSquare();
+        if (epSquare != Bitboards.NO_SQUARE) {
+            long attackers = Bitboards.pawnAttacks(us ^ 1, epSquare) & pawns;
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                moves[count++] = Move.make(from, epSquare, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private static int generateCastling(Position position, int us, long occupied, int[] moves, int count) {
+        int rights = position.castlingRights();
+        int them = us ^ 1;
+        if (us == Piece.WHITE) {
+            if ((rights & (Position.WHITE_KINGSIDE | Position.WHITE_QUEENSIDE)) == 0 || position.isSquareAttacked(4, them)) {
+                return count;
+            }
+            if ((rights & Position.WHITE_KINGSIDE) != 0 && (occupied & WHITE_KINGSIDE_PATH) == 0
+                && !position.isSquareAttacked(5, them)) {
+                moves[count++] = Move.make(4, 6, Move.KING_CASTLE);
+            }
+            if ((rights & Position.WHITE_QUEENSIDE) != 0 && (occupied & WHITE_QUEENSIDE_PATH) == 0
+                && !position.isSquareAttacked(3, them)) {
+                moves[count++] = Move.make(4, 2, Move.QUEEN_CASTLE);
+            }
+        } else {
+            if ((rights & (Position.BLACK_KINGSIDE | Position.BLACK_QUEENSIDE)) == 0 || position.isSquareAttacked(60, them)) {
+                return count;
+            }
+            if ((rights & Position.BLACK_KINGSIDE) != 0 && (occupied & BLACK_KINGSIDE_PATH) == 0
+                && !position.isSquareAttacked(61, them)) {
+                moves[count++] = Move.make(60, 62, Move.KING_CASTLE);
+            }
+            if ((rights & Position.BLACK_QUEENSIDE) != 0 && (occupied & BLACK_QUEENSIDE_PATH) == 0
+                && !position.isSquareAttacked(59, them)) {
+                moves[count++] = Move.make(60, 58, Move.QUEEN_CASTLE);
+            }
+        }
+        return count;
+    }
+
+    private static int addMoves(int from, long targets, int flags, int[] moves, int count) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = Move.make(from, to, flags);
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(long targets, int offset, int flags, int[] moves, int count) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = Move.make(to - offset, to, flags);
+        }
+        return count;
+    }
+
+    // Queen first so move ordering tries the usual promotion early
+    private static int addPromotions(long targets, int offset, int flags, int[] moves, int count) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int from = to - offset;
+            for (int promo = 3; promo >= 0; promo--) {
+                moves[count++] = Move.make(from, to, flags | promo);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,157 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.Locale;
+
+/**
+ * Perft (performance test) for the move generator: counts leaf nodes of the legal move tree.
+ * Running the main method checks the standard reference positions and prints nodes/second;
+ * it exits with status 1 if any count is wrong.
+ *
+ * <pre>
+ *   java -cp target/classes com.shipwrecked.gamecenter.engine.Perft
+ *   java -cp target/classes com.shipwrecked.gamecenter.engine.Perft --depth 6
+ *   java -cp target/classes com.shipwrecked.gamecenter.engine.Perft --fen "&lt;fen&gt;" --depth 4 --divide
+ * </pre>
+ */
+public final class Perft {
+    private static final int MAX_DEPTH = 64;
+
+    // Reference counts from the Chess Programming Wiki "Perft Results" page
+    static final Object[][] SUITE = {
+        {"Initial position", Fen.START_POSITION,
+            new long[]{20, 400, 8902, 197281, 4865609, 119060324}},
+        {"Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            new long[]{48, 2039, 97862, 4085603, 193690690}},
+        {"Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            new long[]{14, 191, 2812, 43238, 674624, 11030083}},
+        {"Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            new long[]{6, 264, 9467, 422333, 15833292}},
+        {"Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            new long[]{44, 1486, 62379, 2103487, 89941194}},
+        {"Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            new long[]{46, 2079, 89890, 3894594, 164075551}}
+    };
+
+    // Suite depth used when none is given; keeps a full run to a few seconds
+    private static final int DEFAULT_SUITE_DEPTH = 5;
+    private static final long DEFAULT_NODE_BUDGET = 20_000_000L;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[][] moves = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+
+    public long perft(Position position, int depth) {
+        if (depth < 1) {
+            return 1;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be at most " + MAX_DEPTH);
+        }
+        return search(position, depth, 0);
+    }
+
+    // Prints the node count below each root move, the usual way to bisect a move generator bug
+    public long divide(Position position, int depth) {
+        int[] rootMoves = moves[0];
+        int count = generator.generateLegal(position, rootMoves, 0);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(rootMoves[i]);
+            long nodes = depth <= 1 ? 1 : search(position, depth - 1, 1);
+            position.unmakeMove();
+            System.out.println(Move.toUci(rootMoves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        System.out.println("Moves: " + count);
+        System.out.println("Nodes: " + total);
+        return total;
+    }
+
+    private long search(Position position, int depth, int ply) {
+        int[] buffer = moves[ply];
+        int count = generator.generateLegal(position, buffer, 0);
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(buffer[i]);
+            nodes += search(position, depth - 1, ply + 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        String fen = null;
+        int depth = -1;
+        boolean divide = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--fen" -> fen = args[++i];
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--divide" -> divide = true;
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        Perft perft = new Perft();
+        if (fen != null) {
+            Position position = Fen.parse(fen);
+            int d = depth > 0 ? depth : 4;
+            if (divide) {
+                perft.divide(position, d);
+            } else {
+                report("Custom", d, perft.timed(position, d), -1);
+            }
+            return;
+        }
+
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (Object[] entry : SUITE) {
+            String name = (String) entry[0];
+            Position position = Fen.parse((String) entry[1]);
+            long[] expected = (long[]) entry[2];
+
+            // Without an explicit depth, go as deep as the node budget allows
+            int d = depth > 0 ? Math.min(depth, expected.length) : deepestWithin(expected, DEFAULT_NODE_BUDGET);
+            long[] result = perft.timed(position, d);
+            allPassed &= report(name, d, result, expected[d - 1]);
+            totalNodes += result[0];
+            totalNanos += result[1];
+        }
+
+        System.out.printf(Locale.ROOT, "Total: %,d nodes, %,.0f nodes/s%n", totalNodes, totalNodes * 1e9 / Math.max(1, totalNanos));
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    private long[] timed(Position position, int depth) {
+        long start = System.nanoTime();
+        long nodes = perft(position, depth);
+        return new long[]{nodes, System.nanoTime() - start};
+    }
+
+    private static int deepestWithin(long[] expected, long budget) {
+        int depth = 1;
+        while (depth < Math.min(expected.length, DEFAULT_SUITE_DEPTH) && expected[depth] <= budget) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static boolean report(String name, int depth, long[] result, long expected) {
+        boolean passed = expected < 0 || result[0] == expected;
+        double seconds = result[1] / 1e9;
+        System.out.printf(Locale.ROOT, "%-18s depth %d: %,14d nodes %8.3f s %,14.0f nodes/s %s%n",
+            name, depth, result[0], seconds, result[0] / Math.max(seconds, 1e-9),
+            expected < 0 ? "" : passed ? "OK" : "FAILED (expected " + expected + ")");
+        return passed;
+    }
+}
@@ -0,0 +1,123 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tag pairs, the position it starts from and its moves in the
+ * 16-bit {@link Move} encoding. Built by {@link PgnReader} or from a played game, and
+ * written back out with {@link #toPgn()}.
+ */
+public final class PgnGame {
+    public static final String UNFINISHED = "*";
+
+    // The Seven Tag Roster, which every exported game carries in this order
+    private static final String[] ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int LINE_LENGTH = 80;
+
+    private final Map<String, String> tags;
+    private final String startFen;
+    private final int[] moves;
+    private final String result;
+
+    public PgnGame(Map<String, String> tags, String startFen, int[] moves, String result) {
+        this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.startFen = startFen == null ? Fen.START_POSITION : startFen;
+        this.moves = moves.clone();
+        this.result = result == null ? UNFINISHED : result;
+    }
+
+    /**
+     * Export format: roster tags first ("?" when unknown), then the rest, then movetext
+     * in SAN wrapped at 80 columns. A non-standard start adds the SetUp and FEN tags.
+     */
+    public String toPgn() {
+        StringBuilder pgn = new StringBuilder(256 + moves.length * 8);
+        for (String name : ROSTER) {
+            String value = name.equals("Result") ? result : tags.get(name);
+            appendTag(pgn, name, value == null ? (name.equals("Date") ? "????.??.??" : "?") : value);
+        }
+        boolean standardStart = startFen.equals(Fen.START_POSITION);
+        if (!standardStart) {
+            appendTag(pgn, "SetUp", "1");
+            appendTag(pgn, "FEN", startFen);
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            String name = tag.getKey();
+            if (!isRosterTag(name) && !name.equals("SetUp") && !name.equals("FEN")) {
+                appendTag(pgn, name, tag.getValue());
+            }
+        }
+        pgn.append('\n');
+
+        Position position = Fen.parse(startFen);
+        int lineStart = pgn.length();
+        for (int i = 0; i < moves.length; i++) {
+            String token = San.toSan(position, moves[i]);
+            if (position.isWhiteToMove()) {
+                token = position.fullMoveNumber() + ". " + token;
+            } else if (i == 0) {
+                token = position.fullMoveNumber() + "... " + token;
+            }
+            lineStart = appendToken(pgn, token, lineStart);
+            position.makeMove(moves[i]);
+        }
+        appendToken(pgn, result, lineStart);
+        return pgn.append('\n').toString();
+    }
+
+    private static void appendTag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"")
+           .append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+           .append("\"]\n");
+    }
+
+    // Appends with a space or a line break before it; returns where the current line starts
+    private static int appendToken(StringBuilder pgn, String token, int lineStart) {
+        if (pgn.length() > lineStart) {
+            if (pgn.length() - lineStart + 1 + token.length() > LINE_LENGTH) {
+                pgn.append('\n');
+                lineStart = pgn.length();
+            } else {
+                pgn.append(' ');
+            }
+        }
+        pgn.append(token);
+        return lineStart;
+    }
+
+    private static boolean isRosterTag(String name) {
+        for (String roster : ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Getters
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public String getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,418 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streams games out of a PGN file of any size. The calling thread tokenizes: it strips
+ * comments, variations, NAGs and move numbers and splits the input into games of tags
+ * plus SAN tokens. Worker threads replay the SAN on their own {@link Position} and hand
+ * each valid game to the consumer. A bounded queue between the two keeps memory flat
+ * however long the file is, since tokenizing blocks while the workers are behind.
+ *
+ * <pre>
+ *   try (Reader in = Files.newBufferedReader(path)) {
+ *       PgnReader.Stats stats = new PgnReader(4).read(in, game -> book.add(game));
+ *   }
+ * </pre>
+ *
+ * The consumer runs on the worker threads, concurrently and in no particular order.
+ * Games whose moves do not replay are skipped and counted as rejected.
+ */
+public final class PgnReader {
+    // Games longer than this are rejected rather than buffered
+    private static final int MAX_PLIES = 2048;
+    private static final int GAMES_PER_WORKER = 64;
+    private static final RawGame END = new RawGame(Map.of(), List.of(), null);
+
+    /** Totals of one {@link #read} call. */
+    public record Stats(long games, long rejected) {
+    }
+
+    // A game as split out by the tokenizer, not yet checked; sans is null if it ran too long
+    private record RawGame(Map<String, String> tags, List<String> sans, String result) {
+    }
+
+    private final int workers;
+
+    public PgnReader(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker: " + workers);
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Reads every game from {@code in}, returning once all of them have been validated and
+     * consumed. An exception thrown by the consumer stops the read and is rethrown here.
+     */
+    public Stats read(Reader in, Consumer<PgnGame> consumer) throws IOException {
+        BlockingQueue<RawGame> queue = new ArrayBlockingQueue<>(workers * GAMES_PER_WORKER);
+        AtomicLong games = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(() -> validate(queue, consumer, games, rejected, failure), "pgn-validator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            Lexer lexer = new Lexer(in);
+            RawGame game;
+            while (failure.get() == null && (game = nextGame(lexer)) != null) {
+                queue.put(game);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.forEach(Thread::interrupt);
+            throw new IOException("Interrupted while reading PGN", e);
+        } finally {
+            finish(queue, threads);
+        }
+
+        RuntimeException error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+        return new Stats(games.get(), rejected.get());
+    }
+
+    private void finish(BlockingQueue<RawGame> queue, List<Thread> threads) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            for (int i = 0; i < workers; i++) {
+                while (true) {
+                    try {
+                        queue.put(END);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            for (Thread thread : threads) {
+                while (true) {
+                    try {
+                        thread.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void validate(BlockingQueue<RawGame> queue, Consumer<PgnGame> consumer,
+                                 AtomicLong games, AtomicLong rejected, AtomicReference<RuntimeException> failure) {
+        Position position = new Position();
+        try {
+            RawGame raw;
+            while ((raw = queue.take()) != END) {
+                if (failure.get() != null) {
+                    continue;
+                }
+                PgnGame game = replay(position, raw);
+                if (game == null) {
+                    rejected.incrementAndGet();
+                    continue;
+                }
+                try {
+                    consumer.accept(game);
+                    games.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The checked game, or null if a tag or move does not hold up
+    private static PgnGame replay(Position position, RawGame raw) {
+        if (raw.sans() == null) {
+            return null;
+        }
+        String fen = raw.tags().get("FEN");
+        try {
+            Fen.load(position, fen == null ? Fen.START_POSITION : fen);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int[] moves = new int[raw.sans().size()];
+        for (int i = 0; i < moves.length; i++) {
+            int move = San.parse(position, raw.sans().get(i));
+            if (move == Move.NONE) {
+                return null;
+            }
+            position.makeMove(move);
+            moves[i] = move;
+        }
+        return new PgnGame(raw.tags(), fen, moves, raw.result());
+    }
+
+    // The next game's tags and SAN tokens, or null at the end of the input
+    private static RawGame nextGame(Lexer lexer) throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> sans = new ArrayList<>();
+        boolean tooLong = false;
+        boolean started = false;
+        while (true) {
+            int token = lexer.next();
+            switch (token) {
+                case Lexer.EOF -> {
+                    return started ? new RawGame(tags, tooLong ? null : sans, null) : null;
+                }
+                case Lexer.TAG_OPEN -> {
+                    if (!sans.isEmpty() || tooLong) {
+                        // Movetext without a result: the next game has begun
+                        lexer.pushBack();
+                        return new RawGame(tags, tooLong ? null : sans, null);
+                    }
+                    readTag(lexer, tags);
+                    started = true;
+                }
+                case Lexer.SYMBOL -> {
+                    String text = lexer.text();
+                    started = true;
+                    if (isResult(text)) {
+                        return new RawGame(tags, tooLong ? null : sans, text);
+                    }
+                    if (isMoveNumber(text)) {
+                        continue;
+                    }
+                    if (sans.size() < MAX_PLIES) {
+                        sans.add(text);
+                    } else {
+                        tooLong = true;
+                    }
+                }
+                default -> {
+                    // Stray strings and brackets outside a tag pair are ignored
+                }
+            }
+        }
+    }
+
+    private static void readTag(Lexer lexer, Map<String, String> tags) throws IOException {
+        if (lexer.next() != Lexer.SYMBOL) {
+            lexer.pushBack();
+            return;
+        }
+        String name = lexer.text();
+        if (lexer.next() != Lexer.STRING) {
+            lexer.pushBack();
+            return;
+        }
+        tags.put(name, lexer.text());
+        if (lexer.next() != Lexer.TAG_CLOSE) {
+            lexer.pushBack();
+        }
+    }
+
+    private static boolean isResult(String text) {
+        return text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2") || text.equals(PgnGame.UNFINISHED);
+    }
+
+    private static boolean isMoveNumber(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * PGN tokens over a fixed-size buffer. Comments, variations, NAGs, periods and escape
+     * lines are skipped here, so callers only see tags, strings and symbols.
+     */
+    private static final class Lexer {
+        static final int EOF = 0;
+        static final int TAG_OPEN = 1;
+        static final int TAG_CLOSE = 2;
+        static final int STRING = 3;
+        static final int SYMBOL = 4;
+
+        // A symbol or tag value this long is garbage; the rest of it is dropped
+        private static final int MAX_TOKEN = 4096;
+
+        private final Reader in;
+        private final char[] buffer = new char[1 << 16];
+        private final StringBuilder text = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean lineStart = true;
+        private int last = -1;
+        private boolean pushedBack;
+
+        Lexer(Reader in) {
+            this.in = in;
+        }
+
+        // Makes the next call to next() return the current token again
+        void pushBack() {
+            pushedBack = true;
+        }
+
+        String text() {
+            return text.toString();
+        }
+
+        int next() throws IOException {
+            if (pushedBack) {
+                pushedBack = false;
+                return last;
+            }
+            last = scan();
+            return last;
+        }
+
+        private int scan() throws IOException {
+            while (true) {
+                boolean atLineStart = lineStart;
+                int c = read();
+                if (c < 0) {
+                    return EOF;
+                }
+                if (c == '%' && atLineStart) {
+                    skipLine();
+                } else if (c == ';') {
+                    skipLine();
+                } else if (c == '{') {
+                    skipComment();
+                } else if (c == '(') {
+                    skipVariation();
+                } else if (c == '[') {
+                    return TAG_OPEN;
+                } else if (c == ']') {
+                    return TAG_CLOSE;
+                } else if (c == '"') {
+                    readString();
+                    return STRING;
+                } else if (c == '*') {
+                    text.setLength(0);
+                    text.append('*');
+                    return SYMBOL;
+                } else if (c == '$') {
+                    while (Character.isDigit(peek())) {
+                        read();
+                    }
+                } else if (isSymbolChar(c)) {
+                    readSymbol((char) c);
+                    return SYMBOL;
+                }
+                // Whitespace, periods and anything unrecognized separate tokens
+            }
+        }
+
+        private void readSymbol(char first) throws IOException {
+            text.setLength(0);
+            text.append(first);
+            while (isSymbolChar(peek()) || peek() == '!' || peek() == '?') {
+                char c = (char) read();
+                if (text.length() < MAX_TOKEN) {
+                    text.append(c);
+                }
+            }
+        }
+
+        private void readString() throws IOException {
+            text.setLength(0);
+            int c;
+            while ((c = read()) >= 0 && c != '"' && c != '\n') {
+                if (c == '\\') {
+                    c = read();
+                    if (c < 0) {
+                        break;
+                    }
+                }
+                if (text.length() < MAX_TOKEN) {
+                    text.append((char) c);
+                }
+            }
+        }
+
+        private void skipLine() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c >= 0 && c != '\n');
+        }
+
+        private void skipComment() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c >= 0 && c != '}');
+        }
+
+        // Variations nest and may hold comments, which may hold parentheses
+        private void skipVariation() throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                int c = read();
+                if (c < 0) {
+                    return;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '{') {
+                    skipComment();
+                } else if (c == ';') {
+                    skipLine();
+                }
+            }
+        }
+
+        private static boolean isSymbolChar(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '+' || c == '#' || c == '=' || c == ':' || c == '-' || c == '/';
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position++];
+            lineStart = c == '\n';
+            return c;
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
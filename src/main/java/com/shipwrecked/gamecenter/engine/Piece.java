@@ -0,0 +1,47 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Integer piece codes used by the bitboard engine.
+ * A piece is encoded as {@code colour * 6 + type}, so the twelve pieces map to 0..11.
+ */
+public final class Piece {
+    // Colours
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece types
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    // Empty square marker in the mailbox
+    public static final int NONE = -1;
+
+    private static final String FEN_CHARS = "PNBRQKpnbrqk";
+
+    private Piece() {
+    }
+
+    public static int make(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int type(int piece) {
+        return piece >= 6 ? piece - 6 : piece;
+    }
+
+    public static int color(int piece) {
+        return piece >= 6 ? BLACK : WHITE;
+    }
+
+    public static char toFenChar(int piece) {
+        return FEN_CHARS.charAt(piece);
+    }
+
+    public static int fromFenChar(char c) {
+        return FEN_CHARS.indexOf(c);
+    }
+}
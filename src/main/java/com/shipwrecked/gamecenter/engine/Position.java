@@ -0,0 +1,447 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Bitboard chess position: one bitboard per piece, occupancy masks per colour
+ * and a byte mailbox so "what is on this square" stays a single array read.
+ *
+ * <p>{@link #makeMove} pushes what it cannot recompute (captured piece, castling rights,
+ * en passant square, half-move clock and hash) onto a preallocated undo stack, and
+ * {@link #unmakeMove} pops it. Search, takebacks and replay all go through that pair.
+ */
+public final class Position implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    // Rights that survive a move touching the square (king and rook home squares clear bits)
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[0] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] = ALL_CASTLING & ~BLACK_KINGSIDE;
+    }
+
+    // Undo entry layout: move in bits 0-15, captured piece + 1 in bits 16-19,
+    // castling rights in bits 20-23, en passant square + 1 in bits 24-30, half-move clock from bit 32.
+    // The stacks start small, since every stored game has a position, and double as moves are made
+    private static final int INITIAL_UNDO_CAPACITY = 16;
+
+    private static final int[] BACK_RANK = {
+        Piece.ROOK, Piece.KNIGHT, Piece.BISHOP, Piece.QUEEN,
+        Piece.KING, Piece.BISHOP, Piece.KNIGHT, Piece.ROOK
+    };
+
+    private final long[] pieces = new long[12];
+    private final long[] occupancy = new long[2];
+    private long occupied;
+    private final byte[] board = new byte[64];
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfMoveClock;
+    private int fullMoveNumber;
+    private long hash;
+
+    private long[] undoStack = new long[INITIAL_UNDO_CAPACITY];
+    private long[] hashStack = new long[INITIAL_UNDO_CAPACITY];
+    private int undoCount;
+    // Entries below this only have their hashes (see restoreHashes), so cannot be taken back
+    private int historyStart;
+
+    public Position() {
+        clear();
+    }
+
+    public static Position startPosition() {
+        Position position = new Position();
+        for (int file = 0; file < 8; file++) {
+            position.put(Piece.make(Piece.WHITE, BACK_RANK[file]), file);
+            position.put(Piece.make(Piece.WHITE, Piece.PAWN), 8 + file);
+            position.put(Piece.make(Piece.BLACK, Piece.PAWN), 48 + file);
+            position.put(Piece.make(Piece.BLACK, BACK_RANK[file]), 56 + file);
+        }
+        position.castlingRights = ALL_CASTLING;
+        position.hash = Zobrist.compute(position);
+        return position;
+    }
+
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(board, (byte) Piece.NONE);
+        occupied = 0L;
+        sideToMove = Piece.WHITE;
+        castlingRights = 0;
+        enPassantSquare = Bitboards.NO_SQUARE;
+        halfMoveClock = 0;
+        fullMoveNumber = 1;
+        hash = 0L;
+        undoCount = 0;
+        historyStart = 0;
+    }
+
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, 12);
+        System.arraycopy(other.board, 0, board, 0, 64);
+        occupancy[0] = other.occupancy[0];
+        occupancy[1] = other.occupancy[1];
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfMoveClock = other.halfMoveClock;
+        fullMoveNumber = other.fullMoveNumber;
+        hash = other.hash;
+        // The history comes along so repetitions before the copy are still seen
+        ensureUndoCapacity(other.undoCount);
+        System.arraycopy(other.undoStack, 0, undoStack, 0, other.undoCount);
+        System.arraycopy(other.hashStack, 0, hashStack, 0, other.undoCount);
+        undoCount = other.undoCount;
+        historyStart = other.historyStart;
+    }
+
+    // Used when loading a position from FEN
+    public void setState(int sideToMove, int castlingRights, int enPassantSquare, int halfMoveClock, int fullMoveNumber) {
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
+        this.hash = Zobrist.compute(this);
+        this.undoCount = 0;
+        this.historyStart = 0;
+    }
+
+    public void put(int piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        occupancy[Piece.color(piece)] |= bit;
+        occupied |= bit;
+        board[square] = (byte) piece;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    public void remove(int square) {
+        int piece = board[square];
+        if (piece == Piece.NONE) {
+            return;
+        }
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        occupancy[Piece.color(piece)] &= ~bit;
+        occupied &= ~bit;
+        board[square] = (byte) Piece.NONE;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    /**
+     * Checks the movement rules for a single from/to pair using attack masks.
+     * Check, castling and en passant are not considered here.
+     */
+    public boolean isPseudoLegal(int from, int to) {
+        int piece = board[from];
+        if (piece == Piece.NONE || Piece.color(piece) != sideToMove || from == to) {
+            return false;
+        }
+
+        long target = 1L << to;
+        if ((occupancy[sideToMove] & target) != 0) {
+            return false;
+        }
+
+        if (Piece.type(piece) == Piece.PAWN) {
+            return (pawnTargets(from) & target) != 0;
+        }
+        return (Bitboards.attacks(Piece.type(piece), from, occupied) & target) != 0;
+    }
+
+    private long pawnTargets(int from) {
+        long empty = ~occupied;
+        long captures = Bitboards.pawnAttacks(sideToMove, from) & occupancy[sideToMove ^ 1];
+        long bit = 1L << from;
+        if (sideToMove == Piece.WHITE) {
+            long single = (bit << 8) & empty;
+            long twice = ((single & (Bitboards.RANK_2 << 8)) << 8) & empty;
+            return captures | single | twice;
+        }
+        long single = (bit >>> 8) & empty;
+        long twice = ((single & (Bitboards.RANK_7 >>> 8)) >>> 8) & empty;
+        return captures | single | twice;
+    }
+
+    /**
+     * Moves a piece, promoting pawns that reach the last rank to a queen.
+     * Returns the captured piece code or {@link Piece#NONE}.
+     */
+    public int applyMove(int from, int to) {
+        int piece = board[from];
+        int captured = board[to];
+        int flags = captured != Piece.NONE ? Move.CAPTURE : Move.QUIET;
+
+        if (Piece.type(piece) == Piece.PAWN) {
+            if (((1L << to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                flags |= Move.PROMOTION | (Piece.QUEEN - Piece.KNIGHT);
+            } else if (Math.abs(to - from) == 16) {
+                flags = Move.DOUBLE_PAWN_PUSH;
+            }
+        }
+        makeMove(Move.make(from, to, flags));
+        return captured;
+    }
+
+    /**
+     * Plays an encoded {@link Move}. The move is trusted to be at least pseudo-legal.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int us = sideToMove;
+        int piece = board[from];
+        int captureSquare = flags == Move.EN_PASSANT ? (us == Piece.WHITE ? to - 8 : to + 8) : to;
+        int captured = board[captureSquare];
+
+        ensureUndoCapacity(undoCount + 1);
+        hashStack[undoCount] = hash;
+        undoStack[undoCount++] = (move & 0xFFFFL)
+            | ((long) (captured + 1) << 16)
+            | ((long) castlingRights << 20)
+            | ((long) (enPassantSquare + 1) << 24)
+            | ((long) halfMoveClock << 32);
+
+        if (flags == Move.EN_PASSANT) {
+            remove(captureSquare);
+        } else if (captured != Piece.NONE) {
+            remove(to);
+        }
+        remove(from);
+        put(Move.isPromotion(move) ? Piece.make(us, Move.promotionType(move)) : piece, to);
+
+        if (flags == Move.KING_CASTLE) {
+            int rook = board[to + 1];
+            remove(to + 1);
+            put(rook, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            int rook = board[to - 2];
+            remove(to - 2);
+            put(rook, to + 1);
+        }
+
+        if (enPassantSquare != Bitboards.NO_SQUARE) {
+            hash ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(enPassantSquare)];
+        }
+        enPassantSquare = flags == Move.DOUBLE_PAWN_PUSH ? (from + to) >>> 1 : Bitboards.NO_SQUARE;
+        if (enPassantSquare != Bitboards.NO_SQUARE) {
+            hash ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(enPassantSquare)];
+        }
+        hash ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        hash ^= Zobrist.CASTLING[castlingRights];
+        hash ^= Zobrist.BLACK_TO_MOVE;
+        halfMoveClock = (captured != Piece.NONE || Piece.type(piece) == Piece.PAWN) ? 0 : halfMoveClock + 1;
+        if (us == Piece.BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = us ^ 1;
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove}.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoCount == historyStart) {
+            throw new IllegalStateException("No move to take back");
+        }
+        long entry = undoStack[--undoCount];
+        int move = (int) (entry & 0xFFFFL);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int us = sideToMove ^ 1;
+
+        if (flags == Move.KING_CASTLE) {
+            int rook = board[to - 1];
+            remove(to - 1);
+            put(rook, to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            int rook = board[to + 1];
+            remove(to + 1);
+            put(rook, to - 2);
+        }
+
+        int piece = board[to];
+        remove(to);
+        put(Move.isPromotion(move) ? Piece.make(us, Piece.PAWN) : piece, from);
+
+        int captured = (int) ((entry >>> 16) & 0xF) - 1;
+        if (captured != Piece.NONE) {
+            put(captured, flags == Move.EN_PASSANT ? (us == Piece.WHITE ? to - 8 : to + 8) : to);
+        }
+
+        castlingRights = (int) ((entry >>> 20) & 0xF);
+        enPassantSquare = (int) ((entry >>> 24) & 0x7F) - 1;
+        halfMoveClock = (int) (entry >>> 32);
+        hash = hashStack[undoCount];
+        if (us == Piece.BLACK) {
+            fullMoveNumber--;
+        }
+        sideToMove = us;
+    }
+
+    // Number of moves that can be taken back
+    public int undoCount() {
+        return undoCount - historyStart;
+    }
+
+    public int lastMove() {
+        return undoCount == historyStart ? Move.NONE : (int) (undoStack[undoCount - 1] & 0xFFFFL);
+    }
+
+    /**
+     * Hashes of the earlier positions this one could still repeat, those since the last
+     * capture or pawn move, oldest first.
+     */
+    public long[] recentHashes() {
+        return Arrays.copyOfRange(hashStack, Math.max(0, undoCount - halfMoveClock), undoCount);
+    }
+
+    /**
+     * Takes the hashes of the positions that led here, oldest first as {@link #recentHashes}
+     * gives them, so repetitions of them are still found. The moves between them cannot be
+     * taken back.
+     */
+    public void restoreHashes(long[] hashes) {
+        ensureUndoCapacity(hashes.length);
+        System.arraycopy(hashes, 0, hashStack, 0, hashes.length);
+        Arrays.fill(undoStack, 0, hashes.length, 0L);
+        undoCount = hashes.length;
+        historyStart = hashes.length;
+    }
+
+    /**
+     * True if this position already occurred since the last capture or pawn move.
+     * Only positions reached through {@link #makeMove} are known.
+     */
+    public boolean isRepetition() {
+        int limit = Math.max(0, undoCount - halfMoveClock);
+        for (int i = undoCount - 2; i >= limit; i -= 2) {
+            if (hashStack[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How many times this position occurred before since the last capture or pawn move;
+     * two means the third occurrence, a draw by repetition.
+     */
+    public int repetitions() {
+        int count = 0;
+        int limit = Math.max(0, undoCount - halfMoveClock);
+        for (int i = undoCount - 2; i >= limit; i -= 2) {
+            if (hashStack[i] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void ensureUndoCapacity(int capacity) {
+        if (capacity > undoStack.length) {
+            int newLength = Math.max(capacity, undoStack.length * 2);
+            undoStack = Arrays.copyOf(undoStack, newLength);
+            hashStack = Arrays.copyOf(hashStack, newLength);
+        }
+    }
+
+    public long attackersTo(int square, long occupied) {
+        return (Bitboards.pawnAttacks(Piece.BLACK, square) & pieces[Piece.make(Piece.WHITE, Piece.PAWN)])
+             | (Bitboards.pawnAttacks(Piece.WHITE, square) & pieces[Piece.make(Piece.BLACK, Piece.PAWN)])
+             | (Bitboards.knightAttacks(square) & (pieces[Piece.KNIGHT] | pieces[Piece.KNIGHT + 6]))
+             | (Bitboards.kingAttacks(square) & (pieces[Piece.KING] | pieces[Piece.KING + 6]))
+             | (Bitboards.bishopAttacks(square, occupied) & (pieces[Piece.BISHOP] | pieces[Piece.BISHOP + 6]
+                                                           | pieces[Piece.QUEEN] | pieces[Piece.QUEEN + 6]))
+             | (Bitboards.rookAttacks(square, occupied) & (pieces[Piece.ROOK] | pieces[Piece.ROOK + 6]
+                                                         | pieces[Piece.QUEEN] | pieces[Piece.QUEEN + 6]));
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        return (attackersTo(square, occupied) & occupancy[byColor]) != 0;
+    }
+
+    public int kingSquare(int color) {
+        long king = pieces[Piece.make(color, Piece.KING)];
+        return king == 0 ? Bitboards.NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    public boolean isInCheck(int color) {
+        int king = kingSquare(color);
+        return king != Bitboards.NO_SQUARE && isSquareAttacked(king, color ^ 1);
+    }
+
+    // Getters
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[Piece.make(color, type)];
+    }
+
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public boolean isWhiteToMove() {
+        return sideToMove == Piece.WHITE;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    // Zobrist key, updated incrementally by every board change
+    public long hash() {
+        return hash;
+    }
+
+    public int halfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int fullMoveNumber() {
+        return fullMoveNumber;
+    }
+}
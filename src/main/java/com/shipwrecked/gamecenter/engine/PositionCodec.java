@@ -0,0 +1,91 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary form of a {@link Position} without its history, about half the size of FEN:
+ *
+ * <pre>
+ *   long   occupied squares
+ *   nibble piece code of each occupied square, a1 upwards, two per byte (high nibble first)
+ *   byte   side to move in bit 4, castling rights in bits 0-3
+ *   byte   en passant square, or 0xFF
+ *   short  half-move clock
+ *   short  full-move number
+ * </pre>
+ *
+ * The starting position takes 30 bytes.
+ */
+public final class PositionCodec {
+    private static final int NO_SQUARE = 0xFF;
+
+    private PositionCodec() {
+    }
+
+    public static int encodedSize(Position position) {
+        return 8 + (Long.bitCount(position.occupied()) + 1) / 2 + 6;
+    }
+
+    public static void write(Position position, ByteBuffer out) {
+        long occupied = position.occupied();
+        out.putLong(occupied);
+        int pending = -1;
+        for (long rest = occupied; rest != 0; rest &= rest - 1) {
+            int piece = position.pieceAt(Long.numberOfTrailingZeros(rest));
+            if (pending < 0) {
+                pending = piece;
+            } else {
+                out.put((byte) (pending << 4 | piece));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) (pending << 4));
+        }
+
+        out.put((byte) (position.sideToMove() << 4 | position.castlingRights()));
+        int epSquare = position.enPassantSquare();
+        out.put((byte) (epSquare == Bitboards.NO_SQUARE ? NO_SQUARE : epSquare));
+        out.putShort((short) Math.min(position.halfMoveClock(), 0xFFFF));
+        out.putShort((short) Math.min(position.fullMoveNumber(), 0xFFFF));
+    }
+
+    /**
+     * Loads a position written by {@link #write}, replacing what {@code position} held.
+     * Throws IllegalArgumentException if the data is cut short or out of range.
+     */
+    public static void read(ByteBuffer in, Position position) {
+        try {
+            position.clear();
+            long occupied = in.getLong();
+            int packed = 0;
+            int index = 0;
+            for (long rest = occupied; rest != 0; rest &= rest - 1, index++) {
+                int piece;
+                if ((index & 1) == 0) {
+                    packed = in.get() & 0xFF;
+                    piece = packed >>> 4;
+                } else {
+                    piece = packed & 0xF;
+                }
+                if (piece >= 12) {
+                    throw new IllegalArgumentException("Bad piece code: " + piece);
+                }
+                position.put(piece, Long.numberOfTrailingZeros(rest));
+            }
+
+            int state = in.get() & 0xFF;
+            int epSquare = in.get() & 0xFF;
+            int halfMoves = in.getShort() & 0xFFFF;
+            int fullMoves = in.getShort() & 0xFFFF;
+            if (state >>> 4 > Piece.BLACK || (epSquare != NO_SQUARE && epSquare >= 64)) {
+                throw new IllegalArgumentException("Bad position state");
+            }
+            position.setState(state >>> 4, state & 0xF, epSquare == NO_SQUARE ? Bitboards.NO_SQUARE : epSquare,
+                              halfMoves, fullMoves);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated position", e);
+        }
+    }
+}
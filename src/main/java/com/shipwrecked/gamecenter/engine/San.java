@@ -0,0 +1,186 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Standard Algebraic Notation ("Nbd7", "exd6", "O-O", "e8=Q+") for encoded {@link Move}s.
+ * Both directions need the position the move is played from and generate its legal moves,
+ * so the position is changed and restored meanwhile; use one position per thread.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * SAN of a legal move in this position, with the "+" or "#" suffix.
+     */
+    public static String toSan(Position position, int move) {
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generateLegal(position, moves, 0);
+
+        StringBuilder san = new StringBuilder(8);
+        appendMove(position, move, moves, count, san);
+
+        position.makeMove(move);
+        if (position.isInCheck(position.sideToMove())) {
+            boolean mated = generator.generateLegal(position, moves, 0) == 0;
+            san.append(mated ? '#' : '+');
+        }
+        position.unmakeMove();
+        return san.toString();
+    }
+
+    /**
+     * The legal move this SAN names, or {@link Move#NONE} if none or more than one does.
+     * Check and annotation suffixes ("+", "#", "!?") are ignored, as is a missing "=" before
+     * the promotion piece; castling may be written with zeros.
+     */
+    public static int parse(Position position, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end);
+
+        // Pseudo-legal moves are filtered by the text first; only matches pay for the legality check
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generatePseudoLegal(position, moves, 0);
+
+        if (text.equals("O-O") || text.equals("0-0")) {
+            return single(position, moves, count, Move.KING_CASTLE);
+        }
+        if (text.equals("O-O-O") || text.equals("0-0-0")) {
+            return single(position, moves, count, Move.QUEEN_CASTLE);
+        }
+
+        int promotion = Piece.NONE;
+        if (end >= 3 && "NBRQ".indexOf(text.charAt(end - 1)) >= 0) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(end - 1));
+            end -= text.charAt(end - 2) == '=' ? 2 : 1;
+        }
+        if (end < 2) {
+            return Move.NONE;
+        }
+
+        int start = 0;
+        int type = Piece.PAWN;
+        if ("NBRQK".indexOf(text.charAt(0)) >= 0) {
+            type = PIECE_LETTERS.indexOf(text.charAt(0));
+            start = 1;
+        }
+        char toFile = text.charAt(end - 2);
+        char toRank = text.charAt(end - 1);
+        if (toFile < 'a' || toFile > 'h' || toRank < '1' || toRank > '8') {
+            return Move.NONE;
+        }
+        int to = (toRank - '1') * 8 + (toFile - 'a');
+
+        // Whatever is left between the piece and the target square: "x" and disambiguation
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':') {
+                return Move.NONE;
+            }
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.isCastle(move)
+                || Piece.type(position.pieceAt(from)) != type
+                || (fromFile >= 0 && Bitboards.file(from) != fromFile)
+                || (fromRank >= 0 && Bitboards.rank(from) != fromRank)) {
+                continue;
+            }
+            if (Move.isPromotion(move)
+                && Move.promotionType(move) != (promotion == Piece.NONE ? Piece.QUEEN : promotion)) {
+                continue;
+            }
+            if ((!Move.isPromotion(move) && promotion != Piece.NONE) || !isLegal(position, move)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static void appendMove(Position position, int move, int[] moves, int count, StringBuilder san) {
+        if (Move.flags(move) == Move.KING_CASTLE) {
+            san.append("O-O");
+            return;
+        }
+        if (Move.flags(move) == Move.QUEEN_CASTLE) {
+            san.append("O-O-O");
+            return;
+        }
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = Piece.type(position.pieceAt(from));
+        if (type == Piece.PAWN) {
+            if (Move.isCapture(move)) {
+                san.append((char) ('a' + Bitboards.file(from))).append('x');
+            }
+            san.append(Move.squareName(to));
+            if (Move.isPromotion(move)) {
+                san.append('=').append(PIECE_LETTERS.charAt(Move.promotionType(move)));
+            }
+            return;
+        }
+
+        san.append(PIECE_LETTERS.charAt(type));
+        // Name the file, else the rank, else both, when another piece of this type reaches the square
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (Move.to(moves[i]) == to && other != from && Piece.type(position.pieceAt(other)) == type) {
+                ambiguous = true;
+                sameFile |= Bitboards.file(other) == Bitboards.file(from);
+                sameRank |= Bitboards.rank(other) == Bitboards.rank(from);
+            }
+        }
+        if (ambiguous) {
+            if (!sameFile) {
+                san.append((char) ('a' + Bitboards.file(from)));
+            } else if (!sameRank) {
+                san.append((char) ('1' + Bitboards.rank(from)));
+            } else {
+                san.append(Move.squareName(from));
+            }
+        }
+        if (Move.isCapture(move)) {
+            san.append('x');
+        }
+        san.append(Move.squareName(to));
+    }
+
+    private static int single(Position position, int[] moves, int count, int flags) {
+        for (int i = 0; i < count; i++) {
+            if (Move.flags(moves[i]) == flags && isLegal(position, moves[i])) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static boolean isLegal(Position position, int move) {
+        int us = position.sideToMove();
+        position.makeMove(move);
+        boolean legal = !position.isInCheck(us);
+        position.unmakeMove();
+        return legal;
+    }
+}
@@ -0,0 +1,21 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A chess move searcher. Implementations must be safe to call from several threads at once
+ * and must not modify the position passed in.
+ */
+public interface SearchEngine {
+
+    /**
+     * Searches until the limits are reached or {@code stopSignal} is set by another thread,
+     * reporting each completed iteration to {@code listener}. A stopped search still returns
+     * the best move found so far.
+     */
+    SearchResult search(Position position, SearchLimits limits, SearchListener listener, AtomicBoolean stopSignal);
+
+    default SearchResult search(Position position, SearchLimits limits) {
+        return search(position, limits, SearchListener.NONE, new AtomicBoolean());
+    }
+}
@@ -0,0 +1,40 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * How long a search may run: a maximum depth, a time budget, or both (whichever is hit first).
+ */
+public final class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+
+    private final int depth;
+    private final long timeMillis;
+
+    public SearchLimits(int depth, long timeMillis) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        this.depth = Math.min(depth, MAX_DEPTH);
+        this.timeMillis = timeMillis;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(MAX_DEPTH, timeMillis);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Zero means no time limit
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public boolean hasTimeLimit() {
+        return timeMillis > 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Receives progress while a search runs. Called on the searching thread after each completed
+ * iteration, so implementations must be quick and hand UI work off to the right thread.
+ */
+@FunctionalInterface
+public interface SearchListener {
+    SearchListener NONE = progress -> { };
+
+    // Best move, score, depth and node count so far
+    void onIteration(SearchResult progress);
+}
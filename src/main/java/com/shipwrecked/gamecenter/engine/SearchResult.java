@@ -0,0 +1,51 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Outcome of a search. {@code bestMove} is {@link Move#NONE} when the side to move has no legal move.
+ */
+public final class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public boolean hasMove() {
+        return bestMove != Move.NONE;
+    }
+
+    // Centipawns from the point of view of the side to move
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{bestMove=" + (hasMove() ? Move.toUci(bestMove) : "none") + ", score=" + score
+            + ", depth=" + depth + ", nodes=" + nodes + ", timeMillis=" + timeMillis + "}";
+    }
+}
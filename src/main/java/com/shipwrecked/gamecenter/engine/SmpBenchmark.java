@@ -0,0 +1,81 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Time-to-depth benchmark for {@link LazySmpEngine}. Searches a fixed set of positions to a
+ * fixed depth with 1, 2, 4, ... threads (up to the core count) and prints the speedup over
+ * one thread. Each run starts with a cleared table so runs do not help each other.
+ *
+ * <pre>
+ *   java -cp target/classes com.shipwrecked.gamecenter.engine.SmpBenchmark
+ *   java -cp target/classes com.shipwrecked.gamecenter.engine.SmpBenchmark --depth 10 --threads 32 --hash 256
+ * </pre>
+ */
+public final class SmpBenchmark {
+    private static final String[] POSITIONS = {
+        Fen.START_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    private SmpBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int depth = 9;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int hashMb = 64;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--threads" -> maxThreads = Integer.parseInt(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        TranspositionTable table = new TranspositionTable(hashMb);
+        SearchLimits limits = SearchLimits.depth(depth);
+        // Warm up the JIT so the single-thread baseline is not penalized
+        try (LazySmpEngine warmup = new LazySmpEngine(table, 1)) {
+            for (String fen : POSITIONS) {
+                warmup.search(Fen.parse(fen), SearchLimits.depth(Math.max(1, depth - 2)));
+            }
+        }
+
+        double baseline = 0;
+        System.out.printf(Locale.ROOT, "Depth %d, %d MB hash, %d positions%n", depth, hashMb, POSITIONS.length);
+        for (int threads : threadCounts) {
+            long nanos = 0;
+            long nodes = 0;
+            try (LazySmpEngine engine = new LazySmpEngine(table, threads)) {
+                for (String fen : POSITIONS) {
+                    table.clear();
+                    long start = System.nanoTime();
+                    nodes += engine.search(Fen.parse(fen), limits).getNodes();
+                    nanos += System.nanoTime() - start;
+                }
+            }
+            double seconds = nanos / 1e9;
+            if (threads == 1) {
+                baseline = seconds;
+            }
+            System.out.printf(Locale.ROOT, "%3d threads: %8.3f s %,14d nodes %,12.0f nodes/s  speedup %.2fx%n",
+                threads, seconds, nodes, nodes / Math.max(seconds, 1e-9), baseline / Math.max(seconds, 1e-9));
+        }
+    }
+}
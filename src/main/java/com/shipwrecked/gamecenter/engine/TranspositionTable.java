@@ -0,0 +1,167 @@
+package com.shipwrecked.gamecenter.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table shared by every search. Entries are two longs in one
+ * flat array, {@code [key ^ data, data]}, written without locks. A reader only accepts an
+ * entry when {@code slot0 ^ slot1} gives back its own key, so a torn write from another
+ * thread shows up as a collision instead of a wrong score.
+ *
+ * <p>Data layout: move in bits 0-15, score in bits 16-31, depth in bits 32-39,
+ * bound in bits 40-41 and search generation in bits 42-49.
+ */
+public final class TranspositionTable {
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int MAX_DEPTH = 0xFF;
+    private static final int GENERATION_MASK = 0xFF;
+
+    private final long[] table;
+    private final int mask;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + sizeMb);
+        }
+        // Largest power of two that fits the budget, capped by the maximum array length
+        long entries = Long.highestOneBit(sizeMb * 1024L * 1024L / ENTRY_BYTES);
+        entries = Math.min(entries, 1L << 29);
+        this.table = new long[(int) entries * 2];
+        this.mask = (int) entries - 1;
+    }
+
+    /**
+     * Returns the packed data for this key, or 0 if the table holds no verified entry.
+     * Use the static accessors to unpack it.
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = table[index + 1];
+        if (data == 0L) {
+            misses.increment();
+            return 0L;
+        }
+        if ((table[index] ^ data) != key) {
+            collisions.increment();
+            return 0L;
+        }
+        hits.increment();
+        return data;
+    }
+
+    /**
+     * Stores a search result. Scores are from the side to move at {@code ply}; mate scores
+     * are made relative to this node so they stay valid when reached through another path.
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int index = index(key);
+        long oldData = table[index + 1];
+        int currentGeneration = generation;
+        // Keep deeper results from this search unless the new one is for the same position
+        if (oldData != 0L && (table[index] ^ oldData) != key
+            && generation(oldData) == currentGeneration && depth(oldData) > depth && bound != EXACT) {
+            return;
+        }
+        if (AlphaBetaEngine.isMateScore(score)) {
+            score += score > 0 ? ply : -ply;
+        }
+        long data = (move & 0xFFFFL)
+            | ((score & 0xFFFFL) << 16)
+            | ((long) Math.max(0, Math.min(depth, MAX_DEPTH)) << 32)
+            | ((long) bound << 40)
+            | ((long) currentGeneration << 42);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+        stores.increment();
+    }
+
+    // Called once per search so entries from older searches are replaced first
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFFL);
+    }
+
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> 16);
+        if (AlphaBetaEngine.isMateScore(score)) {
+            score -= score > 0 ? ply : -ply;
+        }
+        return score;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & MAX_DEPTH);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 0x3L);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & GENERATION_MASK);
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public long getSizeBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    // Permille of a 1000-entry sample that is filled, as reported by UCI engines
+    public int hashfull() {
+        int sample = Math.min(1000, getCapacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (table[2 * i + 1] != 0L) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable{%d MB, hits=%d, misses=%d, collisions=%d, stores=%d, hashfull=%d}",
+            getSizeBytes() / (1024 * 1024), getHits(), getMisses(), getCollisions(), getStores(), hashfull());
+    }
+}
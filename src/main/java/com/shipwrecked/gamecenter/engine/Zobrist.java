@@ -0,0 +1,74 @@
+package com.shipwrecked.gamecenter.engine;
+
+/**
+ * Zobrist hashing keys. Generated from a fixed seed so hashes are stable across runs
+ * (persisted games and clients comparing hashes rely on that).
+ */
+public final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                seed = next(seed);
+                PIECE_SQUARE[piece][sq] = mix(seed);
+            }
+        }
+        // Each right gets its own key and combinations are XORs of those keys
+        long[] rights = new long[4];
+        for (int i = 0; i < 4; i++) {
+            seed = next(seed);
+            rights[i] = mix(seed);
+        }
+        for (int mask = 0; mask < 16; mask++) {
+            for (int i = 0; i < 4; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    CASTLING[mask] ^= rights[i];
+                }
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[file] = mix(seed);
+        }
+        seed = next(seed);
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    // Full recomputation; Position keeps its hash up to date incrementally
+    public static long compute(Position position) {
+        long hash = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.pieceAt(sq);
+            if (piece != Piece.NONE) {
+                hash ^= PIECE_SQUARE[piece][sq];
+            }
+        }
+        hash ^= CASTLING[position.castlingRights()];
+        if (position.enPassantSquare() != Bitboards.NO_SQUARE) {
+            hash ^= EN_PASSANT_FILE[Bitboards.file(position.enPassantSquare())];
+        }
+        if (!position.isWhiteToMove()) {
+            hash ^= BLACK_TO_MOVE;
+        }
+        return hash;
+    }
+
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,94 @@
+package com.shipwrecked.gamecenter.games;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs computer-player thinking off the Event Dispatch Thread. Work runs on one background
+ * thread per window; progress and the result are handed back to the EDT with
+ * {@code invokeLater}, and nothing is delivered once a task has been cancelled.
+ * Computations must only read their own snapshot of the game, never Swing components.
+ */
+public final class AiExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AiExecutor.class);
+
+    @FunctionalInterface
+    public interface Computation<P, T> {
+        /**
+         * Runs on the worker thread. {@code cancelled} is set when the task is cancelled;
+         * long computations should poll it (or pass it to the engine) and return early.
+         */
+        T compute(Consumer<P> progress, AtomicBoolean cancelled) throws Exception;
+    }
+
+    /** Handle to a submitted computation. */
+    public static final class Task {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        public void cancel() {
+            cancelled.set(true);
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+    }
+
+    private final ExecutorService executor;
+
+    public AiExecutor(String name) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            // Closing the window must not be held up by a search in progress
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a computation. {@code onProgress} and {@code onResult} run on the EDT,
+     * and only while the task has not been cancelled.
+     */
+    public <P, T> Task submit(Computation<P, T> computation, Consumer<P> onProgress, Consumer<T> onResult) {
+        Task task = new Task();
+        Consumer<P> progress = value -> SwingUtilities.invokeLater(() -> {
+            if (!task.isCancelled()) {
+                onProgress.accept(value);
+            }
+        });
+        task.future = executor.submit(() -> {
+            T result;
+            try {
+                result = computation.compute(progress, task.cancelled);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("Computer move failed", e);
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (!task.isCancelled()) {
+                    onResult.accept(result);
+                }
+            });
+        });
+        return task;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
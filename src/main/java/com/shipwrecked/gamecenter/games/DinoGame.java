@@ -1,17 +1,23 @@
+package com.shipwrecked.gamecenter.games;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import javax.swing.Timer;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;  
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import com.shipwrecked.gamecenter.GameLauncher;
+import com.shipwrecked.gamecenter.scores.ScoreStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DinoGame extends JFrame {
+    private static final Logger log = LoggerFactory.getLogger(DinoGame.class);
+
     private static final int MIN_WIDTH = 800;
     private static final int MIN_HEIGHT = 400;
     private static final double GROUND_HEIGHT_RATIO = 0.75; // Ground at 75% of window height
@@ -23,6 +29,12 @@ public class DinoGame extends JFrame {
     private static final int GRAVITY = 1;
     private static final int DUCK_HEIGHT = 30;  // Height when ducking
     private static final int NORMAL_HEIGHT = 50; // Normal dino height
+    // The game advances in fixed steps of the old timer's 16 ms, so speeds are per step
+    private static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final int OBSTACLE_SPEED = 5;
+    private static final int BIRD_SPEED = 6;
+    private static final int CLOUD_SPEED = 1;
+    private static final int STEPS_PER_STRIDE = 12; // About 200 ms per leg
 
     // Colors for day/night cycle
     private static final Color DAY_SKY_START = new Color(135, 206, 235);
@@ -37,22 +49,40 @@ public class DinoGame extends JFrame {
     private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 24);
     private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 48);
     private static final Color CACTUS_COLOR = new Color(40, 120, 80);  // Dark green for cacti
-    private static final int HIGH_SCORE_FILE_VERSION = 1;
-    private static int highScore = 0;
+    // Scores go to the launcher's shared score store under this game name
+    public static final String SCORE_GAME = "dino";
+    // Where high scores were kept before the score store; read once to carry the score over
+    private static final Path LEGACY_HIGH_SCORE_FILE = Path.of("dino_high_score.dat");
+    private static final int LEGACY_HIGH_SCORE_FILE_VERSION = 1;
+
+    private final ScoreStore scores;
+    private final String player;
+    private long highScore;
+    private boolean newHighScore = false;
 
     private int groundY;  // Will be calculated based on window height
     private int dinoY;    // Will be calculated based on groundY
+    private int previousDinoY; // Where the dino was one step ago, for painting between steps
     private int dinoHeight = NORMAL_HEIGHT;
     private int dinoVelocity = 0;
     private boolean isJumping = false;
     private boolean isDucking = false;
     private ArrayList<Rectangle> obstacles = new ArrayList<>();
     private ArrayList<Bird> birds = new ArrayList<>();
-    private Timer gameTimer;
+    // Game state belongs to the game loop thread; painting and resizing hold this lock
+    private final Object simulation = new Object();
+    private final GameLoop gameLoop;
+    private final FrameStats frameStats = new FrameStats(STEP_NANOS);
+    private boolean showFrameStats = false;
+    // Keys take effect at the start of the next step, so the same keys give the same game
+    private volatile boolean jumpPressed = false;
+    private volatile boolean downHeld = false;
     private int score = 0;
     private boolean gameOver = false;
     private GameLauncher launcher;
     private Random random = new Random();
+    // Only for looks while painting, so how often frames are painted cannot change the game
+    private final Random decoration = new Random();
     private float timeOfDay = 0; // 0 to 1, where 0 is dawn, 0.5 is noon, and 1 is dusk
     private boolean isNight = false;
     private ArrayList<Star> stars = new ArrayList<>();
@@ -98,7 +128,8 @@ public class DinoGame extends JFrame {
             }
         }
         
-        void draw(Graphics2D g2d) {
+        void draw(Graphics2D g2d, int xOffset) {
+            int x = this.x + xOffset;
             // Draw bird body
             g2d.setColor(BIRD_COLOR);
             g2d.fillOval(x, y, BIRD_WIDTH - 10, BIRD_HEIGHT - 10);
@@ -134,7 +165,10 @@ public class DinoGame extends JFrame {
 
     public DinoGame(GameLauncher launcher) {
         this.launcher = launcher;
-        loadHighScore();
+        this.scores = launcher.scoreStore();
+        this.player = playerName();
+        importLegacyHighScore();
+        this.highScore = scores.best(SCORE_GAME, player);
         setTitle("Dino Jump Game");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setResizable(true);
@@ -195,7 +229,12 @@ public class DinoGame extends JFrame {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                drawGame((Graphics2D) g);
+                frameStats.frame(System.nanoTime());
+                synchronized (simulation) {
+                    drawGame((Graphics2D) g, gameLoop.alpha());
+                }
+                // Some platforms buffer drawing; flush so the frame shows now
+                Toolkit.getDefaultToolkit().sync();
             }
         };
         gamePanel.setPreferredSize(new Dimension(MIN_WIDTH, MIN_HEIGHT));
@@ -218,35 +257,33 @@ public class DinoGame extends JFrame {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-                    if (gameOver) {
-                        resetGame();
-                    } else if (!isJumping) {
-                        isJumping = true;
-                        dinoVelocity = JUMP_VELOCITY;
-                    }
+                    jumpPressed = true;
                 } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
-                    isDucking = true;
-                    dinoHeight = DUCK_HEIGHT;
+                    downHeld = true;
+                } else if (e.getKeyCode() == KeyEvent.VK_F3) {
+                    showFrameStats = !showFrameStats;
                 }
             }
 
             @Override
             public void keyReleased(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_DOWN) {
-                    isDucking = false;
-                    dinoHeight = NORMAL_HEIGHT;
+                    downHeld = false;
                 }
             }
         });
 
-        // Game timer
-        gameTimer = new Timer(16, e -> {
-            if (!gameOver) {
-                updateGame();
-                gamePanel.repaint();
+        // Game loop: fixed steps on its own thread, a repaint after each round of steps
+        gameLoop = new GameLoop("dino-game-loop", STEP_NANOS, simulation, this::step, gamePanel::repaint);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                gameLoop.close();
+                log.info("Dino frame times: {}; {} steps run, {} skipped after stalls",
+                         frameStats, gameLoop.steps(), gameLoop.skippedSteps());
             }
         });
-        gameTimer.start();
+        gameLoop.start();
 
         setFocusable(true);
         pack();
@@ -258,6 +295,25 @@ public class DinoGame extends JFrame {
         clouds.add(new Cloud(x, y));
     }
 
+    // One fixed step: apply the keys, then advance the game unless it is over
+    private void step() {
+        previousDinoY = dinoY;
+        if (jumpPressed) {
+            jumpPressed = false;
+            if (gameOver) {
+                resetGame();
+            } else if (!isJumping) {
+                isJumping = true;
+                dinoVelocity = JUMP_VELOCITY;
+            }
+        }
+        isDucking = downHeld;
+        dinoHeight = isDucking ? DUCK_HEIGHT : NORMAL_HEIGHT;
+        if (!gameOver) {
+            updateGame();
+        }
+    }
+
     private void updateGame() {
         // Update time of day
         timeOfDay += 0.0001f;
@@ -280,7 +336,7 @@ public class DinoGame extends JFrame {
 
         // Update clouds
         for (Cloud cloud : clouds) {
-            cloud.x -= 1;
+            cloud.x -= CLOUD_SPEED;
             if (cloud.x + cloud.width < 0) {
                 cloud.x = getWidth();
                 cloud.y = random.nextInt(groundY - 100);
@@ -289,13 +345,13 @@ public class DinoGame extends JFrame {
 
         // Update obstacles
         for (Rectangle obstacle : obstacles) {
-            obstacle.x -= 5;
+            obstacle.x -= OBSTACLE_SPEED;
         }
         obstacles.removeIf(obstacle -> obstacle.x + obstacle.width < 0);
 
         // Update birds
         for (Bird bird : birds) {
-            bird.x -= 6;
+            bird.x -= BIRD_SPEED;
             bird.updateFlap();
         }
         birds.removeIf(bird -> bird.x + BIRD_WIDTH < 0);
@@ -332,7 +388,6 @@ public class DinoGame extends JFrame {
         for (Rectangle obstacle : obstacles) {
             if (dinoRect.intersects(obstacle)) {
                 gameOver = true;
-                gameTimer.stop();
                 break;
             }
         }
@@ -342,17 +397,20 @@ public class DinoGame extends JFrame {
             Rectangle birdRect = new Rectangle(bird.x, bird.y, BIRD_WIDTH, BIRD_HEIGHT);
             if (dinoRect.intersects(birdRect)) {
                 gameOver = true;
-                gameTimer.stop();
                 break;
             }
         }
 
         // Update score
         score++;
+        if (gameOver) {
+            recordScore();
+        }
     }
 
     private void resetGame() {
         dinoY = groundY;
+        previousDinoY = dinoY;
         dinoVelocity = 0;
         dinoHeight = NORMAL_HEIGHT;
         isJumping = false;
@@ -361,20 +419,22 @@ public class DinoGame extends JFrame {
         birds.clear();
         score = 0;
         gameOver = false;
+        newHighScore = false;
         timeOfDay = 0;
         isNight = false;
         initializeStars();
-        gameTimer.start();
     }
 
     private void returnToLauncher() {
-        gameTimer.stop();
         dispose();
         launcher.setVisible(true);
     }
 
-    private void drawGame(Graphics2D g2d) {
+    // alpha is how far painting is between the previous step (0) and the current one (1)
+    private void drawGame(Graphics2D g2d, double alpha) {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        // Moving things are drawn where they were this part of a step ago
+        double lag = gameOver ? 0 : 1 - alpha;
 
         // Draw sky with day/night cycle
         Color skyStart = isNight ? NIGHT_SKY_START : DAY_SKY_START;
@@ -400,7 +460,7 @@ public class DinoGame extends JFrame {
             g2d.setColor(isNight ? 
                 new Color(cloud.color.getRed(), cloud.color.getGreen(), cloud.color.getBlue(), 120) : 
                 cloud.color);
-            g2d.fillOval(cloud.x, cloud.y, cloud.width, cloud.height);
+            g2d.fillOval(cloud.x + (int) Math.round(CLOUD_SPEED * lag), cloud.y, cloud.width, cloud.height);
         }
 
         // Draw ground with texture
@@ -410,26 +470,30 @@ public class DinoGame extends JFrame {
         // Add some grass details
         g2d.setColor(new Color(150, 200, 130));
         for (int x = 0; x < getWidth(); x += 15) {
-            int grassHeight = 2 + random.nextInt(4);
+            int grassHeight = 2 + decoration.nextInt(4);
             g2d.drawLine(x, groundY, x, groundY + grassHeight);
         }
 
         // Draw obstacles as cacti
+        int obstacleOffset = (int) Math.round(OBSTACLE_SPEED * lag);
         for (Rectangle obstacle : obstacles) {
+            Rectangle shown = new Rectangle(obstacle);
+            shown.translate(obstacleOffset, 0);
             // Shadow
             g2d.setColor(new Color(0, 0, 0, 30));
-            g2d.fillRoundRect(obstacle.x + 3, obstacle.y + 3, 
-                            obstacle.width, obstacle.height, 8, 8);
-            drawObstacle(g2d, obstacle);
+            g2d.fillRoundRect(shown.x + 3, shown.y + 3, 
+                            shown.width, shown.height, 8, 8);
+            drawObstacle(g2d, shown);
         }
 
         // Draw birds
+        int birdOffset = (int) Math.round(BIRD_SPEED * lag);
         for (Bird bird : birds) {
-            bird.draw(g2d);
+            bird.draw(g2d, birdOffset);
         }
 
         // Draw dino
-        drawDino(g2d);
+        drawDino(g2d, (int) Math.round(previousDinoY + (dinoY - previousDinoY) * alpha));
 
         // Draw scores
         g2d.setFont(SCORE_FONT);
@@ -452,12 +516,17 @@ public class DinoGame extends JFrame {
         g2d.setColor(isNight ? Color.WHITE : SCORE_COLOR);
         g2d.drawString(highScoreText, highScoreX, 40);
 
+        if (showFrameStats) {
+            g2d.setFont(new Font("Monospaced", Font.PLAIN, 12));
+            g2d.drawString(frameStats.toString(), 10, getHeight() - 80);
+        }
+
         if (gameOver) {
             drawGameOver(g2d);
         }
     }
 
-    private void drawDino(Graphics2D g2d) {
+    private void drawDino(Graphics2D g2d, int dinoY) {
         // Shadow
         g2d.setColor(new Color(0, 0, 0, 50));
         g2d.fillRoundRect(DINO_X_RATIO + 3, dinoY + 3, 40, dinoHeight, 10, 10);
@@ -516,8 +585,7 @@ public class DinoGame extends JFrame {
 
         // Legs
         if (!isJumping) {
-            long currentTime = System.currentTimeMillis();
-            boolean isLeftLegForward = (currentTime / 200) % 2 == 0;
+            boolean isLeftLegForward = (score / STEPS_PER_STRIDE) % 2 == 0;
             
             // Left leg
             g2d.setColor(DINO_COLOR);
@@ -594,10 +662,7 @@ public class DinoGame extends JFrame {
         g2d.drawString(restartText, textX, textY + 40);
 
         // Add high score achievement if applicable
-        if (score > highScore) {
-            highScore = score;
-            saveHighScore();
-            
+        if (newHighScore) {
             // Draw "New High Score!" message
             g2d.setFont(new Font("Arial", Font.BOLD, 24));
             String newHighScoreText = "New High Score!";
@@ -609,11 +674,14 @@ public class DinoGame extends JFrame {
     }
 
     private void updateGameDimensions() {
-        groundY = (int)(getHeight() * GROUND_HEIGHT_RATIO);
-        dinoY = groundY;
-        
-        // Update positions of existing game elements
-        updateGameElements();
+        synchronized (simulation) {
+            groundY = (int)(getHeight() * GROUND_HEIGHT_RATIO);
+            dinoY = groundY;
+            previousDinoY = dinoY;
+
+            // Update positions of existing game elements
+            updateGameElements();
+        }
         repaint();
     }
 
@@ -649,30 +717,40 @@ public class DinoGame extends JFrame {
         }
     }
 
-    private void loadHighScore() {
+    // Every run goes to the score store; it keeps the best ones per player
+    private void recordScore() {
         try {
-            File file = new File("dino_high_score.dat");
-            if (file.exists()) {
-                try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
-                    int version = in.readInt();
-                    if (version == HIGH_SCORE_FILE_VERSION) {
-                        highScore = in.readInt();
-                    }
-                }
-            }  
-        } catch (IOException e) {
-            System.err.println("Error loading high score: " + e.getMessage());
+            scores.submit(SCORE_GAME, player, score);
+        } catch (IllegalArgumentException e) {
+            log.warn("Could not save the score of {}", score, e);
+        }
+        if (score > highScore) {
+            highScore = score;
+            newHighScore = true;
         }
     }
 
-    private void saveHighScore() {
-        try {
-            try (DataOutputStream out = new DataOutputStream(new FileOutputStream("dino_high_score.dat"))) {
-                out.writeInt(HIGH_SCORE_FILE_VERSION);
-                out.writeInt(highScore);
+    private static String playerName() {
+        String name = System.getProperty("user.name", "").trim();
+        if (name.isEmpty()) {
+            return "Player";
+        }
+        return name.length() > ScoreStore.MAX_NAME_LENGTH ? name.substring(0, ScoreStore.MAX_NAME_LENGTH) : name;
+    }
+
+    private void importLegacyHighScore() {
+        if (!Files.exists(LEGACY_HIGH_SCORE_FILE)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(LEGACY_HIGH_SCORE_FILE))) {
+            if (in.readInt() == LEGACY_HIGH_SCORE_FILE_VERSION) {
+                int legacy = in.readInt();
+                if (legacy > scores.best(SCORE_GAME, player)) {
+                    scores.submit(SCORE_GAME, player, legacy);
+                }
             }
         } catch (IOException e) {
-            System.err.println("Error saving high score: " + e.getMessage());
+            log.warn("Could not import the high score from {}", LEGACY_HIGH_SCORE_FILE, e);
         }
     }
-} 
\ No newline at end of file
+}
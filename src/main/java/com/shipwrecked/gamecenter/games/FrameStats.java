@@ -0,0 +1,67 @@
+package com.shipwrecked.gamecenter.games;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame times between consecutive paints, kept as a histogram of 0.1 ms buckets so the
+ * percentiles cost nothing to record. A frame that took about n target frame times stands
+ * in for n frames, and the n - 1 that never got painted count as dropped. Not thread-safe:
+ * record and read it from the thread that paints.
+ */
+public final class FrameStats {
+    private static final long BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    // Frames slower than this all land in the last bucket
+    private static final int BUCKETS = 2500;
+
+    private final long targetNanos;
+    private final long[] histogram = new long[BUCKETS];
+    private long frames;
+    private long dropped;
+    private long lastFrameNanos;
+
+    public FrameStats(long targetNanos) {
+        this.targetNanos = targetNanos;
+    }
+
+    // Call once per painted frame
+    public void frame(long nowNanos) {
+        if (lastFrameNanos != 0) {
+            long frameNanos = nowNanos - lastFrameNanos;
+            histogram[(int) Math.min(BUCKETS - 1, frameNanos / BUCKET_NANOS)]++;
+            frames++;
+            dropped += Math.max(0, Math.round(frameNanos / (double) targetNanos) - 1);
+        }
+        lastFrameNanos = nowNanos;
+    }
+
+    public long frames() {
+        return frames;
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    // The frame time in milliseconds that this fraction of frames took at most
+    public double percentileMillis(double fraction) {
+        if (frames == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(fraction * frames));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= wanted) {
+                return (bucket + 1) * BUCKET_NANOS / 1e6;
+            }
+        }
+        return BUCKETS * BUCKET_NANOS / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "p50 %.1f ms, p99 %.1f ms, %d of %d frames dropped",
+                             percentileMillis(0.5), percentileMillis(0.99), dropped, frames + dropped);
+    }
+}
@@ -0,0 +1,109 @@
+package com.shipwrecked.gamecenter.games;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Advances a simulation in fixed steps on its own thread, however often frames get painted.
+ * Elapsed time goes into an accumulator and is spent one whole step at a time, so the same
+ * inputs always give the same game no matter how the machine is loaded. Steps run while
+ * holding {@code lock}; painting should hold it too and place moving things with
+ * {@link #alpha()} between where they were one step ago and where they are now.
+ */
+public final class GameLoop implements AutoCloseable {
+    // After a long stall, catch up at most this many steps and let the rest go, rather than
+    // falling further behind by stepping through the backlog
+    private static final int MAX_STEPS_PER_FRAME = 5;
+
+    private final long stepNanos;
+    private final Object lock;
+    private final Runnable step;
+    private final Runnable frame;
+    private final Thread thread;
+    // The time the simulation state stands for, on the System.nanoTime() clock
+    private volatile long simulatedNanos;
+    private volatile long steps;
+    private volatile long skippedSteps;
+    private volatile boolean closed;
+
+    /**
+     * {@code step} advances the simulation by one step; {@code frame} runs after every round
+     * of steps, outside the lock, and typically just asks for a repaint.
+     */
+    public GameLoop(String name, long stepNanos, Object lock, Runnable step, Runnable frame) {
+        if (stepNanos <= 0) {
+            throw new IllegalArgumentException("The step must be positive: " + stepNanos);
+        }
+        this.stepNanos = stepNanos;
+        this.lock = lock;
+        this.step = step;
+        this.frame = frame;
+        this.simulatedNanos = System.nanoTime();
+        this.thread = new Thread(this::run, name);
+        // Closing the window must not wait for the loop
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public long stepNanos() {
+        return stepNanos;
+    }
+
+    // Steps run so far
+    public long steps() {
+        return steps;
+    }
+
+    // Steps let go after stalls longer than MAX_STEPS_PER_FRAME steps
+    public long skippedSteps() {
+        return skippedSteps;
+    }
+
+    /**
+     * How far painting now is between the previous step's state (0) and the current one (1).
+     */
+    public double alpha() {
+        double alpha = (System.nanoTime() - simulatedNanos) / (double) stepNanos;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        while (!closed) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+            if (accumulator >= stepNanos) {
+                int stepped = 0;
+                synchronized (lock) {
+                    while (accumulator >= stepNanos && stepped < MAX_STEPS_PER_FRAME) {
+                        step.run();
+                        accumulator -= stepNanos;
+                        stepped++;
+                    }
+                }
+                steps += stepped;
+                if (accumulator >= stepNanos) {
+                    skippedSteps += accumulator / stepNanos;
+                    accumulator %= stepNanos;
+                }
+                simulatedNanos = now - accumulator;
+                frame.run();
+            }
+            long untilNextStep = stepNanos - accumulator - (System.nanoTime() - now);
+            if (untilNextStep > 0) {
+                LockSupport.parkNanos(Math.min(untilNextStep, TimeUnit.MILLISECONDS.toNanos(100)));
+            }
+        }
+    }
+}
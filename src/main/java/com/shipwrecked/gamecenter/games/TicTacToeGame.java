@@ -5,10 +5,10 @@ import java.awt.*;
 import java.awt.event.*;
 import javax.swing.border.*;
 import java.util.ArrayList;
-import java.util.Random;
-import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import java.awt.Point;
 import com.shipwrecked.gamecenter.GameLauncher;
+import com.shipwrecked.gamecenter.models.TicTacToeOracle;
 
 public class TicTacToeGame extends JFrame {
     private JButton[][] buttons;
@@ -18,9 +18,14 @@ public class TicTacToeGame extends JFrame {
     private int computerScore = 0;
     private static final String PLAYER_SYMBOL = "X";
     private static final String COMPUTER_SYMBOL = "O"; 
+    private static final int COMPUTER_MOVE_DELAY = 500; // Pause before the computer moves
+    // Beatable on purpose: about one move in three is not the best one
+    private static final TicTacToeOracle.Difficulty COMPUTER_DIFFICULTY = TicTacToeOracle.Difficulty.MEDIUM;
     private boolean gameOver;
     private GameLauncher launcher;  
     private JButton backButton;
+    private final AiExecutor aiExecutor = new AiExecutor("tictactoe-ai");
+    private AiExecutor.Task computerMoveTask;
 
     // Fun color scheme
     private static final Color BACKGROUND_COLOR = new Color(255, 223, 186);  // Soft peach
@@ -239,8 +244,23 @@ public class TicTacToeGame extends JFrame {
         dispose();
     }
 
+    @Override
+    public void dispose() {
+        cancelComputerMove();
+        aiExecutor.close();
+        super.dispose();
+    }
+
+    private void cancelComputerMove() {
+        if (computerMoveTask != null) {
+            computerMoveTask.cancel();
+            computerMoveTask = null;
+        }
+    }
+
     private void handlePlayerMove(int row, int col) {
-        if (!gameOver && buttons[row][col].getText().isEmpty()) {
+        // Ignore clicks while the computer is still choosing
+        if (!gameOver && computerMoveTask == null && buttons[row][col].getText().isEmpty()) {
             buttons[row][col].setText(PLAYER_SYMBOL);
             
             if (checkWinner(PLAYER_SYMBOL)) {
@@ -259,126 +279,61 @@ public class TicTacToeGame extends JFrame {
 
     private void makeComputerMove() {
         statusLabel.setText("Computer's turn...");
-        
-        // Add a small delay for better UX
-        new javax.swing.Timer(500, e -> {
-            // 70% chance of making a strategic move, 30% chance of random move
-            boolean makeStrategicMove = new Random().nextDouble() < 0.7;
-            
-            if (makeStrategicMove) {
-                // Try to win
-                if (tryWinningMove()) {
-                    ((javax.swing.Timer)e.getSource()).stop();
-                    return;
-                }
-                
-                // Block player's winning move
-                if (tryBlockingMove()) {
-                    ((javax.swing.Timer)e.getSource()).stop();
-                    return;
-                }
-            }
-            
-            // Get all available moves
-            java.util.List<Point> availableMoves = new ArrayList<>();
-            
-            // Prioritize center and corners
-            Point center = new Point(1, 1);
-            java.util.List<Point> corners = Arrays.asList(
-                new Point(0, 0), new Point(0, 2),
-                new Point(2, 0), new Point(2, 2)
-            );
-            java.util.List<Point> sides = Arrays.asList(
-                new Point(0, 1), new Point(1, 0),
-                new Point(1, 2), new Point(2, 1)
-            );
-            
-            // Add moves in priority order
-            if (buttons[1][1].getText().isEmpty()) availableMoves.add(center);
-            for (Point corner : corners) {
-                if (buttons[corner.x][corner.y].getText().isEmpty()) {
-                    availableMoves.add(corner);
-                }
-            }
-            for (Point side : sides) {
-                if (buttons[side.x][side.y].getText().isEmpty()) {
-                    availableMoves.add(side);
-                }
-            }
-            
-            if (!availableMoves.isEmpty()) {
-                // If making a strategic move, prefer moves from the start of the list
-                // If making a random move, choose from anywhere in the list
-                Point move;
-                if (makeStrategicMove && availableMoves.size() > 1) {
-                    // Choose from first two available moves
-                    move = availableMoves.get(new Random().nextInt(Math.min(2, availableMoves.size())));
-                } else {
-                    // Choose completely randomly
-                    move = availableMoves.get(new Random().nextInt(availableMoves.size()));
-                }
-                
-                buttons[move.x][move.y].setText(COMPUTER_SYMBOL);
-                
-                if (checkWinner(COMPUTER_SYMBOL)) {
-                    gameOver = true;
-                    computerScore++;
-                    updateScore();
-                    showWinningAnimation(COMPUTER_SYMBOL);
-                } else if (isBoardFull()) {
-                    gameOver = true;
-                    statusLabel.setText("It's a tie!");
-                } else {
-                    statusLabel.setText("Your turn! Make a move.");
-                }
-            }
-            ((javax.swing.Timer)e.getSource()).stop();
-        }).start();
-    }
 
-    private boolean tryWinningMove() {
-        // Try each empty cell
+        // Snapshot the board on the EDT; the move is chosen on the AI thread
+        String[][] cells = new String[3][3];
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                if (buttons[i][j].getText().isEmpty()) {
-                    // Try the move
-                    buttons[i][j].setText(COMPUTER_SYMBOL);
-                    if (checkWinner(COMPUTER_SYMBOL)) {
-                        // Keep the winning move
-                        if (checkWinner(COMPUTER_SYMBOL)) {
-                            gameOver = true;
-                            computerScore++;
-                            updateScore();
-                            showWinningAnimation(COMPUTER_SYMBOL);
-                        }
-                        return true;
-                    }
-                    // Undo the move
-                    buttons[i][j].setText("");
-                }
+                cells[i][j] = buttons[i][j].getText();
             }
         }
-        return false;
+        // The player is X and always opens, as the oracle expects
+        int playerCells = cellMask(cells, PLAYER_SYMBOL);
+        int computerCells = cellMask(cells, COMPUTER_SYMBOL);
+        computerMoveTask = aiExecutor.submit(
+            (progress, cancelled) -> {
+                // Keep a short pause so the move does not appear instantly
+                Thread.sleep(COMPUTER_MOVE_DELAY);
+                int cell = TicTacToeOracle.chooseMove(playerCells, computerCells,
+                    COMPUTER_DIFFICULTY, ThreadLocalRandom.current());
+                return cell < 0 ? null : new Point(cell / 3, cell % 3);
+            },
+            progress -> { },
+            this::applyComputerMove);
     }
 
-    private boolean tryBlockingMove() {
-        // Try each empty cell
+    private void applyComputerMove(Point move) {
+        computerMoveTask = null;
+        if (gameOver || move == null) {
+            return;
+        }
+
+        buttons[move.x][move.y].setText(COMPUTER_SYMBOL);
+
+        if (checkWinner(COMPUTER_SYMBOL)) {
+            gameOver = true;
+            computerScore++;
+            updateScore();
+            showWinningAnimation(COMPUTER_SYMBOL);
+        } else if (isBoardFull()) {
+            gameOver = true;
+            statusLabel.setText("It's a tie!");
+        } else {
+            statusLabel.setText("Your turn! Make a move.");
+        }
+    }
+
+    // Cell masks (bit row * 3 + col) for one symbol in a board snapshot
+    private static int cellMask(String[][] cells, String symbol) {
+        int mask = 0;
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                if (buttons[i][j].getText().isEmpty()) {
-                    // Try the move as the player
-                    buttons[i][j].setText(PLAYER_SYMBOL);
-                    if (checkWinner(PLAYER_SYMBOL)) {
-                        // Block the winning move
-                        buttons[i][j].setText(COMPUTER_SYMBOL);
-                        return true;
-                    }
-                    // Undo the move
-                    buttons[i][j].setText("");
+                if (cells[i][j].equals(symbol)) {
+                    mask |= 1 << (i * 3 + j);
                 }
             }
         }
-        return false;
+        return mask;
     }
 
     private void showWinningAnimation(String winner) {
@@ -568,6 +523,7 @@ public class TicTacToeGame extends JFrame {
     }
 
     private void resetGame() {
+        cancelComputerMove();
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
                 buttons[i][j].setText("");
@@ -0,0 +1,40 @@
+package com.shipwrecked.gamecenter.journal;
+
+import com.shipwrecked.gamecenter.models.BoardGame;
+
+// Setup is rows, cols and k in five bits each; moves are cell numbers
+public class BoardGameJournalAdapter implements JournalAdapter<BoardGame> {
+
+    @Override
+    public int setup(BoardGame game) {
+        return game.getRows() << 10 | game.getCols() << 5 | game.getK();
+    }
+
+    @Override
+    public BoardGame create(int setup) {
+        return BoardGame.of(setup >>> 10 & 31, setup >>> 5 & 31, setup & 31);
+    }
+
+    @Override
+    public int moveCount(BoardGame game) {
+        return game.getMoveCount();
+    }
+
+    @Override
+    public int moveAt(BoardGame game, int index) {
+        return game.moveAt(index);
+    }
+
+    @Override
+    public void play(BoardGame game, int move) {
+        if (!game.isValidMove(move)) {
+            throw new IllegalArgumentException("Cell " + move + " is not playable");
+        }
+        game.makeMove(move);
+    }
+
+    @Override
+    public void undo(BoardGame game) {
+        throw new IllegalArgumentException("Board games have no take-back");
+    }
+}
@@ -0,0 +1,48 @@
+package com.shipwrecked.gamecenter.journal;
+
+import com.shipwrecked.gamecenter.engine.Fen;
+import com.shipwrecked.gamecenter.models.ChessGame;
+
+// Only games from the standard start are journaled (setup 0); moves are 16-bit engine moves
+public class ChessJournalAdapter implements JournalAdapter<ChessGame> {
+
+    @Override
+    public int setup(ChessGame game) {
+        if (!Fen.START_POSITION.equals(game.startFen())) {
+            throw new IllegalArgumentException("Only games from the standard position can be journaled");
+        }
+        return 0;
+    }
+
+    @Override
+    public ChessGame create(int setup) {
+        if (setup != 0) {
+            throw new IllegalArgumentException("Unknown chess setup " + setup);
+        }
+        return new ChessGame();
+    }
+
+    @Override
+    public int moveCount(ChessGame game) {
+        return game.getMoveCount();
+    }
+
+    @Override
+    public int moveAt(ChessGame game, int index) {
+        return game.packedHistory().get(index);
+    }
+
+    @Override
+    public void play(ChessGame game, int move) {
+        if (!game.playMove(move)) {
+            throw new IllegalArgumentException("Move " + move + " is not playable");
+        }
+    }
+
+    @Override
+    public void undo(ChessGame game) {
+        if (!game.undoMove()) {
+            throw new IllegalArgumentException("Nothing to take back");
+        }
+    }
+}
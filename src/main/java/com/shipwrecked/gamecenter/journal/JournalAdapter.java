@@ -0,0 +1,25 @@
+package com.shipwrecked.gamecenter.journal;
+
+/**
+ * What {@link JournaledGameRepository} needs to know about one kind of game: how a new game is
+ * set up, and how to read back its moves and play them again. Setups and moves must each fit
+ * in 16 bits.
+ */
+public interface JournalAdapter<T> {
+
+    // Describes how this game was set up, e.g. its board size; throws IllegalArgumentException
+    // for games that cannot be journaled
+    int setup(T game);
+
+    T create(int setup);
+
+    int moveCount(T game);
+
+    int moveAt(T game, int index);
+
+    // Replays a journaled move; throws IllegalArgumentException if it is not playable
+    void play(T game, int move);
+
+    // Replays a journaled take-back; throws IllegalArgumentException if there is none
+    void undo(T game);
+}
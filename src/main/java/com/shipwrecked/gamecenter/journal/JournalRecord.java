@@ -0,0 +1,14 @@
+package com.shipwrecked.gamecenter.journal;
+
+import java.util.UUID;
+
+/**
+ * One entry of a {@link MoveJournal}. {@code value} is the move for {@link #MOVE} records and
+ * the game setup for {@link #CREATE} records, both 16 bits; other types leave it 0.
+ */
+public record JournalRecord(long sequence, UUID gameId, int type, int value) {
+    public static final int CREATE = 1;
+    public static final int MOVE = 2;
+    public static final int UNDO = 3;
+    public static final int REMOVE = 4;
+}
@@ -0,0 +1,449 @@
+package com.shipwrecked.gamecenter.journal;
+
+import com.shipwrecked.gamecenter.repository.GameRepository;
+import com.shipwrecked.gamecenter.repository.InMemoryGameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link InMemoryGameRepository} whose games survive a restart. Every accepted move is
+ * appended to a {@link MoveJournal} while the game's lock is held, so the journal has each
+ * game's moves in order; with {@code sync} on, the request then waits for the batch fsync
+ * before it returns. Creating a game does not wait: its record goes out with the next batch,
+ * and the first move made in it waits for both.
+ *
+ * <p>A snapshot writes all games out every snapshot interval (and on close), after which the
+ * journal before it is deleted. Recovery loads the latest snapshot and replays only the
+ * records after it. Games dropped for being idle or to make room are not journaled, so one
+ * may come back after a restart until the next snapshot has been taken.
+ *
+ * <p>The {@code then} of an update waits, keyed by the sequence number of the game's latest
+ * record, until the journal is durable that far; whichever update finishes waiting runs all
+ * that are ready, lowest sequence first. A game's records are appended under its lock, so its
+ * callbacks run in the order its updates were made.
+ */
+public class JournaledGameRepository<T> implements GameRepository<T>, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(JournaledGameRepository.class);
+
+    // 32 MB segments
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    private static final int SNAPSHOT_END = 0x454E4421;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+    private final JournalAdapter<T> adapter;
+    private final InMemoryGameRepository<Tracked<T>> games;
+    private final MoveJournal journal;
+    private final boolean sync;
+    private final Object snapshotLock = new Object();
+    private final ScheduledExecutorService snapshotter;
+    // Callbacks waiting for their sequence to be durable, and the lock that runs them one at a time
+    private final TreeMap<Long, ArrayDeque<Runnable>> afterDurable = new TreeMap<>();
+    private final Object callbackLock = new Object();
+
+    public JournaledGameRepository(Path directory, JournalAdapter<T> adapter, int maxGames, Duration idleTtl,
+                                   Duration commitInterval, Duration snapshotInterval, boolean sync) {
+        this.directory = directory;
+        this.adapter = adapter;
+        this.games = new InMemoryGameRepository<>(maxGames, idleTtl);
+        this.journal = new MoveJournal(directory, SEGMENT_RECORDS, commitInterval);
+        this.sync = sync;
+        try {
+            recover();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Cannot recover games from " + directory, e);
+        }
+
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1000L, snapshotInterval.toMillis());
+        snapshotter.scheduleWithFixedDelay(this::scheduledSnapshot, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // The game and the sequence number of its latest journal record (0 until it has one)
+    private static final class Tracked<T> {
+        final T game;
+        long lastSequence;
+
+        Tracked(T game, long lastSequence) {
+            this.game = game;
+            this.lastSequence = lastSequence;
+        }
+    }
+
+    @Override
+    public String create(T game) {
+        int setup = adapter.setup(game);
+        String id = games.create(new Tracked<>(game, 0));
+        UUID gameId = UUID.fromString(id);
+        // Not awaited, so callers like the matchmaker's tick never wait on an fsync
+        games.update(id, tracked -> {
+            tracked.lastSequence = journal.append(gameId, JournalRecord.CREATE, setup);
+            journalChanges(gameId, tracked, new int[0]);
+            return null;
+        });
+        return id;
+    }
+
+    @Override
+    public Optional<T> find(String id) {
+        return games.find(id).map(tracked -> tracked.game);
+    }
+
+    // Runs action and journals how it changed the game's moves
+    @Override
+    public <R> Optional<R> update(String id, Function<T, R> action) {
+        long[] sequence = new long[1];
+        Optional<R> result = games.update(id, tracked -> {
+            int[] before = moves(tracked.game);
+            R value = action.apply(tracked.game);
+            sequence[0] = journalChanges(UUID.fromString(id), tracked, before);
+            return value;
+        });
+        awaitDurable(sequence[0]);
+        return result;
+    }
+
+    @Override
+    public <R> Optional<R> update(String id, Function<T, R> action, Consumer<? super R> then) {
+        long[] sequence = new long[1];
+        Optional<R> result = games.update(id, tracked -> {
+            int[] before = moves(tracked.game);
+            R value = action.apply(tracked.game);
+            sequence[0] = journalChanges(UUID.fromString(id), tracked, before);
+            if (sync && sequence[0] > 0) {
+                synchronized (afterDurable) {
+                    afterDurable.computeIfAbsent(sequence[0], key -> new ArrayDeque<>()).add(() -> then.accept(value));
+                }
+            } else {
+                // Nothing to wait for
+                then.accept(value);
+            }
+            return value;
+        });
+        awaitDurable(sequence[0]);
+        runDurableCallbacks();
+        return result;
+    }
+
+    @Override
+    public <R> Optional<R> read(String id, Function<T, R> action) {
+        return games.read(id, tracked -> action.apply(tracked.game));
+    }
+
+    @Override
+    public boolean remove(String id) {
+        if (!games.remove(id)) {
+            return false;
+        }
+        awaitDurable(journal.append(UUID.fromString(id), JournalRecord.REMOVE, 0));
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return games.size();
+    }
+
+    @Override
+    public long evictionCount() {
+        return games.evictionCount();
+    }
+
+    /**
+     * Writes every game to a new snapshot file and deletes the journal it covers. Games are
+     * written one at a time under their own locks, so moves carry on meanwhile; a move that
+     * lands after the snapshot started is both in the snapshot and replayed, and recovery
+     * skips it by sequence number.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long started = System.nanoTime();
+            long startSequence = journal.lastSequence();
+            Path file = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, startSequence, SNAPSHOT_SUFFIX));
+            Path temp = directory.resolve(file.getFileName() + ".tmp");
+            int[] written = new int[1];
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(startSequence);
+                games.forEach((id, tracked) -> {
+                    if (tracked.lastSequence == 0) {
+                        return; // still being created; its CREATE record comes after startSequence
+                    }
+                    try {
+                        writeGame(out, UUID.fromString(id), tracked);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+                out.writeBoolean(false);
+                out.writeInt(written[0]);
+                out.writeInt(SNAPSHOT_END);
+                out.flush();
+                channel.force(true);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (Path old : snapshotFiles().values()) {
+                if (!old.equals(file)) {
+                    Files.deleteIfExists(old);
+                }
+            }
+            journal.discardBefore(startSequence + 1);
+            log.info("Snapshot of {} games at journal sequence {} took {} ms", written[0], startSequence,
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Snapshot on close failed; the journal will be replayed instead", e);
+            }
+        }
+        journal.close();
+        games.close();
+    }
+
+    // Stops without a final snapshot, as a crash right after the last fsync would
+    void abandon() {
+        snapshotter.shutdownNow();
+        journal.close();
+        games.close();
+    }
+
+    private int[] moves(T game) {
+        int[] moves = new int[adapter.moveCount(game)];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = adapter.moveAt(game, i);
+        }
+        return moves;
+    }
+
+    /*
+     * Journals the game's moves against what they were before: a take-back for every move
+     * past the part both share, then every move after it. So an action that takes a move back
+     * and plays another in its place is journaled as both, though the count did not change.
+     * Returns the last sequence number written, or 0 if nothing changed.
+     */
+    private long journalChanges(UUID gameId, Tracked<T> tracked, int[] before) {
+        int after = adapter.moveCount(tracked.game);
+        int shared = 0;
+        while (shared < before.length && shared < after && before[shared] == adapter.moveAt(tracked.game, shared)) {
+            shared++;
+        }
+        if (shared == before.length && shared == after) {
+            return 0;
+        }
+        for (int i = shared; i < before.length; i++) {
+            tracked.lastSequence = journal.append(gameId, JournalRecord.UNDO, 0);
+        }
+        for (int i = shared; i < after; i++) {
+            tracked.lastSequence = journal.append(gameId, JournalRecord.MOVE, adapter.moveAt(tracked.game, i));
+        }
+        return tracked.lastSequence;
+    }
+
+    private void awaitDurable(long sequence) {
+        if (sync && sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    // Callbacks left when the journal closes before their records are durable never run
+    private void runDurableCallbacks() {
+        synchronized (callbackLock) {
+            while (true) {
+                List<Runnable> ready = new ArrayList<>();
+                synchronized (afterDurable) {
+                    Map.Entry<Long, ArrayDeque<Runnable>> first = afterDurable.firstEntry();
+                    if (first == null || first.getKey() > journal.durableSequence()) {
+                        return;
+                    }
+                    ready.addAll(afterDurable.pollFirstEntry().getValue());
+                }
+                for (Runnable callback : ready) {
+                    try {
+                        callback.run();
+                    } catch (RuntimeException e) {
+                        log.warn("Callback after a durable update failed", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot in {} failed", directory, e);
+        }
+    }
+
+    private void writeGame(DataOutputStream out, UUID gameId, Tracked<T> tracked) throws IOException {
+        int count = adapter.moveCount(tracked.game);
+        out.writeBoolean(true);
+        out.writeLong(gameId.getMostSignificantBits());
+        out.writeLong(gameId.getLeastSignificantBits());
+        out.writeLong(tracked.lastSequence);
+        out.writeShort(adapter.setup(tracked.game));
+        out.writeShort(count);
+        for (int i = 0; i < count; i++) {
+            out.writeShort(adapter.moveAt(tracked.game, i));
+        }
+    }
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        long snapshotSequence = 0;
+        int restored = 0;
+        // Left over from a snapshot that was cut short
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*.tmp")) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        var snapshots = snapshotFiles();
+        if (!snapshots.isEmpty()) {
+            snapshotSequence = snapshots.lastKey();
+            restored = loadSnapshot(snapshots.lastEntry().getValue());
+        }
+
+        long[] replayed = new long[1];
+        journal.replay(snapshotSequence + 1, record -> {
+            apply(record);
+            replayed[0]++;
+        });
+        log.info("Recovered {} games from {} snapshot games and {} journal records in {} ms",
+                 games.size(), restored, replayed[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private int loadSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+            in.readLong();
+            int count = 0;
+            while (in.readBoolean()) {
+                UUID gameId = new UUID(in.readLong(), in.readLong());
+                long lastSequence = in.readLong();
+                int setup = in.readUnsignedShort();
+                int[] moves = new int[in.readUnsignedShort()];
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = in.readUnsignedShort();
+                }
+                try {
+                    T game = adapter.create(setup);
+                    for (int move : moves) {
+                        adapter.play(game, move);
+                    }
+                    games.restore(gameId.toString(), new Tracked<>(game, lastSequence));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Dropping game {} from the snapshot: {}", gameId, e.getMessage());
+                }
+                count++;
+            }
+            if (in.readInt() != count || in.readInt() != SNAPSHOT_END) {
+                throw new IOException("Snapshot is incomplete: " + file);
+            }
+            return count;
+        }
+    }
+
+    // Records at or before a game's lastSequence are already part of it
+    private void apply(JournalRecord record) {
+        String id = record.gameId().toString();
+        switch (record.type()) {
+            case JournalRecord.CREATE -> {
+                if (games.find(id).isEmpty()) {
+                    try {
+                        games.restore(id, new Tracked<>(adapter.create(record.value()), record.sequence()));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Dropping game {}: {}", id, e.getMessage());
+                    }
+                }
+            }
+            case JournalRecord.MOVE, JournalRecord.UNDO -> games.update(id, tracked -> {
+                if (record.sequence() <= tracked.lastSequence) {
+                    return null;
+                }
+                try {
+                    if (record.type() == JournalRecord.MOVE) {
+                        adapter.play(tracked.game, record.value());
+                    } else {
+                        adapter.undo(tracked.game);
+                    }
+                    tracked.lastSequence = record.sequence();
+                } catch (IllegalArgumentException e) {
+                    log.warn("Dropping game {} at journal sequence {}: {}", id, record.sequence(), e.getMessage());
+                    games.remove(id);
+                }
+                return null;
+            });
+            case JournalRecord.REMOVE -> games.remove(id);
+            default -> log.warn("Skipping journal record {} of unknown type {}", record.sequence(), record.type());
+        }
+    }
+
+    private TreeMap<Long, Path> snapshotFiles() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(),
+                                                            name.length() - SNAPSHOT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,390 @@
+package com.shipwrecked.gamecenter.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of game events in fixed-size records, spread over memory-mapped segment
+ * files that each hold the same number of records. A record is 32 bytes:
+ *
+ * <pre>
+ *   long   sequence number, counting up from 1 without gaps
+ *   long   game id, most significant bits
+ *   long   game id, least significant bits
+ *   byte   record type (see {@link JournalRecord})
+ *   byte   unused
+ *   short  value: the move, or the setup of a new game
+ *   int    CRC32C of the 28 bytes before it
+ * </pre>
+ *
+ * An append only copies into the mapping. A flusher thread forces new records to disk once per
+ * commit interval, so all moves of that interval share one fsync (group commit); callers that
+ * must not answer before their record is on disk wait in {@link #awaitDurable}. On open, the log
+ * is read up to the first torn or out-of-sequence record and everything after it is erased.
+ */
+public final class MoveJournal implements AutoCloseable {
+    public static final int RECORD_SIZE = 32;
+    private static final int CHECKED_BYTES = 28;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // The fields below are guarded by appendLock
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private final List<Segment> segments = new ArrayList<>();
+    private long lastSequence;
+
+    private final Object flushLock = new Object();
+    private final Object durableMonitor = new Object();
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    private final ScheduledExecutorService flusher;
+
+    public MoveJournal(Path directory, int segmentRecords, Duration commitInterval) {
+        if (segmentRecords < 1) {
+            throw new IllegalArgumentException("segmentRecords must be at least 1: " + segmentRecords);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open move journal in " + directory, e);
+        }
+        this.durableSequence = lastSequence;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodNanos = Math.max(100_000L, commitInterval.toNanos());
+        flusher.scheduleWithFixedDelay(this::flush, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Appends a record and returns its sequence number. The record is readable at once but
+     * only durable once {@link #awaitDurable} says so.
+     */
+    public long append(UUID gameId, int type, int value) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.count == segment.capacity) {
+                segment = roll(segment);
+            }
+
+            long sequence = lastSequence + 1;
+            scratch.clear();
+            scratch.putLong(sequence)
+                   .putLong(gameId.getMostSignificantBits())
+                   .putLong(gameId.getLeastSignificantBits())
+                   .put((byte) type)
+                   .put((byte) 0)
+                   .putShort((short) value);
+            crc.reset();
+            crc.update(scratch.array(), 0, CHECKED_BYTES);
+            scratch.putInt((int) crc.getValue());
+            segment.buffer.put(segment.count * RECORD_SIZE, scratch.array(), 0, RECORD_SIZE);
+            segment.count++;
+            lastSequence = sequence;
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with this sequence number has been forced to disk, or the
+     * journal is closed.
+     */
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        boolean interrupted = false;
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence && !closed) {
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Forces everything appended so far to disk; the flusher calls this every commit interval
+    public void flush() {
+        synchronized (flushLock) {
+            Segment segment;
+            int from;
+            int to;
+            long sequence;
+            appendLock.lock();
+            try {
+                if (segments.isEmpty()) {
+                    return;
+                }
+                segment = segments.get(segments.size() - 1);
+                from = segment.flushedCount;
+                to = segment.count;
+                sequence = lastSequence;
+            } finally {
+                appendLock.unlock();
+            }
+
+            if (to > from) {
+                segment.buffer.force(from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+                appendLock.lock();
+                try {
+                    segment.flushedCount = Math.max(segment.flushedCount, to);
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+            markDurable(sequence);
+        }
+    }
+
+    public long lastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Passes every record from {@code fromSequence} on to {@code consumer}, oldest first.
+     * Meant for recovery: records appended meanwhile may or may not be seen.
+     */
+    public void replay(long fromSequence, Consumer<JournalRecord> consumer) {
+        List<Segment> snapshot;
+        appendLock.lock();
+        try {
+            snapshot = new ArrayList<>(segments);
+        } finally {
+            appendLock.unlock();
+        }
+        for (Segment segment : snapshot) {
+            int count = segment.count;
+            if (segment.firstSequence + count <= fromSequence) {
+                continue;
+            }
+            int start = (int) Math.max(0, fromSequence - segment.firstSequence);
+            for (int i = start; i < count; i++) {
+                consumer.accept(segment.read(i));
+            }
+        }
+    }
+
+    /**
+     * Deletes segments holding only records older than {@code sequence}, e.g. once a snapshot
+     * covers them. The segment being appended to is always kept.
+     */
+    public void discardBefore(long sequence) {
+        appendLock.lock();
+        try {
+            while (segments.size() > 1) {
+                Segment oldest = segments.get(0);
+                if (oldest.firstSequence + oldest.count > sequence) {
+                    break;
+                }
+                segments.remove(0);
+                oldest.delete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+        appendLock.lock();
+        try {
+            closed = true;
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+        }
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (durableMonitor) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    // Starts a new segment after the full one, which is forced first so durability stays in order
+    private Segment roll(Segment full) {
+        try {
+            if (full != null) {
+                full.buffer.force();
+                full.flushedCount = full.count;
+                markDurable(lastSequence);
+            }
+            Segment segment = Segment.open(fileFor(lastSequence + 1), lastSequence + 1, segmentRecords);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void open() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+
+        long expected = files.isEmpty() ? 1 : files.firstKey();
+        boolean intact = true;
+        for (var file : files.entrySet()) {
+            if (!intact || file.getKey() != expected) {
+                // Everything after a gap or a torn record is unreachable
+                Files.delete(file.getValue());
+                intact = false;
+                continue;
+            }
+            Segment segment = Segment.open(file.getValue(), file.getKey(), segmentRecords);
+            segment.count = segment.scanValid();
+            segment.eraseFrom(segment.count);
+            segment.flushedCount = segment.count;
+            segments.add(segment);
+            expected += segment.count;
+            intact = segment.count == segment.capacity;
+        }
+        lastSequence = expected - 1;
+    }
+
+    private Path fileFor(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long firstSequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        int count;
+        int flushedCount;
+
+        private Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        // An existing file keeps the size it was created with
+        static Segment open(Path path, long firstSequence, int records) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+            long size = channel.size();
+            int capacity = size >= RECORD_SIZE ? (int) (size / RECORD_SIZE) : records;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            return new Segment(path, firstSequence, channel, buffer, capacity);
+        }
+
+        // Records from the start that have a good checksum and the expected sequence number
+        int scanValid() {
+            byte[] record = new byte[RECORD_SIZE];
+            CRC32C crc = new CRC32C();
+            for (int i = 0; i < capacity; i++) {
+                buffer.get(i * RECORD_SIZE, record);
+                crc.reset();
+                crc.update(record, 0, CHECKED_BYTES);
+                ByteBuffer fields = ByteBuffer.wrap(record);
+                if (fields.getLong(0) != firstSequence + i || fields.getInt(CHECKED_BYTES) != (int) crc.getValue()) {
+                    return i;
+                }
+            }
+            return capacity;
+        }
+
+        // Zeroes leftovers past the valid records, so an old record can never pass for a new one
+        void eraseFrom(int record) {
+            boolean erased = false;
+            for (int offset = record * RECORD_SIZE; offset < capacity * RECORD_SIZE; offset += Long.BYTES) {
+                if (buffer.getLong(offset) != 0) {
+                    buffer.putLong(offset, 0);
+                    erased = true;
+                }
+            }
+            if (erased) {
+                buffer.force();
+            }
+        }
+
+        JournalRecord read(int index) {
+            int offset = index * RECORD_SIZE;
+            return new JournalRecord(
+                buffer.getLong(offset),
+                new UUID(buffer.getLong(offset + 8), buffer.getLong(offset + 16)),
+                buffer.get(offset + 24),
+                buffer.getShort(offset + 26) & 0xFFFF);
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
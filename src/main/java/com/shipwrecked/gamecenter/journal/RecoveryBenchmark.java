@@ -0,0 +1,132 @@
+package com.shipwrecked.gamecenter.journal;
+
+import com.shipwrecked.gamecenter.models.BoardGame;
+import com.shipwrecked.gamecenter.models.TicTacToeGame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Restart time of a {@link JournaledGameRepository} holding many active tic-tac-toe games:
+ * once replaying the whole journal, and once from a snapshot plus a tail of newer moves.
+ * Each run stops the repository without a final snapshot, as a crash would.
+ *
+ * <pre>
+ *   java -Xmx2g -cp target/classes:&lt;dependencies&gt; com.shipwrecked.gamecenter.journal.RecoveryBenchmark
+ *   java -cp ... com.shipwrecked.gamecenter.journal.RecoveryBenchmark --games 100000 --moves 6
+ * </pre>
+ */
+public final class RecoveryBenchmark {
+    private static final Duration IDLE_TTL = Duration.ofDays(1);
+    private static final Duration COMMIT_INTERVAL = Duration.ofMillis(5);
+    // Longer than the run, so only the explicit snapshot is taken
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofDays(1);
+
+    private RecoveryBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = 1_000_000;
+        int moves = 4;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--moves" -> moves = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        try {
+            SplittableRandom random = new SplittableRandom(42);
+            JournaledGameRepository<BoardGame> repository = open(directory, games);
+            List<String> ids = new ArrayList<>(games);
+            long start = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                String id = repository.create(new TicTacToeGame());
+                ids.add(id);
+                for (int m = 0; m < moves; m++) {
+                    repository.update(id, game -> playRandom(game, random));
+                }
+            }
+            long records = (long) games * (moves + 1);
+            report("append", records, "records", System.nanoTime() - start);
+            repository.abandon();
+            System.out.printf(Locale.ROOT, "journal: %,d KB of records%n", records * MoveJournal.RECORD_SIZE / 1024);
+
+            start = System.nanoTime();
+            repository = open(directory, games);
+            report("recover from journal", repository.size(), "games", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            repository.snapshot();
+            report("snapshot", repository.size(), "games", System.nanoTime() - start);
+
+            // A tenth of the games move again after the snapshot
+            int tail = 0;
+            for (int i = 0; i < games; i += 10) {
+                if (repository.update(ids.get(i), game -> playRandom(game, random)).orElse(false)) {
+                    tail++;
+                }
+            }
+            repository.abandon();
+            System.out.printf(Locale.ROOT, "snapshot: %,d KB, then %,d tail records%n", snapshotKilobytes(directory), tail);
+
+            start = System.nanoTime();
+            repository = open(directory, games);
+            report("recover from snapshot", repository.size(), "games", System.nanoTime() - start);
+            repository.abandon();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // Unsynced, since one thread waiting on every commit would only measure the commit interval
+    private static JournaledGameRepository<BoardGame> open(Path directory, int games) {
+        return new JournaledGameRepository<>(directory, new BoardGameJournalAdapter(), games, IDLE_TTL,
+                                             COMMIT_INTERVAL, SNAPSHOT_INTERVAL, false);
+    }
+
+    private static boolean playRandom(BoardGame game, SplittableRandom random) {
+        if (game.getWinner() != null || game.isDraw()) {
+            return false;
+        }
+        int cells = game.getRows() * game.getCols();
+        int cell;
+        do {
+            cell = random.nextInt(cells);
+        } while (!game.isValidMove(cell));
+        game.makeMove(cell);
+        return true;
+    }
+
+    private static void report(String label, long count, String unit, long nanos) {
+        System.out.printf(Locale.ROOT, "%-22s %,10d %s in %,7d ms (%,.0f %s/s)%n", label, count, unit,
+                          nanos / 1_000_000, count * 1e9 / nanos, unit);
+    }
+
+    private static long snapshotKilobytes(Path directory) throws IOException {
+        long total = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.toString().endsWith(".snap")).toList()) {
+                total += Files.size(file);
+            }
+        }
+        return total / 1024;
+    }
+}
@@ -0,0 +1,111 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Every player's best score in one game, ranked. Reads work on an immutable {@link Snapshot}
+ * and never wait for the writer; the {@link LeaderboardService} writer thread applies
+ * submissions a batch at a time and publishes one new snapshot per batch.
+ */
+public final class Leaderboard {
+    private final String game;
+    // Written by the writer thread only, after the snapshot holding the score is published
+    private final ConcurrentHashMap<String, Long> bestScores = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(0, null);
+
+    Leaderboard(String game) {
+        this.game = game;
+    }
+
+    public String game() {
+        return game;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    // The player's rank in the newest snapshot, or empty if they have no score
+    public Optional<RankedScore> rank(String player) {
+        while (true) {
+            Long score = bestScores.get(player);
+            if (score == null) {
+                return Optional.empty();
+            }
+            int ahead = RankTree.countAhead(snapshot.root, score, player);
+            if (ahead >= 0) {
+                return Optional.of(new RankedScore(ahead + 1, player, score));
+            }
+            // The score was read just before a batch raised it; the new one is on its way
+            Thread.onSpinWait();
+        }
+    }
+
+    // Writer thread only: keeps each player's best score, returns false if nothing changed
+    boolean apply(List<LeaderboardService.Submission> submissions) {
+        Snapshot current = snapshot;
+        RankTree.Batch batch = new RankTree.Batch(current.root);
+        // Scores raised by this batch, not yet in bestScores
+        Map<String, Long> raised = new HashMap<>();
+        for (LeaderboardService.Submission submission : submissions) {
+            String player = submission.player();
+            Long old = raised.containsKey(player) ? raised.get(player) : bestScores.get(player);
+            if (old != null && old >= submission.score()) {
+                continue;
+            }
+            if (old != null) {
+                batch.remove(old, player);
+            }
+            batch.insert(submission.score(), player);
+            raised.put(player, submission.score());
+        }
+        if (raised.isEmpty()) {
+            batch.finish();
+            return false;
+        }
+        snapshot = new Snapshot(current.version + 1, batch.finish());
+        bestScores.putAll(raised);
+        return true;
+    }
+
+    /** The leaderboard as of one batch; the version goes up with every batch that changes it. */
+    public static final class Snapshot {
+        private final long version;
+        private final RankTree.Node root;
+
+        private Snapshot(long version, RankTree.Node root) {
+            this.version = version;
+            this.root = root;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return RankTree.size(root);
+        }
+
+        // Every player and score, best first
+        void forEach(ObjLongConsumer<String> action) {
+            RankTree.forEach(root, action);
+        }
+
+        // Entries from rank offset + 1 on, best first
+        public List<RankedScore> top(int offset, int limit) {
+            List<RankTree.Node> nodes = new ArrayList<>(Math.min(limit, Math.max(0, size() - offset)));
+            RankTree.collect(root, offset, limit, nodes);
+            List<RankedScore> ranked = new ArrayList<>(nodes.size());
+            for (RankTree.Node node : nodes) {
+                ranked.add(new RankedScore(offset + ranked.size() + 1, node.player, node.score));
+            }
+            return ranked;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a leaderboard with millions of players, then measures rank lookups and the top-100 page
+ * with the writer idle and with it applying a steady stream of new scores.
+ *
+ * <pre>
+ *   java -Xmx3g -cp target/classes:&lt;dependencies&gt; com.shipwrecked.gamecenter.leaderboard.LeaderboardBenchmark
+ *   java -cp ... com.shipwrecked.gamecenter.leaderboard.LeaderboardBenchmark --players 500000 --readers 4
+ * </pre>
+ */
+public final class LeaderboardBenchmark {
+    private static final String GAME = "benchmark";
+    private static final long MAX_SCORE = 1_000_000;
+    private static final long MEASURE_MILLIS = 3000;
+
+    private LeaderboardBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = 2_000_000;
+        int readers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int batch = 4096;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--players" -> players = Integer.parseInt(args[++i]);
+                case "--readers" -> readers = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        try (LeaderboardService service = new LeaderboardService(1 << 16, batch)) {
+            SplittableRandom random = new SplittableRandom(7);
+            long start = System.nanoTime();
+            for (int p = 0; p < players; p++) {
+                submit(service, "player" + p, random.nextLong(MAX_SCORE));
+            }
+            service.awaitApplied();
+            long nanos = System.nanoTime() - start;
+            Leaderboard leaderboard = service.leaderboard(GAME).orElseThrow();
+            System.out.printf(Locale.ROOT, "load     %,d players in %,d ms (%,.0f submissions/s, %,d snapshots)%n",
+                              players, nanos / 1_000_000, players * 1e9 / nanos, leaderboard.snapshot().version());
+
+            measureReads("idle", leaderboard, players, readers, null);
+            measureReads("writing", leaderboard, players, readers, service);
+        }
+    }
+
+    private static void measureReads(String label, Leaderboard leaderboard, int players, int readers,
+                                     LeaderboardService writing) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder ranks = new LongAdder();
+        LongAdder pages = new LongAdder();
+        LongAdder writes = new LongAdder();
+        Thread[] threads = new Thread[readers + (writing != null ? 1 : 0)];
+        for (int r = 0; r < readers; r++) {
+            SplittableRandom random = new SplittableRandom(r);
+            threads[r] = new Thread(() -> {
+                while (running.get()) {
+                    leaderboard.rank("player" + random.nextInt(players)).orElseThrow();
+                    ranks.increment();
+                    leaderboard.snapshot().top(0, 100);
+                    pages.increment();
+                }
+            });
+        }
+        if (writing != null) {
+            SplittableRandom random = new SplittableRandom(99);
+            threads[readers] = new Thread(() -> {
+                while (running.get()) {
+                    submit(writing, "player" + random.nextInt(players), random.nextLong(MAX_SCORE));
+                    writes.increment();
+                }
+            });
+        }
+        long versionBefore = leaderboard.snapshot().version();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(MEASURE_MILLIS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = MEASURE_MILLIS / 1000.0;
+        System.out.printf(Locale.ROOT, "%-8s %,.0f ranks/s, %,.0f top-100 pages/s", label,
+                          ranks.sum() / seconds, pages.sum() / seconds);
+        if (writing != null) {
+            writing.awaitApplied();
+            System.out.printf(Locale.ROOT, ", %,.0f submissions/s in %,d snapshots",
+                              writes.sum() / seconds, leaderboard.snapshot().version() - versionBefore);
+        }
+        System.out.println();
+    }
+
+    // Waits for room in the queue rather than dropping the score
+    private static void submit(LeaderboardService service, String player, long score) {
+        while (!service.submit(GAME, player, score)) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Leaderboards of every player's best score, one per game. Submissions are queued and applied
+ * by a single writer thread, up to a batch at a time, so a burst of scores costs one new
+ * snapshot per game instead of one per score, and readers only ever load the newest
+ * snapshot.
+ *
+ * <p>Rankings are in memory. Given a file, every player's best score in every game is saved
+ * to it each save interval and on close, and loaded back on startup; scores that arrived
+ * after the last save are lost in a crash unless the caller seeds them again.
+ */
+public class LeaderboardService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public static final int MAX_GAMES = 64;
+    public static final int MAX_NAME_LENGTH = 32;
+
+    private static final int FILE_MAGIC = 0x4C445242;
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_END = 0x454E4421;
+
+    // One score of a batch submission
+    public record Score(String player, long score) {
+    }
+
+    record Submission(String game, String player, long score) {
+    }
+
+    private final ConcurrentHashMap<String, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+    private final BlockingQueue<Submission> queue;
+    private final int maxBatch;
+    // Tells this run's snapshot versions apart from those before a restart
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final AtomicLong submitted = new AtomicLong();
+    private volatile long applied;
+    private volatile boolean closed;
+    private final Thread writer;
+    private final Path file;
+    private final ScheduledExecutorService saver;
+    private final Object saveLock = new Object();
+    // Sum of all snapshot versions at the last save, to skip saves that would change nothing
+    private long savedVersions = -1;
+
+    // Rankings only in memory
+    public LeaderboardService(int queueCapacity, int maxBatch) {
+        this(queueCapacity, maxBatch, null, null);
+    }
+
+    /**
+     * Rankings saved to {@code file} every {@code saveInterval} and on close, starting from
+     * what the file holds. An unreadable file is logged and left in place until the next save.
+     */
+    public LeaderboardService(int queueCapacity, int maxBatch, Path file, Duration saveInterval) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1: " + maxBatch);
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.file = file;
+        if (file != null) {
+            load();
+        }
+        this.writer = new Thread(this::applyBatches, "leaderboard-writer");
+        writer.setDaemon(true);
+        writer.start();
+        if (file == null) {
+            this.saver = null;
+            return;
+        }
+        this.saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1000L, saveInterval.toMillis());
+        saver.scheduleWithFixedDelay(this::scheduledSave, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a score; the player's entry only changes if it beats their best. Returns false if
+     * the queue is full. Throws IllegalArgumentException for a negative score, a blank or
+     * overlong name, or a game beyond the first {@link #MAX_GAMES}.
+     */
+    public boolean submit(String game, String player, long score) {
+        check(game, player, score);
+        return offer(game, player, score);
+    }
+
+    /**
+     * Queues a batch of scores for one game, all checked before any is queued. Returns how
+     * many were queued before the queue filled up.
+     */
+    public int submitAll(String game, List<Score> scores) {
+        for (Score score : scores) {
+            check(game, score.player(), score.score());
+        }
+        int queued = 0;
+        for (Score score : scores) {
+            if (!offer(game, score.player(), score.score())) {
+                break;
+            }
+            queued++;
+        }
+        return queued;
+    }
+
+    public Optional<Leaderboard> leaderboard(String game) {
+        return Optional.ofNullable(leaderboards.get(game));
+    }
+
+    // An entity tag for what a reader saw in this snapshot
+    public String etag(Leaderboard.Snapshot snapshot) {
+        return epoch + "-" + snapshot.version();
+    }
+
+    // Scores waiting for the writer
+    public int queued() {
+        return queue.size();
+    }
+
+    // Blocks until everything submitted before the call is visible to readers
+    public void awaitApplied() {
+        long target = submitted.get();
+        while (applied < target && !closed) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * Writes every leaderboard to the file, replacing it in one step, so a crash leaves either
+     * the old file or the new one. Does nothing without a file or if nothing changed.
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        synchronized (saveLock) {
+            long started = System.nanoTime();
+            Map<String, Leaderboard.Snapshot> snapshots = new LinkedHashMap<>();
+            long versions = 0;
+            for (Leaderboard leaderboard : leaderboards.values()) {
+                Leaderboard.Snapshot snapshot = leaderboard.snapshot();
+                snapshots.put(leaderboard.game(), snapshot);
+                versions += snapshot.version();
+            }
+            if (versions == savedVersions) {
+                return;
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = parent.resolve(file.getFileName() + ".tmp");
+            long players = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                for (var game : snapshots.entrySet()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(game.getKey());
+                    out.writeInt(game.getValue().size());
+                    game.getValue().forEach((player, score) -> {
+                        try {
+                            out.writeUTF(player);
+                            out.writeLong(score);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    players += game.getValue().size();
+                }
+                out.writeBoolean(false);
+                out.writeInt(FILE_END);
+                out.flush();
+                channel.force(true);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            savedVersions = versions;
+            log.debug("Saved {} leaderboard entries in {} ms", players,
+                      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    // Applies what is already queued and saves before stopping
+    @Override
+    public void close() {
+        if (saver != null) {
+            saver.shutdownNow();
+            awaitApplied();
+            try {
+                save();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Saving leaderboards to {} on close failed", file, e);
+            }
+        }
+        closed = true;
+        writer.interrupt();
+    }
+
+    private void scheduledSave() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Saving leaderboards to {} failed", file, e);
+        }
+    }
+
+    // Runs before the writer starts, so the loaded scores go straight into the leaderboards
+    private void load() {
+        long started = System.nanoTime();
+        long players = 0;
+        Map<String, List<Submission>> loaded = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Not a leaderboard file");
+            }
+            while (in.readBoolean()) {
+                String game = in.readUTF();
+                int count = in.readInt();
+                if (count < 0) {
+                    throw new IOException("Bad entry count for " + game + ": " + count);
+                }
+                List<Submission> scores = new ArrayList<>(Math.min(count, 1 << 16));
+                for (int i = 0; i < count; i++) {
+                    scores.add(new Submission(game, in.readUTF(), in.readLong()));
+                }
+                loaded.put(game, scores);
+                players += count;
+            }
+            if (in.readInt() != FILE_END) {
+                throw new IOException("Leaderboard file is incomplete");
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            // Leave it for someone to look at; the caller's seeding still restores the top scores
+            log.warn("Ignoring unreadable leaderboard file {}", file, e);
+            return;
+        }
+        for (var game : loaded.entrySet()) {
+            Leaderboard leaderboard = new Leaderboard(game.getKey());
+            leaderboard.apply(game.getValue());
+            leaderboards.put(game.getKey(), leaderboard);
+        }
+        log.info("Loaded {} leaderboard entries in {} ms", players,
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private static void check(String game, String player, long score) {
+        checkName("game", game);
+        checkName("player", player);
+        if (score < 0) {
+            throw new IllegalArgumentException("Score must not be negative: " + score);
+        }
+    }
+
+    private boolean offer(String game, String player, long score) {
+        if (!leaderboards.containsKey(game)) {
+            synchronized (leaderboards) {
+                if (leaderboards.size() >= MAX_GAMES && !leaderboards.containsKey(game)) {
+                    throw new IllegalArgumentException("Only " + MAX_GAMES + " games can have leaderboards");
+                }
+                leaderboards.computeIfAbsent(game, Leaderboard::new);
+            }
+        }
+        if (!queue.offer(new Submission(game, player, score))) {
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    private static void checkName(String what, String name) {
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException(
+                "The " + what + " name must be 1 to " + MAX_NAME_LENGTH + " characters: " + name);
+        }
+    }
+
+    private void applyBatches() {
+        List<Submission> batch = new ArrayList<>(maxBatch);
+        Map<String, List<Submission>> byGame = new LinkedHashMap<>();
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            for (Submission submission : batch) {
+                byGame.computeIfAbsent(submission.game(), game -> new ArrayList<>()).add(submission);
+            }
+            for (var game : byGame.entrySet()) {
+                try {
+                    leaderboards.get(game.getKey()).apply(game.getValue());
+                } catch (RuntimeException e) {
+                    log.warn("Dropping {} scores for {}", game.getValue().size(), game.getKey(), e);
+                }
+            }
+            applied += batch.size();
+            batch.clear();
+            byGame.clear();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Order-statistic treap of (score, player) entries, best first, with subtree sizes so rank
+ * and top-K take O(log n). Trees are persistent: a published root never changes, so readers
+ * need no locks. Changes go through a {@link Batch}, which copies the nodes on the paths it
+ * touches, or updates in place the nodes it has already copied itself, so a batch of many
+ * submissions allocates far less than publishing each one would.
+ */
+final class RankTree {
+
+    private RankTree() {
+    }
+
+    static final class Node {
+        final long score;
+        final String player;
+        final int priority;
+        // Nodes are only changed by the batch that created them, before it publishes
+        final Batch owner;
+        Node left;
+        Node right;
+        int size;
+
+        private Node(long score, String player, int priority, Batch owner, Node left, Node right) {
+            this.score = score;
+            this.player = player;
+            this.priority = priority;
+            this.owner = owner;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Higher scores first; equal scores in player order
+    static int compare(long score, String player, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1;
+        }
+        return player.compareTo(node.player);
+    }
+
+    /**
+     * Entries ranking ahead of (score, player), or -(that + 1) if the entry itself is not in
+     * the tree.
+     */
+    static int countAhead(Node root, long score, String player) {
+        int ahead = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(score, player, node);
+            if (c == 0) {
+                return ahead + size(node.left);
+            }
+            if (c > 0) {
+                ahead += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return -(ahead + 1);
+    }
+
+    // Appends up to limit entries, starting at the one with offset entries ahead of it
+    static void collect(Node node, int offset, int limit, List<Node> out) {
+        while (node != null && out.size() < limit) {
+            int leftSize = size(node.left);
+            if (offset < leftSize) {
+                collect(node.left, offset, limit, out);
+                if (out.size() >= limit) {
+                    return;
+                }
+            }
+            if (offset <= leftSize) {
+                out.add(node);
+            }
+            offset = Math.max(0, offset - leftSize - 1);
+            node = node.right;
+        }
+    }
+
+    // Every entry in rank order, best first
+    static void forEach(Node node, ObjLongConsumer<String> action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.player, node.score);
+            node = node.right;
+        }
+    }
+
+    // One writer's set of changes on top of a published root
+    static final class Batch {
+        private Node root;
+        private Node splitBehind;
+
+        Batch(Node root) {
+            this.root = root;
+        }
+
+        /*
+         * The tree with every change applied. The batch must not be used afterwards: its
+         * nodes are about to be shared with readers, and it lets go of the root so the nodes'
+         * owner references do not keep old trees alive.
+         */
+        Node finish() {
+            Node finished = root;
+            root = null;
+            return finished;
+        }
+
+        void insert(long score, String player) {
+            root = insert(root, new Node(score, player, ThreadLocalRandom.current().nextInt(), this, null, null));
+        }
+
+        void remove(long score, String player) {
+            root = remove(root, score, player);
+        }
+
+        private Node insert(Node node, Node entry) {
+            if (node == null) {
+                return entry;
+            }
+            if (entry.priority > node.priority) {
+                entry.left = split(node, entry);
+                entry.right = splitBehind;
+                splitBehind = null;
+                entry.size = 1 + size(entry.left) + size(entry.right);
+                return entry;
+            }
+            if (compare(entry.score, entry.player, node) < 0) {
+                return with(node, insert(node.left, entry), node.right);
+            }
+            return with(node, node.left, insert(node.right, entry));
+        }
+
+        /*
+         * Splits the tree around the entry in one pass (nodes this batch owns change in
+         * place, so the tree cannot be walked twice): returns the part ranking ahead of it
+         * and leaves the part ranking behind it in splitBehind.
+         */
+        private Node split(Node node, Node entry) {
+            if (node == null) {
+                splitBehind = null;
+                return null;
+            }
+            if (compare(entry.score, entry.player, node) > 0) {
+                return with(node, node.left, split(node.right, entry));
+            }
+            Node ahead = split(node.left, entry);
+            splitBehind = with(node, splitBehind, node.right);
+            return ahead;
+        }
+
+        private Node remove(Node node, long score, String player) {
+            if (node == null) {
+                return null;
+            }
+            int c = compare(score, player, node);
+            if (c == 0) {
+                return merge(node.left, node.right);
+            }
+            if (c < 0) {
+                return with(node, remove(node.left, score, player), node.right);
+            }
+            return with(node, node.left, remove(node.right, score, player));
+        }
+
+        private Node merge(Node ahead, Node behind) {
+            if (ahead == null) {
+                return behind;
+            }
+            if (behind == null) {
+                return ahead;
+            }
+            if (ahead.priority > behind.priority) {
+                return with(ahead, ahead.left, merge(ahead.right, behind));
+            }
+            return with(behind, merge(ahead, behind.left), behind.right);
+        }
+
+        // The node with new children: changed in place if this batch made it, else copied
+        private Node with(Node node, Node left, Node right) {
+            if (node.owner != this) {
+                return new Node(node.score, node.player, node.priority, this, left, right);
+            }
+            node.left = left;
+            node.right = right;
+            node.size = 1 + size(left) + size(right);
+            return node;
+        }
+    }
+}
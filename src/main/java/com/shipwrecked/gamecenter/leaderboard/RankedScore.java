@@ -0,0 +1,5 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+// A player's place on a leaderboard; rank 1 is the best
+public record RankedScore(int rank, String player, long score) {
+}
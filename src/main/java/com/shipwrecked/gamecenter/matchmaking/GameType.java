@@ -0,0 +1,23 @@
+package com.shipwrecked.gamecenter.matchmaking;
+
+/** Games that can be matched, with the seat names handed to the two players. */
+public enum GameType {
+    TICTACTOE("X", "O"),
+    CHESS("WHITE", "BLACK");
+
+    private final String firstSeat;
+    private final String secondSeat;
+
+    GameType(String firstSeat, String secondSeat) {
+        this.firstSeat = firstSeat;
+        this.secondSeat = secondSeat;
+    }
+
+    public String getFirstSeat() {
+        return firstSeat;
+    }
+
+    public String getSecondSeat() {
+        return secondSeat;
+    }
+}
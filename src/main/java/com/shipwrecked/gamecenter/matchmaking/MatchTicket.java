@@ -0,0 +1,93 @@
+package com.shipwrecked.gamecenter.matchmaking;
+
+/**
+ * One player's place in the matchmaking queue. Starts out WAITING and ends exactly once,
+ * as MATCHED (with a game id, seat and the seat token needed to move), CANCELLED or EXPIRED.
+ */
+public final class MatchTicket {
+    public enum Status { WAITING, MATCHED, CANCELLED, EXPIRED }
+
+    private final String id;
+    private final GameType gameType;
+    private final int rating;
+    private final long joinedNanos;
+
+    private Status status = Status.WAITING;
+    private String gameId;
+    private String seat;
+    private String seatToken;
+    private long finishedNanos;
+
+    MatchTicket(String id, GameType gameType, int rating, long joinedNanos) {
+        this.id = id;
+        this.gameType = gameType;
+        this.rating = rating;
+        this.joinedNanos = joinedNanos;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public GameType getGameType() {
+        return gameType;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized String getGameId() {
+        return gameId;
+    }
+
+    public synchronized String getSeat() {
+        return seat;
+    }
+
+    // Only the ticket's holder sees it; the game id alone lets others watch, not move
+    public synchronized String getSeatToken() {
+        return seatToken;
+    }
+
+    // How long the player waited, or has waited so far
+    public synchronized long getWaitMillis() {
+        long end = status == Status.WAITING ? System.nanoTime() : finishedNanos;
+        return (end - joinedNanos) / 1_000_000;
+    }
+
+    long getJoinedNanos() {
+        return joinedNanos;
+    }
+
+    synchronized long getFinishedNanos() {
+        return finishedNanos;
+    }
+
+    synchronized boolean isWaiting() {
+        return status == Status.WAITING;
+    }
+
+    // Ends a waiting ticket as CANCELLED or EXPIRED; false if it had already ended
+    synchronized boolean finish(Status outcome, long now) {
+        if (status != Status.WAITING) {
+            return false;
+        }
+        status = outcome;
+        finishedNanos = now;
+        return true;
+    }
+
+    // Caller holds this ticket's lock and has checked it is still waiting
+    synchronized void match(String gameId, String seat, String seatToken, long now) {
+        this.status = Status.MATCHED;
+        this.gameId = gameId;
+        this.seat = seat;
+        this.seatToken = seatToken;
+        this.finishedNanos = now;
+    }
+}
@@ -0,0 +1,259 @@
+package com.shipwrecked.gamecenter.matchmaking;
+
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Pairs waiting players into shared games. Joining only appends to a lock-free queue; one
+ * scheduler thread wakes on a fixed tick, drains the queues and pairs everyone it can in a
+ * single pass, so request threads never contend with each other or with the pairing.
+ *
+ * <p>Each tick sorts the waiting players by rating and pairs neighbours whose ratings are
+ * within the band. The band widens the longer a player waits, so outliers still get a game.
+ */
+public class Matchmaker implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(Matchmaker.class);
+
+    public static final int DEFAULT_RATING = 1200;
+
+    // Finished tickets stay readable this long, so clients can still collect their match
+    private static final long RETENTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<GameType, Supplier<String>> gameFactories;
+    private final Consumer<MatchTicket> listener;
+    private final SeatTokens seatTokens;
+    private final int ratingBand;
+    private final double bandGrowthPerSecond;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+
+    private final Map<String, MatchTicket> tickets = new ConcurrentHashMap<>();
+    private final Map<GameType, Queue<MatchTicket>> arrivals = new EnumMap<>(GameType.class);
+    private final Map<GameType, AtomicInteger> waiting = new EnumMap<>(GameType.class);
+    private final Map<GameType, Timer> timeToMatch = new EnumMap<>(GameType.class);
+
+    // Only touched by the tick thread
+    private final Map<GameType, List<MatchTicket>> pools = new EnumMap<>(GameType.class);
+    private final ArrayDeque<MatchTicket> finished = new ArrayDeque<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param gameFactories creates a game of each type and returns its id
+     * @param listener      told on the tick thread when a ticket is matched or expires
+     * @param seatTokens    issues each matched player the token for their seat
+     */
+    public Matchmaker(Map<GameType, Supplier<String>> gameFactories, Consumer<MatchTicket> listener,
+                      SeatTokens seatTokens, MeterRegistry meterRegistry, Duration tick, int ratingBand,
+                      double bandGrowthPerSecond, Duration maxWait) {
+        this(gameFactories, listener, seatTokens, meterRegistry, ratingBand, bandGrowthPerSecond, maxWait,
+             System::nanoTime);
+        long tickMillis = Math.max(1, tick.toMillis());
+        scheduler.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Without the scheduled tick, on a clock of nanoTime-style readings; tests call tick themselves
+    Matchmaker(Map<GameType, Supplier<String>> gameFactories, Consumer<MatchTicket> listener,
+               SeatTokens seatTokens, MeterRegistry meterRegistry, int ratingBand,
+               double bandGrowthPerSecond, Duration maxWait, LongSupplier clock) {
+        this.gameFactories = new EnumMap<>(gameFactories);
+        this.listener = listener;
+        this.seatTokens = seatTokens;
+        this.ratingBand = ratingBand;
+        this.bandGrowthPerSecond = bandGrowthPerSecond;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.clock = clock;
+
+        for (GameType type : this.gameFactories.keySet()) {
+            arrivals.put(type, new ConcurrentLinkedQueue<>());
+            pools.put(type, new ArrayList<>());
+            AtomicInteger depth = new AtomicInteger();
+            waiting.put(type, depth);
+            String tag = type.name().toLowerCase();
+            Gauge.builder("matchmaking.queue.depth", depth, AtomicInteger::get)
+                .tag("game", tag)
+                .description("Players waiting for a match")
+                .register(meterRegistry);
+            timeToMatch.put(type, Timer.builder("matchmaking.time.to.match")
+                .tag("game", tag)
+                .description("Time from joining the queue to being paired")
+                .register(meterRegistry));
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaking-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Queues a player. A null rating matches as {@link #DEFAULT_RATING}. */
+    public MatchTicket join(GameType type, Integer rating) {
+        Queue<MatchTicket> queue = arrivals.get(type);
+        if (queue == null) {
+            throw new IllegalArgumentException("No matchmaking for " + type);
+        }
+        MatchTicket ticket = new MatchTicket(UUID.randomUUID().toString(), type,
+                                             rating == null ? DEFAULT_RATING : rating, clock.getAsLong());
+        tickets.put(ticket.getId(), ticket);
+        waiting.get(type).incrementAndGet();
+        queue.offer(ticket);
+        return ticket;
+    }
+
+    public Optional<MatchTicket> find(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    // False if there is no such ticket or it was already matched
+    public boolean cancel(String ticketId) {
+        MatchTicket ticket = tickets.get(ticketId);
+        return ticket != null && ticket.finish(MatchTicket.Status.CANCELLED, clock.getAsLong());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    void tick() {
+        for (GameType type : pools.keySet()) {
+            try {
+                match(type);
+            } catch (RuntimeException e) {
+                // A failed tick must not cancel the schedule
+                log.warn("Matchmaking tick failed for {}", type, e);
+            }
+        }
+        long now = clock.getAsLong();
+        while (!finished.isEmpty() && now - finished.peekFirst().getFinishedNanos() > RETENTION_NANOS) {
+            tickets.remove(finished.pollFirst().getId());
+        }
+    }
+
+    private void match(GameType type) {
+        List<MatchTicket> pool = pools.get(type);
+        Queue<MatchTicket> queue = arrivals.get(type);
+        for (MatchTicket ticket = queue.poll(); ticket != null; ticket = queue.poll()) {
+            pool.add(ticket);
+        }
+        if (pool.isEmpty()) {
+            return;
+        }
+        // Read after draining, so no ticket in the pool joined later than "now"
+        long now = clock.getAsLong();
+
+        pool.sort(Comparator.comparingInt(MatchTicket::getRating));
+        List<MatchTicket> unmatched = new ArrayList<>();
+        MatchTicket candidate = null;
+        for (MatchTicket ticket : pool) {
+            if (!stillWaiting(ticket, now)) {
+                continue;
+            }
+            if (candidate != null && withinBand(candidate, ticket, now)) {
+                if (pair(type, candidate, ticket, now)) {
+                    candidate = null;
+                    continue;
+                }
+                // One of the two cancelled after the check above
+                if (!candidate.isWaiting()) {
+                    retire(candidate);
+                    candidate = null;
+                }
+                if (!ticket.isWaiting()) {
+                    retire(ticket);
+                    continue;
+                }
+            }
+            if (candidate != null) {
+                unmatched.add(candidate);
+            }
+            candidate = ticket;
+        }
+        if (candidate != null) {
+            unmatched.add(candidate);
+        }
+        pool.clear();
+        pool.addAll(unmatched);
+    }
+
+    // Drops cancelled tickets and expires ones that waited too long
+    private boolean stillWaiting(MatchTicket ticket, long now) {
+        if (ticket.isWaiting() && now - ticket.getJoinedNanos() <= maxWaitNanos) {
+            return true;
+        }
+        if (ticket.finish(MatchTicket.Status.EXPIRED, now)) {
+            notifyListener(ticket);
+        }
+        retire(ticket);
+        return false;
+    }
+
+    private boolean withinBand(MatchTicket a, MatchTicket b, long now) {
+        long longestWait = Math.max(now - a.getJoinedNanos(), now - b.getJoinedNanos());
+        double band = ratingBand + bandGrowthPerSecond * longestWait / 1e9;
+        return Math.abs(a.getRating() - b.getRating()) <= band;
+    }
+
+    private boolean pair(GameType type, MatchTicket a, MatchTicket b, long now) {
+        // Seats are drawn at random so neither queue position always moves first
+        boolean swap = ThreadLocalRandom.current().nextBoolean();
+        MatchTicket first = swap ? b : a;
+        MatchTicket second = swap ? a : b;
+        // Only this thread holds two ticket locks, so the nesting cannot deadlock
+        synchronized (first) {
+            synchronized (second) {
+                if (!first.isWaiting() || !second.isWaiting()) {
+                    return false;
+                }
+                String gameId = gameFactories.get(type).get();
+                first.match(gameId, type.getFirstSeat(), seatTokens.issue(gameId, type.getFirstSeat()), now);
+                second.match(gameId, type.getSecondSeat(), seatTokens.issue(gameId, type.getSecondSeat()), now);
+            }
+        }
+        for (MatchTicket ticket : new MatchTicket[] {first, second}) {
+            timeToMatch.get(type).record(now - ticket.getJoinedNanos(), TimeUnit.NANOSECONDS);
+            retire(ticket);
+            notifyListener(ticket);
+        }
+        return true;
+    }
+
+    private void retire(MatchTicket ticket) {
+        waiting.get(ticket.getGameType()).decrementAndGet();
+        finished.addLast(ticket);
+    }
+
+    private void notifyListener(MatchTicket ticket) {
+        try {
+            listener.accept(ticket);
+        } catch (RuntimeException e) {
+            log.warn("Match listener failed for ticket {}", ticket.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * A web X-and-O game on a grid: classic tic-tac-toe or a larger m,n,k-game. Cells are
+ * numbered row by row from the top left and X always moves first.
+ */
+public interface BoardGame {
+
+    /**
+     * A new game on a rows x cols board needing k in a row; the classic 3x3 board keeps its
+     * packed form and oracle. Throws IllegalArgumentException for an unsupported size.
+     */
+    static BoardGame of(int rows, int cols, int k) {
+        return rows == 3 && cols == 3 && k == 3 ? new TicTacToeGame() : new MnkGame(rows, cols, k);
+    }
+
+    int getRows();
+
+    int getCols();
+
+    // Stones in a row needed to win
+    int getK();
+
+    boolean isValidMove(int position);
+
+    void makeMove(int position);
+
+    int getMoveCount();
+
+    // Cell played by the move with this index, 0 being X's first move
+    int moveAt(int index);
+
+    // Cells as "X", "O" or null; a snapshot that later moves do not change
+    List<String> getBoard();
+
+    String getCurrentPlayer();
+
+    String getWinner();
+
+    boolean isDraw();
+
+    /**
+     * Takes what a hint for the side to move needs from the game and returns the search for
+     * it, so callers can hold the game's lock only for this call and search after letting go.
+     * {@code random} is used by both parts, so call the search on the same thread.
+     */
+    Supplier<Hint> hint(TicTacToeOracle.Difficulty difficulty, RandomGenerator random);
+
+    /**
+     * A suggested cell, -1 if the game is over, and the forced result for the side to move:
+     * 1 for a win, -1 for a loss, 0 if neither is known (on the 3x3 board, 0 means a draw
+     * with best play).
+     */
+    record Hint(int position, int predictedResult) {
+        public static final Hint NONE = new Hint(-1, 0);
+    }
+}
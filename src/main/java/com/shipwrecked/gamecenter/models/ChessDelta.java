@@ -0,0 +1,106 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.util.List;
+
+/**
+ * What one move or undo changed, for clients that already hold the board: the squares
+ * whose contents changed plus the new status. Its size does not grow with the game, unlike
+ * a full {@link ChessGame} with its move history.
+ */
+public class ChessDelta {
+
+    /** New contents of one square; a null piece means the square is now empty. */
+    public static class SquareChange {
+        private final int row;
+        private final int col;
+        private final ChessPiece piece;
+
+        public SquareChange(int row, int col, ChessPiece piece) {
+            this.row = row;
+            this.col = col;
+            this.piece = piece;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+
+        public ChessPiece getPiece() {
+            return piece;
+        }
+    }
+
+    private final boolean applied;
+    private final ChessMove move;
+    private final PieceType captured;
+    private final List<SquareChange> changes;
+    private final boolean whiteTurn;
+    private final boolean inCheck;
+    private final GameStatus status;
+    private final String winner;
+    private final String positionHash;
+    private final int moveNumber;
+
+    ChessDelta(boolean applied, ChessMove move, PieceType captured, List<SquareChange> changes, ChessGame game) {
+        this.applied = applied;
+        this.move = move;
+        this.captured = captured;
+        this.changes = changes;
+        this.whiteTurn = game.isWhiteTurn();
+        this.inCheck = game.isInCheck();
+        this.status = game.getStatus();
+        this.winner = game.getWinner();
+        this.positionHash = game.getPositionHash();
+        this.moveNumber = game.getMoveCount();
+    }
+
+    // Nothing changed, e.g. an illegal move was rejected
+    public static ChessDelta unchanged(ChessGame game) {
+        return new ChessDelta(false, null, null, List.of(), game);
+    }
+
+    // Getters
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public PieceType getCaptured() {
+        return captured;
+    }
+
+    public List<SquareChange> getChanges() {
+        return changes;
+    }
+
+    public boolean isWhiteTurn() {
+        return whiteTurn;
+    }
+
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    public String getWinner() {
+        return winner;
+    }
+
+    public String getPositionHash() {
+        return positionHash;
+    }
+
+    public int getMoveNumber() {
+        return moveNumber;
+    }
+}
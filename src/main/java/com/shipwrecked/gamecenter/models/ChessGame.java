@@ -1,95 +1,410 @@
 package com.shipwrecked.gamecenter.models;
 
+import com.shipwrecked.gamecenter.engine.Bitboards;
+import com.shipwrecked.gamecenter.engine.Fen;
+import com.shipwrecked.gamecenter.engine.Move;
+import com.shipwrecked.gamecenter.engine.MoveGenerator;
+import com.shipwrecked.gamecenter.engine.PgnGame;
+import com.shipwrecked.gamecenter.engine.PgnReader;
+import com.shipwrecked.gamecenter.engine.Piece;
+import com.shipwrecked.gamecenter.engine.Position;
+import com.shipwrecked.gamecenter.engine.SearchEngine;
+import com.shipwrecked.gamecenter.engine.SearchLimits;
+import com.shipwrecked.gamecenter.engine.SearchResult;
+
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Headless chess rules addressed by board coordinates (row 0 is Black's back rank).
+ * The web controller and the Swing client both play through this class. Only legal moves
+ * are accepted, and the game ends in checkmate, stalemate or a draw by rule. Not thread-safe:
+ * callers hold the game's lock.
+ */
 public class ChessGame implements Serializable {
-    private ChessPiece[][] board;
-    private boolean isWhiteTurn;
-    private List<ChessMove> moveHistory;
+    // Engine piece type -> model piece type
+    private static final PieceType[] PIECE_TYPES = {
+        PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP,
+        PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+
+    private final Position position;
+    // Where the move history starts, so it can be replayed for PGN
+    private final String startFen;
+    private final MoveHistory moveHistory;
     private GameStatus status;
     private String winner;
+    // What the latest move or undo changed; rebuilt on demand, so not kept in the session
+    private transient ChessDelta lastChange;
+    // One generator and the legal moves of the current position, made again when first needed
+    // after a move, an undo or deserialization; legalCurrent says whether legal is up to date
+    private transient MoveGenerator generator;
+    private transient int[] legal;
+    private transient int legalCount;
+    private transient boolean legalCurrent;
 
     public ChessGame() {
-        this.board = new ChessPiece[8][8];
-        this.isWhiteTurn = true;
-        this.moveHistory = new ArrayList<>();
-        this.status = GameStatus.ACTIVE;
-        initializeBoard();
+        this(Fen.START_POSITION);
+    }
+
+    /**
+     * Starts from a FEN position. Throws IllegalArgumentException if it does not parse or
+     * either side does not have exactly one king.
+     */
+    public ChessGame(String fen) {
+        this(Fen.parse(fen), new MoveHistory(), null);
     }
 
-    private void initializeBoard() {
-        // Initialize black pieces
-        board[0][0] = new ChessPiece(PieceType.ROOK, false);
-        board[0][1] = new ChessPiece(PieceType.KNIGHT, false);
-        board[0][2] = new ChessPiece(PieceType.BISHOP, false);
-        board[0][3] = new ChessPiece(PieceType.QUEEN, false);
-        board[0][4] = new ChessPiece(PieceType.KING, false);
-        board[0][5] = new ChessPiece(PieceType.BISHOP, false);
-        board[0][6] = new ChessPiece(PieceType.KNIGHT, false);
-        board[0][7] = new ChessPiece(PieceType.ROOK, false);
+    // The game at position after moveHistory from startFen; a null startFen means it starts here
+    private ChessGame(Position position, MoveHistory moveHistory, String startFen) {
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            if (Long.bitCount(position.pieces(color, Piece.KING)) != 1) {
+                throw new IllegalArgumentException("Each side needs exactly one king: " + Fen.toFen(position));
+            }
+        }
+        this.position = position;
+        this.startFen = startFen == null ? Fen.toFen(position) : startFen;
+        this.moveHistory = moveHistory;
+        updateStatus(generator().hasLegalMove(position));
+    }
+
+    /**
+     * A stored game as it stood: where it started, its encoded moves, the position they led to
+     * and the hashes {@link Position#recentHashes} gave for it, which keep repetitions counted.
+     * Nothing is replayed until a move is taken back. The moves are trusted to lead to
+     * {@code current}. Throws IllegalArgumentException if either side does not have exactly
+     * one king.
+     */
+    public static ChessGame restore(String startFen, int[] moves, Position current, long[] recentHashes) {
+        MoveHistory history = new MoveHistory();
+        for (int move : moves) {
+            history.add(move);
+        }
+        current.restoreHashes(recentHashes);
+        return new ChessGame(current, history, startFen);
+    }
+
+    /**
+     * Rebuilds a game from where it started and its encoded moves, e.g. when loading it from a
+     * store. Every move is checked, but without the per-move delta {@link #playMove} records.
+     * Throws IllegalArgumentException at the first move that is not legal or comes after the end.
+     */
+    public static ChessGame replay(String startFen, int[] moves) {
+        ChessGame game = new ChessGame(startFen);
+        for (int i = 0; i < moves.length; i++) {
+            int count = game.legalMoves();
+            if (game.status.isFinished() || !contains(game.legal, count, moves[i])) {
+                throw new IllegalArgumentException("Move " + (i + 1) + " is not playable: " + Move.toUci(moves[i]));
+            }
+            game.position.makeMove(moves[i]);
+            game.moveHistory.add(moves[i]);
+            game.legalCurrent = false;
+            // The moves that check the next ply also tell whether there is one
+            game.updateStatus(game.legalMoves() > 0);
+        }
+        return game;
+    }
 
-        // Black pawns
-        for (int i = 0; i < 8; i++) {
-            board[1][i] = new ChessPiece(PieceType.PAWN, false);
+    /**
+     * Replays the first game of a PGN text, starting from its FEN tag if it has one.
+     * Throws IllegalArgumentException if there is no game or its moves are not legal.
+     */
+    public static ChessGame fromPgn(String pgn) {
+        List<PgnGame> games = new ArrayList<>(1);
+        try {
+            new PgnReader(1).read(new StringReader(pgn), games::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (games.isEmpty()) {
+            throw new IllegalArgumentException("No valid game in PGN");
         }
 
-        // Initialize white pieces
-        board[7][0] = new ChessPiece(PieceType.ROOK, true);
-        board[7][1] = new ChessPiece(PieceType.KNIGHT, true);
-        board[7][2] = new ChessPiece(PieceType.BISHOP, true);
-        board[7][3] = new ChessPiece(PieceType.QUEEN, true);
-        board[7][4] = new ChessPiece(PieceType.KING, true);
-        board[7][5] = new ChessPiece(PieceType.BISHOP, true);
-        board[7][6] = new ChessPiece(PieceType.KNIGHT, true);
-        board[7][7] = new ChessPiece(PieceType.ROOK, true);
+        PgnGame game = games.get(0);
+        return replay(game.getStartFen(), game.getMoves());
+    }
 
-        // White pawns
-        for (int i = 0; i < 8; i++) {
-            board[6][i] = new ChessPiece(PieceType.PAWN, true);
+    /**
+     * The game in PGN export format with SAN moves. {@code tags} fills in Event, White,
+     * Black and the like; Result always comes from the game itself.
+     */
+    public String toPgn(Map<String, String> tags) {
+        String result = PgnGame.UNFINISHED;
+        if (winner != null) {
+            result = winner.equals("White") ? "1-0" : "0-1";
+        } else if (status.isFinished()) {
+            result = "1/2-1/2";
         }
+        int[] moves = new int[moveHistory.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = moveHistory.get(i);
+        }
+        return new PgnGame(tags, startFen, moves, result).toPgn();
     }
 
     public boolean isValidMove(ChessMove move) {
-        if (move == null || !isValidPosition(move.getFromRow(), move.getFromCol()) || 
-            !isValidPosition(move.getToRow(), move.getToCol())) {
+        return findMove(move) != Move.NONE;
+    }
+
+    public void makeMove(ChessMove move) {
+        int encoded = findMove(move);
+        if (encoded != Move.NONE) {
+            play(encoded);
+        }
+    }
+
+    /**
+     * Lets the engine play for the side to move. Returns false if the game is over
+     * or there is no legal move.
+     */
+    public boolean makeComputerMove(SearchEngine engine, SearchLimits limits) {
+        if (status != GameStatus.ACTIVE) {
             return false;
         }
 
-        ChessPiece piece = board[move.getFromRow()][move.getFromCol()];
-        if (piece == null || piece.isWhite() != isWhiteTurn) {
+        SearchResult result = engine.search(position, limits);
+        return result.hasMove() && playMove(result.getBestMove());
+    }
+
+    /**
+     * Plays an encoded engine move, e.g. one found by searching a {@link #snapshot()} on
+     * another thread. Returns false if the move is not playable in this position.
+     */
+    public boolean playMove(int move) {
+        if (status != GameStatus.ACTIVE) {
+            return false;
+        }
+        int count = legalMoves();
+        if (!contains(legal, count, move)) {
             return false;
         }
+        play(move);
+        return true;
+    }
 
-        return piece.isValidMove(move, board);
+    // Legal target squares for the piece on this square
+    public List<ChessMove> validMovesFrom(int row, int col) {
+        List<ChessMove> result = new ArrayList<>();
+        if (status != GameStatus.ACTIVE || !isValidPosition(row, col)) {
+            return result;
+        }
+        int from = Bitboards.square(row, col);
+        int count = legalMoves();
+        for (int i = 0; i < count; i++) {
+            int move = legal[i];
+            // Each promotion comes once per piece type; list the square once
+            if (Move.from(move) == from && (!Move.isPromotion(move) || Move.promotionType(move) == Piece.QUEEN)) {
+                result.add(toChessMove(move));
+            }
+        }
+        return result;
     }
 
-    public void makeMove(ChessMove move) {
-        if (!isValidMove(move)) {
-            return;
+    public boolean isPromotion(ChessMove move) {
+        return Move.isPromotion(findMove(move));
+    }
+
+    /**
+     * The 16-bit engine encoding of a coordinate move in the current position, or
+     * {@link Move#NONE} if it is not playable.
+     */
+    public int encode(ChessMove move) {
+        return findMove(move);
+    }
+
+    /**
+     * Takes back the last move, reopening the game if that move ended it.
+     * Returns false if there is nothing to undo.
+     */
+    public boolean undoMove() {
+        if (moveHistory.isEmpty()) {
+            return false;
+        }
+
+        if (position.undoCount() == 0) {
+            // A restored position cannot take its moves back; play them through from the start once
+            replayHistory();
+        }
+        int[] before = pieceCodes();
+        position.unmakeMove();
+        moveHistory.removeLast();
+        legalCurrent = false;
+        updateStatus(generator().hasLegalMove(position));
+        this.lastChange = changesSince(before, null);
+        return true;
+    }
+
+    /**
+     * The squares changed by the latest move or undo, or null if there was none since this
+     * game was loaded.
+     */
+    public ChessDelta lastChange() {
+        return lastChange;
+    }
+
+    // Engine piece code on a square, Piece.NONE if empty
+    public int pieceAt(int row, int col) {
+        return position.pieceAt(Bitboards.square(row, col));
+    }
+
+    // Copy of the current position, so a search can run without touching this game
+    public Position snapshot() {
+        Position copy = new Position();
+        copy.copyFrom(position);
+        return copy;
+    }
+
+    // The encoded move matching a coordinate move, or Move.NONE
+    private int findMove(ChessMove move) {
+        if (move == null || status != GameStatus.ACTIVE
+            || !isValidPosition(move.getFromRow(), move.getFromCol())
+            || !isValidPosition(move.getToRow(), move.getToCol())) {
+            return Move.NONE;
         }
 
-        ChessPiece piece = board[move.getFromRow()][move.getFromCol()];
-        ChessPiece capturedPiece = board[move.getToRow()][move.getToCol()];
+        int from = Bitboards.square(move.getFromRow(), move.getFromCol());
+        int to = Bitboards.square(move.getToRow(), move.getToCol());
+        int promotion = move.getPromotion() == null ? Piece.QUEEN : engineType(move.getPromotion());
+        int count = legalMoves();
+        for (int i = 0; i < count; i++) {
+            int candidate = legal[i];
+            if (Move.from(candidate) == from && Move.to(candidate) == to
+                && (!Move.isPromotion(candidate) || Move.promotionType(candidate) == promotion)) {
+                return candidate;
+            }
+        }
+        return Move.NONE;
+    }
 
-        // Make the move
-        board[move.getToRow()][move.getToCol()] = piece;
-        board[move.getFromRow()][move.getFromCol()] = null;
+    /*
+     * Fills legal with the legal moves of the current position, castling and en passant
+     * included, and returns how many there are. Generated once per position, so checking a move
+     * with isValidMove and then making it searches only once.
+     */
+    private int legalMoves() {
+        if (!legalCurrent) {
+            if (legal == null) {
+                legal = new int[MoveGenerator.MAX_MOVES];
+            }
+            legalCount = generator().generateLegal(position, legal, 0);
+            legalCurrent = true;
+        }
+        return legalCount;
+    }
 
-        // Handle pawn promotion
-        if (piece.getType() == PieceType.PAWN && (move.getToRow() == 0 || move.getToRow() == 7)) {
-            board[move.getToRow()][move.getToCol()] = new ChessPiece(PieceType.QUEEN, piece.isWhite());
+    private MoveGenerator generator() {
+        if (generator == null) {
+            generator = new MoveGenerator();
         }
+        return generator;
+    }
 
-        // Check if a king was captured
-        if (capturedPiece != null && capturedPiece.getType() == PieceType.KING) {
-            this.status = GameStatus.FINISHED;
-            this.winner = isWhiteTurn ? "White" : "Black";
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
         }
+        return false;
+    }
 
+    private void play(int move) {
+        int[] before = pieceCodes();
+        position.makeMove(move);
         moveHistory.add(move);
-        isWhiteTurn = !isWhiteTurn;
+        legalCurrent = false;
+        updateStatus(generator().hasLegalMove(position));
+        this.lastChange = changesSince(before, toChessMove(move));
+    }
+
+    private void replayHistory() {
+        Position replayed = Fen.parse(startFen);
+        for (int i = 0; i < moveHistory.size(); i++) {
+            replayed.makeMove(moveHistory.get(i));
+        }
+        position.copyFrom(replayed);
+    }
+
+    private int[] pieceCodes() {
+        int[] pieces = new int[64];
+        for (int square = 0; square < 64; square++) {
+            pieces[square] = position.pieceAt(square);
+        }
+        return pieces;
+    }
+
+    // Diffs the board against an earlier pieceCodes(), which also catches castling and en passant
+    private ChessDelta changesSince(int[] before, ChessMove move) {
+        List<ChessDelta.SquareChange> changes = new ArrayList<>(4);
+        PieceType captured = null;
+        int mover = position.isWhiteToMove() ? Piece.BLACK : Piece.WHITE;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece == before[square]) {
+                continue;
+            }
+            changes.add(new ChessDelta.SquareChange(Bitboards.row(square), Bitboards.col(square), toChessPiece(piece)));
+            if (move != null && before[square] != Piece.NONE && Piece.color(before[square]) != mover) {
+                captured = PIECE_TYPES[Piece.type(before[square])];
+            }
+        }
+        return new ChessDelta(true, move, captured, changes, this);
+    }
+
+    private static ChessPiece toChessPiece(int piece) {
+        return piece == Piece.NONE ? null
+            : new ChessPiece(PIECE_TYPES[Piece.type(piece)], Piece.color(piece) == Piece.WHITE);
+    }
+
+    // Whether the side to move can still play, is mated or stalemated, or the game is drawn by rule
+    private void updateStatus(boolean canMove) {
+        this.winner = null;
+        if (!canMove) {
+            if (position.isInCheck(position.sideToMove())) {
+                this.status = GameStatus.CHECKMATE;
+                this.winner = position.isWhiteToMove() ? "Black" : "White";
+            } else {
+                this.status = GameStatus.STALEMATE;
+            }
+        } else if (position.halfMoveClock() >= 100 || position.repetitions() >= 2 || isInsufficientMaterial()) {
+            this.status = GameStatus.DRAW;
+        } else {
+            this.status = GameStatus.ACTIVE;
+        }
+    }
+
+    // Bare kings, or kings and a single knight or bishop: no sequence of moves can mate
+    private boolean isInsufficientMaterial() {
+        long heavy = 0;
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            heavy |= position.pieces(color, Piece.PAWN) | position.pieces(color, Piece.ROOK)
+                   | position.pieces(color, Piece.QUEEN);
+        }
+        long minors = position.occupied() & ~heavy
+                    & ~(position.pieces(Piece.WHITE, Piece.KING) | position.pieces(Piece.BLACK, Piece.KING));
+        return heavy == 0 && Long.bitCount(minors) <= 1;
+    }
+
+    // Coordinate form of a 16-bit engine move
+    public static ChessMove toChessMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        return new ChessMove(Bitboards.row(from), Bitboards.col(from), Bitboards.row(to), Bitboards.col(to),
+                             Move.isPromotion(move) ? PIECE_TYPES[Move.promotionType(move)] : null);
+    }
+
+    private static int engineType(PieceType type) {
+        for (int i = 0; i < PIECE_TYPES.length; i++) {
+            if (PIECE_TYPES[i] == type) {
+                return i;
+            }
+        }
+        return Piece.NONE;
     }
 
     private boolean isValidPosition(int row, int col) {
@@ -98,17 +413,51 @@ public class ChessGame implements Serializable {
 
     // Getters
     public ChessPiece[][] getBoard() {
+        // The grid is only materialized for views and JSON; the game itself lives in bitboards
+        ChessPiece[][] board = new ChessPiece[8][8];
+        for (int square = 0; square < 64; square++) {
+            board[Bitboards.row(square)][Bitboards.col(square)] = toChessPiece(position.pieceAt(square));
+        }
         return board;
     }
 
+    public String getFen() {
+        return Fen.toFen(position);
+    }
+
     public boolean isWhiteTurn() {
-        return isWhiteTurn;
+        return position.isWhiteToMove();
     }
 
+    // Whether the side to move is in check
+    public boolean isInCheck() {
+        return position.isInCheck(position.sideToMove());
+    }
+
+    // Converted from the packed history, so the JSON shape is unchanged
     public List<ChessMove> getMoveHistory() {
+        return moveHistory.asChessMoves();
+    }
+
+    // Packed moves, two bytes each; not a getter, so JSON keeps the ChessMove list only
+    public MoveHistory packedHistory() {
         return moveHistory;
     }
 
+    // The position the history starts from; not a getter, so JSON is unchanged
+    public String startFen() {
+        return startFen;
+    }
+
+    public int getMoveCount() {
+        return moveHistory.size();
+    }
+
+    // Zobrist key of the position as hex (a JSON number would lose precision in JavaScript)
+    public String getPositionHash() {
+        return Long.toHexString(position.hash());
+    }
+
     public GameStatus getStatus() {
         return status;
     }
@@ -116,4 +465,4 @@ public class ChessGame implements Serializable {
     public String getWinner() {
         return winner;
     }
-} 
\ No newline at end of file
+}
@@ -5,6 +5,8 @@ public class ChessMove {
     private int fromCol;
     private int toRow;
     private int toCol;
+    // Piece a pawn reaching the last rank becomes; null means queen
+    private PieceType promotion;
 
     public ChessMove() {
     }
@@ -16,6 +18,11 @@ public class ChessMove {
         this.toCol = toCol;
     }
 
+    public ChessMove(int fromRow, int fromCol, int toRow, int toCol, PieceType promotion) {
+        this(fromRow, fromCol, toRow, toCol);
+        this.promotion = promotion;
+    }
+
     // Getters and setters
     public int getFromRow() {
         return fromRow;
@@ -48,4 +55,12 @@ public class ChessMove {
     public void setToCol(int toCol) {
         this.toCol = toCol;
     }
+
+    public PieceType getPromotion() {
+        return promotion;
+    }
+
+    public void setPromotion(PieceType promotion) {
+        this.promotion = promotion;
+    }
 } 
\ No newline at end of file
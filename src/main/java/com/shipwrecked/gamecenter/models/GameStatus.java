@@ -2,5 +2,12 @@ package com.shipwrecked.gamecenter.models;
 
 public enum GameStatus {
     ACTIVE,
-    FINISHED
-} 
\ No newline at end of file
+    CHECKMATE,
+    STALEMATE,
+    // Fifty moves without a capture or pawn move, threefold repetition, or no mating material
+    DRAW;
+
+    public boolean isFinished() {
+        return this != ACTIVE;
+    }
+}
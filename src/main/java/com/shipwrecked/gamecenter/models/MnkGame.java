@@ -0,0 +1,222 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * An m,n,k-game: X and O take turns on a rows x cols board and the first to get k in a row
+ * (across, down or diagonally) wins, e.g. 15x15 five-in-a-row. Not thread-safe on its own;
+ * the game repository serializes access to each game.
+ *
+ * <p>Only the lines through the newest stone can have been completed, so a move checks
+ * four directions out to k-1 cells: O(k) no matter how large the board is.
+ */
+public class MnkGame implements BoardGame {
+    public static final int MAX_SIZE = 25;
+
+    // Time the search may take for one hint
+    private static final long HINT_TIME_MILLIS = 300;
+
+    static final byte EMPTY = 0;
+    static final byte X = 1;
+    static final byte O = 2;
+
+    // Across, down, diagonal, anti-diagonal as (row, col) steps
+    static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private static final int PLAYING = 0;
+    private static final int X_WINS = 1;
+    private static final int O_WINS = 2;
+    private static final int DRAW = 3;
+
+    private final int rows;
+    private final int cols;
+    private final int k;
+    private final byte[] cells;
+    // Cells in the order they were played
+    private final short[] moves;
+    private int moveCount;
+    private int outcome;
+
+    // Last search verdict; written by hint searches outside the game's lock, so replaced whole
+    private volatile Searched searched;
+
+    private record Searched(int moveCount, int move, int result) {
+    }
+
+    public MnkGame(int rows, int cols, int k) {
+        if (rows < 1 || rows > MAX_SIZE || cols < 1 || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Board must be between 1x1 and " + MAX_SIZE + "x" + MAX_SIZE);
+        }
+        if (k < 1 || k > Math.max(rows, cols)) {
+            throw new IllegalArgumentException("k must be between 1 and the longer side: " + k);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.k = k;
+        this.cells = new byte[rows * cols];
+        this.moves = new short[rows * cols];
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int getK() {
+        return k;
+    }
+
+    @Override
+    public boolean isValidMove(int position) {
+        return position >= 0 && position < cells.length && cells[position] == EMPTY && outcome == PLAYING;
+    }
+
+    @Override
+    public void makeMove(int position) {
+        byte stone = sideToMove(moveCount);
+        cells[position] = stone;
+        moves[moveCount++] = (short) position;
+        if (completesLine(cells, cols, k, position)) {
+            outcome = stone == X ? X_WINS : O_WINS;
+        } else if (moveCount == cells.length) {
+            outcome = DRAW;
+        }
+    }
+
+    @Override
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int moveAt(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index];
+    }
+
+    /*
+     * Only the cells are copied here; the search runs on the copy. Its verdict is kept by move
+     * count, which only goes up since board games have no take-back, so asking again on an
+     * unchanged board does not search again. A mistake still reports the searched outlook.
+     */
+    @Override
+    public Supplier<Hint> hint(TicTacToeOracle.Difficulty difficulty, RandomGenerator random) {
+        if (outcome != PLAYING) {
+            return () -> Hint.NONE;
+        }
+        byte[] board = cells.clone();
+        int atMove = moveCount;
+        return () -> {
+            Searched known = searched;
+            MnkSearch search = null;
+            if (known == null || known.moveCount() != atMove) {
+                search = new MnkSearch(rows, cols, k, board, atMove);
+                int move = search.bestMove(HINT_TIME_MILLIS);
+                known = new Searched(atMove, move, search.provenResult());
+                searched = known;
+            }
+            if (random.nextDouble() < difficulty.getMistakeRate()) {
+                if (search == null) {
+                    search = new MnkSearch(rows, cols, k, board, atMove);
+                }
+                return new Hint(search.randomCandidate(random), known.result());
+            }
+            return new Hint(known.move(), known.result());
+        };
+    }
+
+    @Override
+    public List<String> getBoard() {
+        return new Board(cells.clone());
+    }
+
+    @Override
+    public String getCurrentPlayer() {
+        // Once the game is over the player who made the last move stays current
+        int mover = outcome == PLAYING ? moveCount : moveCount - 1;
+        return sideToMove(mover) == X ? "X" : "O";
+    }
+
+    @Override
+    public String getWinner() {
+        return switch (outcome) {
+            case X_WINS -> "X";
+            case O_WINS -> "O";
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean isDraw() {
+        return outcome == DRAW;
+    }
+
+    static byte sideToMove(int moveCount) {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    // Whether the stone on this cell is part of k in a row
+    static boolean completesLine(byte[] cells, int cols, int k, int position) {
+        byte stone = cells[position];
+        int rows = cells.length / cols;
+        int row = position / cols;
+        int col = position % cols;
+        for (int[] direction : DIRECTIONS) {
+            int run = 1
+                + runLength(cells, rows, cols, k, row, col, direction[0], direction[1], stone)
+                + runLength(cells, rows, cols, k, row, col, -direction[0], -direction[1], stone);
+            if (run >= k) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same-colored stones next to (row, col) in one direction, counting at most k-1
+    static int runLength(byte[] cells, int rows, int cols, int k,
+                         int row, int col, int dRow, int dCol, byte stone) {
+        int run = 0;
+        int r = row + dRow;
+        int c = col + dCol;
+        while (run < k - 1 && r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == stone) {
+            run++;
+            r += dRow;
+            c += dCol;
+        }
+        return run;
+    }
+
+    private static final class Board extends AbstractList<String> implements RandomAccess {
+        private final byte[] cells;
+
+        private Board(byte[] cells) {
+            this.cells = cells;
+        }
+
+        @Override
+        public String get(int index) {
+            return switch (cells[index]) {
+                case X -> "X";
+                case O -> "O";
+                default -> null;
+            };
+        }
+
+        @Override
+        public int size() {
+            return cells.length;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Iterative-deepening alpha-beta search for {@link MnkGame}, run on its own copy of the
+ * board. Only empty cells within two of a stone are tried, most threatening first, and a
+ * transposition table lets transposed move orders share work, so large boards stay
+ * tractable within a time budget.
+ */
+final class MnkSearch {
+    private static final int WIN = 1 << 30;
+    private static final int INFINITY = WIN + 1;
+    private static final int MAX_PLY = 64;
+    private static final int NEAR = 2;
+
+    private static final int TABLE_BITS = 16;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final int EXACT = 0;
+    private static final int LOWER = 1;
+    private static final int UPPER = 2;
+
+    // One key per cell and stone (cell * 2 + stone - 1), shared by every board size
+    private static final long[] ZOBRIST = new long[MnkGame.MAX_SIZE * MnkGame.MAX_SIZE * 2];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x6d6e6bL);
+        for (int i = 0; i < ZOBRIST.length; i++) {
+            ZOBRIST[i] = random.nextLong();
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int k;
+    private final byte[] cells;
+    private int moveCount;
+    private long hash;
+
+    // Stones within NEAR cells of each cell; moves are only generated where this is non-zero
+    private final byte[] near;
+
+    // Every row, column and diagonal that is at least k long, as cell indexes in order
+    private final int[][] lines;
+
+    // Score of a k-window holding this many stones of one color and none of the other
+    private final int[] weights;
+
+    // 1 MB between them, so only allocated once a search starts
+    private long[] tableKeys;
+    private long[] tableData;
+    private final int[][] moveLists = new int[MAX_PLY][];
+    private final int[][] orderLists = new int[MAX_PLY][];
+
+    private long deadline;
+    private boolean stopped;
+    private long nodes;
+    private int rootBest;
+    private int lastScore;
+
+    MnkSearch(int rows, int cols, int k, byte[] cells, int moveCount) {
+        this.rows = rows;
+        this.cols = cols;
+        this.k = k;
+        this.cells = new byte[cells.length];
+        this.near = new byte[cells.length];
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] != MnkGame.EMPTY) {
+                place(position, cells[position]);
+            }
+        }
+        this.moveCount = moveCount;
+        this.lines = buildLines();
+        this.weights = new int[k + 1];
+        for (int count = 1; count <= k; count++) {
+            weights[count] = 1 << Math.min(3 * (count - 1), 16);
+        }
+    }
+
+    /**
+     * Searches deeper and deeper until the time runs out or the result is decided, and
+     * returns the best move of the last completed depth.
+     */
+    int bestMove(long timeMillis) {
+        if (moveCount == 0) {
+            return (rows / 2) * cols + cols / 2;
+        }
+        deadline = System.nanoTime() + timeMillis * 1_000_000L;
+        stopped = false;
+        if (tableKeys == null) {
+            tableKeys = new long[1 << TABLE_BITS];
+            tableData = new long[1 << TABLE_BITS];
+        }
+
+        int best = -1;
+        int maxDepth = Math.min(cells.length - moveCount, MAX_PLY - 1);
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            rootBest = -1;
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if (stopped) {
+                // A move from an unfinished first iteration still beats no move at all
+                if (best < 0) {
+                    best = rootBest;
+                }
+                break;
+            }
+            best = rootBest;
+            lastScore = score;
+            if (Math.abs(score) >= WIN - MAX_PLY) {
+                break;
+            }
+        }
+        return best >= 0 ? best : randomCandidate(new SplittableRandom());
+    }
+
+    // 1 if the last search found a forced win for the side to move, -1 a forced loss, else 0
+    int provenResult() {
+        if (lastScore >= WIN - MAX_PLY) {
+            return 1;
+        }
+        return lastScore <= -(WIN - MAX_PLY) ? -1 : 0;
+    }
+
+    // Any cell the search would consider, picked uniformly
+    int randomCandidate(RandomGenerator random) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] == MnkGame.EMPTY && (near[position] > 0 || moveCount == 0)) {
+                candidates.add(position);
+            }
+        }
+        return candidates.isEmpty() ? -1 : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (moveCount == cells.length) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate();
+        }
+
+        int slot = (int) hash & TABLE_MASK;
+        int tableMove = -1;
+        if (tableKeys[slot] == hash) {
+            long data = tableData[slot];
+            tableMove = (int) (data & 0xFFFF);
+            if (tableMove == 0xFFFF) {
+                tableMove = -1;
+            }
+            int tableDepth = (int) (data >>> 48) & 0xFF;
+            if (ply > 0 && tableDepth >= depth) {
+                int score = fromTable((int) (data >>> 16), ply);
+                int bound = (int) (data >>> 56) & 3;
+                if (bound == EXACT
+                    || (bound == LOWER && score >= beta)
+                    || (bound == UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int count = generate(ply, tableMove);
+        int[] moves = moveLists[ply];
+        int[] order = orderLists[ply];
+        byte stone = MnkGame.sideToMove(moveCount);
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            // Pick the highest-ordered remaining move; cutoffs usually come early
+            int pick = i;
+            for (int j = i + 1; j < count; j++) {
+                if (order[j] > order[pick]) {
+                    pick = j;
+                }
+            }
+            int position = moves[pick];
+            moves[pick] = moves[i];
+            order[pick] = order[i];
+            moves[i] = position;
+
+            place(position, stone);
+            int score = MnkGame.completesLine(cells, cols, k, position)
+                ? WIN - ply - 1
+                : -negamax(depth - 1, -beta, -alpha, ply + 1);
+            remove(position, stone);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = position;
+                if (ply == 0) {
+                    rootBest = position;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int bound = bestScore <= originalAlpha ? UPPER : bestScore >= beta ? LOWER : EXACT;
+        tableKeys[slot] = hash;
+        tableData[slot] = (bestMove & 0xFFFFL)
+            | (toTable(bestScore, ply) & 0xFFFFFFFFL) << 16
+            | (long) depth << 48
+            | (long) bound << 56;
+        return bestScore;
+    }
+
+    // Fills moveLists[ply] with candidate cells and orderLists[ply] with their ordering scores
+    private int generate(int ply, int tableMove) {
+        if (moveLists[ply] == null) {
+            moveLists[ply] = new int[cells.length];
+            orderLists[ply] = new int[cells.length];
+        }
+        int[] moves = moveLists[ply];
+        int[] order = orderLists[ply];
+        byte mine = MnkGame.sideToMove(moveCount);
+        byte theirs = mine == MnkGame.X ? MnkGame.O : MnkGame.X;
+        int count = 0;
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] == MnkGame.EMPTY && near[position] > 0) {
+                moves[count] = position;
+                order[count] = position == tableMove
+                    ? Integer.MAX_VALUE
+                    : 2 * threat(position, mine) + threat(position, theirs);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // How strong the lines through an empty cell would be with a stone of this color on it
+    private int threat(int position, byte stone) {
+        int row = position / cols;
+        int col = position % cols;
+        int score = 0;
+        for (int[] direction : MnkGame.DIRECTIONS) {
+            int run = 1
+                + MnkGame.runLength(cells, rows, cols, k, row, col, direction[0], direction[1], stone)
+                + MnkGame.runLength(cells, rows, cols, k, row, col, -direction[0], -direction[1], stone);
+            score += weights[Math.min(run, k)];
+        }
+        return score;
+    }
+
+    // Sum over every k-window that only one side can still complete, for the side to move
+    private int evaluate() {
+        int score = 0;
+        for (int[] line : lines) {
+            int xs = 0;
+            int os = 0;
+            for (int i = 0; i < line.length; i++) {
+                byte entering = cells[line[i]];
+                if (entering == MnkGame.X) {
+                    xs++;
+                } else if (entering == MnkGame.O) {
+                    os++;
+                }
+                if (i >= k) {
+                    byte leaving = cells[line[i - k]];
+                    if (leaving == MnkGame.X) {
+                        xs--;
+                    } else if (leaving == MnkGame.O) {
+                        os--;
+                    }
+                }
+                if (i >= k - 1) {
+                    if (os == 0) {
+                        score += weights[xs];
+                    } else if (xs == 0) {
+                        score -= weights[os];
+                    }
+                }
+            }
+        }
+        return MnkGame.sideToMove(moveCount) == MnkGame.X ? score : -score;
+    }
+
+    private void place(int position, byte stone) {
+        cells[position] = stone;
+        hash ^= ZOBRIST[position * 2 + stone - 1];
+        moveCount++;
+        adjustNear(position, 1);
+    }
+
+    private void remove(int position, byte stone) {
+        cells[position] = MnkGame.EMPTY;
+        hash ^= ZOBRIST[position * 2 + stone - 1];
+        moveCount--;
+        adjustNear(position, -1);
+    }
+
+    private void adjustNear(int position, int delta) {
+        int row = position / cols;
+        int col = position % cols;
+        for (int r = Math.max(0, row - NEAR); r <= Math.min(rows - 1, row + NEAR); r++) {
+            for (int c = Math.max(0, col - NEAR); c <= Math.min(cols - 1, col + NEAR); c++) {
+                near[r * cols + c] += delta;
+            }
+        }
+    }
+
+    private int[][] buildLines() {
+        List<int[]> result = new ArrayList<>();
+        for (int[] direction : MnkGame.DIRECTIONS) {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    // Start a line only where the cell before it is off the board
+                    int prevRow = row - direction[0];
+                    int prevCol = col - direction[1];
+                    if (prevRow >= 0 && prevRow < rows && prevCol >= 0 && prevCol < cols) {
+                        continue;
+                    }
+                    List<Integer> line = new ArrayList<>();
+                    for (int r = row, c = col; r >= 0 && r < rows && c >= 0 && c < cols;
+                         r += direction[0], c += direction[1]) {
+                        line.add(r * cols + c);
+                    }
+                    if (line.size() >= k) {
+                        result.add(line.stream().mapToInt(Integer::intValue).toArray());
+                    }
+                }
+            }
+        }
+        return result.toArray(new int[0][]);
+    }
+
+    // Win scores count plies from the root; the table stores them relative to the node
+    private static int toTable(int score, int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score + ply;
+        }
+        return score <= -(WIN - MAX_PLY) ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score - ply;
+        }
+        return score <= -(WIN - MAX_PLY) ? score + ply : score;
+    }
+}
@@ -0,0 +1,107 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Moves played so far, each stored as its 16-bit engine encoding (see
+ * {@link com.shipwrecked.gamecenter.engine.Move}) in a growable short array: two bytes per
+ * move instead of a {@link ChessMove} object. Serializes as the raw bytes.
+ */
+public final class MoveHistory implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private transient short[] moves = new short[INITIAL_CAPACITY];
+    private transient int size;
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = (short) move;
+    }
+
+    public int removeLast() {
+        if (size == 0) {
+            throw new IllegalStateException("No moves to remove");
+        }
+        return moves[--size] & 0xFFFF;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index] & 0xFFFF;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Two big-endian bytes per move, oldest first
+    public byte[] toBytes() {
+        byte[] bytes = new byte[size * 2];
+        for (int i = 0; i < size; i++) {
+            bytes[2 * i] = (byte) (moves[i] >>> 8);
+            bytes[2 * i + 1] = (byte) moves[i];
+        }
+        return bytes;
+    }
+
+    public static MoveHistory fromBytes(byte[] bytes) {
+        if (bytes.length % 2 != 0) {
+            throw new IllegalArgumentException("Move history must have an even number of bytes: " + bytes.length);
+        }
+        MoveHistory history = new MoveHistory();
+        history.moves = new short[Math.max(INITIAL_CAPACITY, bytes.length / 2)];
+        for (int i = 0; i < bytes.length; i += 2) {
+            history.moves[history.size++] = (short) ((bytes[i] << 8) | (bytes[i + 1] & 0xFF));
+        }
+        return history;
+    }
+
+    // Read-only ChessMove view for JSON and older callers; converts on access
+    public List<ChessMove> asChessMoves() {
+        return new ChessMoveView();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        byte[] bytes = toBytes();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        MoveHistory copy = fromBytes(bytes);
+        this.moves = copy.moves;
+        this.size = copy.size;
+    }
+
+    private final class ChessMoveView extends AbstractList<ChessMove> implements RandomAccess {
+        @Override
+        public ChessMove get(int index) {
+            return ChessGame.toChessMove(MoveHistory.this.get(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * State of one web tic-tac-toe game. Not thread-safe on its own; the game repository
+ * serializes access to each game.
+ *
+ * <p>The whole game is one long: X's cells in bits 0-8, O's cells in bits 9-17, the
+ * outcome in bits 18-19 and the cells in the order they were played, four bits each,
+ * from bit 20. Cell {@code i} is bit {@code i}, row by row from the top left.
+ */
+public class TicTacToeGame implements BoardGame {
+    private static final int CELLS = 9;
+    private static final int FULL = (1 << CELLS) - 1;
+    private static final int O_SHIFT = CELLS;
+    private static final int OUTCOME_SHIFT = 2 * CELLS;
+    private static final int ORDER_SHIFT = OUTCOME_SHIFT + 2;
+
+    private static final int PLAYING = 0;
+    private static final int X_WINS = 1;
+    private static final int O_WINS = 2;
+    private static final int DRAW = 3;
+
+    // Rows, columns and diagonals as cell masks
+    private static final int[] WIN_MASKS = {
+        0b000_000_111, 0b000_111_000, 0b111_000_000, // Rows
+        0b001_001_001, 0b010_010_010, 0b100_100_100, // Columns
+        0b100_010_001, 0b001_010_100                 // Diagonals
+    };
+
+    private long state;
+
+    @Override
+    public int getRows() {
+        return 3;
+    }
+
+    @Override
+    public int getCols() {
+        return 3;
+    }
+
+    @Override
+    public int getK() {
+        return 3;
+    }
+
+    @Override
+    public boolean isValidMove(int position) {
+        return position >= 0 && position < CELLS && (occupied(state) & (1 << position)) == 0
+            && outcome(state) == PLAYING;
+    }
+
+    @Override
+    public void makeMove(int position) {
+        boolean xMoves = xToMove(state);
+        int shift = xMoves ? 0 : O_SHIFT;
+        state |= (long) position << (ORDER_SHIFT + 4 * Integer.bitCount(occupied(state)));
+        state |= 1L << (position + shift);
+
+        int mine = (int) (state >>> shift) & FULL;
+        for (int line : WIN_MASKS) {
+            if ((mine & line) == line) {
+                state |= (long) (xMoves ? X_WINS : O_WINS) << OUTCOME_SHIFT;
+                return;
+            }
+        }
+        if (occupied(state) == FULL) {
+            state |= (long) DRAW << OUTCOME_SHIFT;
+        }
+    }
+
+    // Looked up in the TicTacToeOracle, cheap enough to do at once; PERFECT always returns a best move
+    @Override
+    public Supplier<Hint> hint(TicTacToeOracle.Difficulty difficulty, RandomGenerator random) {
+        if (outcome(state) != PLAYING) {
+            return () -> Hint.NONE;
+        }
+        Hint hint = new Hint(TicTacToeOracle.chooseMove(xCells(state), oCells(state), difficulty, random),
+                             Integer.signum(TicTacToeOracle.value(xCells(state), oCells(state))));
+        return () -> hint;
+    }
+
+    @Override
+    public int getMoveCount() {
+        return Integer.bitCount(occupied(state));
+    }
+
+    @Override
+    public int moveAt(int index) {
+        if (index < 0 || index >= getMoveCount()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (int) (state >>> (ORDER_SHIFT + 4 * index)) & 0xF;
+    }
+
+    private static int xCells(long state) {
+        return (int) state & FULL;
+    }
+
+    private static int oCells(long state) {
+        return (int) (state >>> O_SHIFT) & FULL;
+    }
+
+    private static int occupied(long state) {
+        return xCells(state) | oCells(state);
+    }
+
+    private static int outcome(long state) {
+        return (int) (state >>> OUTCOME_SHIFT) & 3;
+    }
+
+    private static boolean xToMove(long state) {
+        return Integer.bitCount(xCells(state)) == Integer.bitCount(oCells(state));
+    }
+
+    // Read-only view of the cells, taken from the packed state when it was created
+    @Override
+    public Board getBoard() {
+        return new Board(state);
+    }
+
+    @Override
+    public String getCurrentPlayer() {
+        // Once the game is over the player who made the last move stays current
+        return xToMove(state) == (outcome(state) == PLAYING) ? "X" : "O";
+    }
+
+    @Override
+    public String getWinner() {
+        return switch (outcome(state)) {
+            case X_WINS -> "X";
+            case O_WINS -> "O";
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean isDraw() {
+        return outcome(state) == DRAW;
+    }
+
+    /** The nine cells as "X", "O" or null, serialized as a JSON array without copying the board. */
+    public static final class Board extends AbstractList<String> implements RandomAccess {
+        private final long state;
+
+        private Board(long state) {
+            this.state = state;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= CELLS) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            if ((xCells(state) & (1 << index)) != 0) {
+                return "X";
+            }
+            return (oCells(state) & (1 << index)) != 0 ? "O" : null;
+        }
+
+        @Override
+        public int size() {
+            return CELLS;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.shipwrecked.gamecenter.models;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Perfect-play table for tic-tac-toe. Every position reachable from the empty board
+ * (5,478 of them) is solved once when the class loads; afterwards a move is a table
+ * lookup. Positions are given as two 9-bit cell masks, cell {@code i} in bit {@code i},
+ * and X always moves first.
+ */
+public final class TicTacToeOracle {
+    private static final int CELLS = 9;
+    private static final int FULL = (1 << CELLS) - 1;
+    private static final int STATES = 19683; // 3^9
+    private static final byte UNSOLVED = Byte.MIN_VALUE;
+
+    private static final int[] WIN_MASKS = {
+        0b000_000_111, 0b000_111_000, 0b111_000_000,
+        0b001_001_001, 0b010_010_010, 0b100_100_100,
+        0b100_010_001, 0b001_010_100
+    };
+
+    // Base-3 digit weights of each 9-bit mask, so a position indexes the table in O(1)
+    private static final short[] TERNARY = new short[1 << CELLS];
+
+    // Score for the side to move: positive wins, negative loses, faster results score higher
+    private static final byte[] VALUES = new byte[STATES];
+
+    // Mask of the moves that keep the best score
+    private static final short[] BEST_MOVES = new short[STATES];
+
+    private static final int REACHABLE;
+
+    /** How often the computer deliberately picks a move that is worse than the best one. */
+    public enum Difficulty {
+        EASY(0.6),
+        MEDIUM(0.3),
+        HARD(0.1),
+        PERFECT(0.0);
+
+        private final double mistakeRate;
+
+        Difficulty(double mistakeRate) {
+            this.mistakeRate = mistakeRate;
+        }
+
+        public double getMistakeRate() {
+            return mistakeRate;
+        }
+    }
+
+    static {
+        for (int mask = 0; mask <= FULL; mask++) {
+            int weight = 1;
+            int index = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                if ((mask & (1 << cell)) != 0) {
+                    index += weight;
+                }
+                weight *= 3;
+            }
+            TERNARY[mask] = (short) index;
+        }
+        Arrays.fill(VALUES, UNSOLVED);
+        REACHABLE = solve(0, 0);
+    }
+
+    private TicTacToeOracle() {
+    }
+
+    /** Score of the position for the side to move; 0 is a draw with best play. */
+    public static int value(int xCells, int oCells) {
+        return VALUES[index(xCells, oCells)];
+    }
+
+    /** Mask of every move that keeps the best result, 0 if the game is over. */
+    public static int bestMoves(int xCells, int oCells) {
+        return BEST_MOVES[index(xCells, oCells)];
+    }
+
+    /**
+     * Picks a move for the side to move, or -1 if the game is over. With the difficulty's
+     * mistake rate a move outside the best set is chosen (when one exists); otherwise one
+     * of the best moves, at random so play does not repeat.
+     */
+    public static int chooseMove(int xCells, int oCells, Difficulty difficulty, RandomGenerator random) {
+        int best = bestMoves(xCells, oCells);
+        if (best == 0) {
+            return -1;
+        }
+        int worse = ~(xCells | oCells) & FULL & ~best;
+        boolean mistake = worse != 0 && random.nextDouble() < difficulty.getMistakeRate();
+        return randomCell(mistake ? worse : best, random);
+    }
+
+    // Number of distinct positions in the table
+    public static int reachableStates() {
+        return REACHABLE;
+    }
+
+    private static int index(int xCells, int oCells) {
+        return TERNARY[xCells & FULL] + 2 * TERNARY[oCells & FULL];
+    }
+
+    private static int randomCell(int mask, RandomGenerator random) {
+        int skip = random.nextInt(Integer.bitCount(mask));
+        for (int i = 0; i < skip; i++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    private static boolean hasLine(int cells) {
+        for (int line : WIN_MASKS) {
+            if ((cells & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Negamax over the whole game tree, memoized by position; returns positions newly solved
+    private static int solve(int xCells, int oCells) {
+        int index = index(xCells, oCells);
+        if (VALUES[index] != UNSOLVED) {
+            return 0;
+        }
+
+        boolean xToMove = Integer.bitCount(xCells) == Integer.bitCount(oCells);
+        int occupied = xCells | oCells;
+        int filled = Integer.bitCount(occupied);
+        if (hasLine(xToMove ? oCells : xCells)) {
+            VALUES[index] = (byte) -(CELLS + 1 - filled);
+            return 1;
+        }
+        if (occupied == FULL) {
+            VALUES[index] = 0;
+            return 1;
+        }
+
+        int solved = 1;
+        int bestValue = Integer.MIN_VALUE;
+        int bestMoves = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int bit = 1 << cell;
+            if ((occupied & bit) != 0) {
+                continue;
+            }
+            int childX = xToMove ? xCells | bit : xCells;
+            int childO = xToMove ? oCells : oCells | bit;
+            solved += solve(childX, childO);
+            int value = -VALUES[index(childX, childO)];
+            if (value > bestValue) {
+                bestValue = value;
+                bestMoves = bit;
+            } else if (value == bestValue) {
+                bestMoves |= bit;
+            }
+        }
+        VALUES[index] = (byte) bestValue;
+        BEST_MOVES[index] = (short) bestMoves;
+        return solved;
+    }
+}
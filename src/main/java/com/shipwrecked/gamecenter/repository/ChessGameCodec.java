@@ -0,0 +1,105 @@
+package com.shipwrecked.gamecenter.repository;
+
+import com.shipwrecked.gamecenter.engine.Fen;
+import com.shipwrecked.gamecenter.engine.Position;
+import com.shipwrecked.gamecenter.engine.PositionCodec;
+import com.shipwrecked.gamecenter.models.ChessGame;
+import com.shipwrecked.gamecenter.models.MoveHistory;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary form of a {@link ChessGame}: where it started, the position it has reached and the
+ * moves in between. Decoding takes the position as it is, so loading a game costs the same
+ * however long it is; the moves are only replayed if one is taken back.
+ *
+ * <pre>
+ *   byte   format version
+ *   byte   flags; bit 0 set if the game did not start from the standard position
+ *   ...    the start position in {@link PositionCodec} form, if flagged
+ *   ...    the current position in {@link PositionCodec} form
+ *   short  number of earlier positions the current one could still repeat
+ *   long   the Zobrist hash of each, oldest first (see {@link Position#recentHashes})
+ *   short  number of moves
+ *   short  each move in the 16-bit engine encoding
+ * </pre>
+ *
+ * A standard game takes at most 36 bytes, plus 2 per move and 8 per move since the last
+ * capture or pawn move, where Java serialization of the same game costs several kilobytes for the
+ * position's undo stacks alone. Version 1, without the current position and hashes, is still
+ * read by replaying its moves.
+ */
+public class ChessGameCodec implements GameCodec<ChessGame> {
+    private static final byte VERSION = 2;
+    private static final byte REPLAYED_VERSION = 1;
+    private static final int CUSTOM_START = 1;
+
+    @Override
+    public byte[] encode(ChessGame game) {
+        MoveHistory history = game.packedHistory();
+        Position current = game.snapshot();
+        long[] recentHashes = current.recentHashes();
+        Position start = null;
+        int size = 6 + PositionCodec.encodedSize(current) + 8 * recentHashes.length + 2 * history.size();
+        if (!game.startFen().equals(Fen.START_POSITION)) {
+            start = Fen.parse(game.startFen());
+            size += PositionCodec.encodedSize(start);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(VERSION);
+        out.put((byte) (start == null ? 0 : CUSTOM_START));
+        if (start != null) {
+            PositionCodec.write(start, out);
+        }
+        PositionCodec.write(current, out);
+        out.putShort((short) recentHashes.length);
+        for (long hash : recentHashes) {
+            out.putLong(hash);
+        }
+        out.putShort((short) history.size());
+        for (int i = 0; i < history.size(); i++) {
+            out.putShort((short) history.get(i));
+        }
+        return out.array();
+    }
+
+    @Override
+    public ChessGame decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            byte version = in.get();
+            if (version != VERSION && version != REPLAYED_VERSION) {
+                throw new IllegalArgumentException("Unknown chess state version " + version);
+            }
+            String startFen = Fen.START_POSITION;
+            if ((in.get() & CUSTOM_START) != 0) {
+                Position start = new Position();
+                PositionCodec.read(in, start);
+                startFen = Fen.toFen(start);
+            }
+            if (version == REPLAYED_VERSION) {
+                return ChessGame.replay(startFen, readMoves(in));
+            }
+
+            Position current = new Position();
+            PositionCodec.read(in, current);
+            long[] recentHashes = new long[in.getShort() & 0xFFFF];
+            for (int i = 0; i < recentHashes.length; i++) {
+                recentHashes[i] = in.getLong();
+            }
+            return ChessGame.restore(startFen, readMoves(in), current, recentHashes);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated chess state", e);
+        }
+    }
+
+    private static int[] readMoves(ByteBuffer in) {
+        int[] moves = new int[in.getShort() & 0xFFFF];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = in.getShort() & 0xFFFF;
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,99 @@
+package com.shipwrecked.gamecenter.repository;
+
+import com.shipwrecked.gamecenter.engine.MoveGenerator;
+import com.shipwrecked.gamecenter.engine.Position;
+import com.shipwrecked.gamecenter.models.ChessGame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Compares {@link ChessGameCodec} with Java serialization, which is what the HTTP session
+ * used to hold, on games of random legal moves: bytes per game and time to encode and decode.
+ *
+ * <pre>
+ *   java -cp target/classes:&lt;dependencies&gt; com.shipwrecked.gamecenter.repository.CodecBenchmark
+ *   java -cp ... com.shipwrecked.gamecenter.repository.CodecBenchmark --plies 120 --iterations 20000
+ * </pre>
+ */
+public final class CodecBenchmark {
+
+    private CodecBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] pliesList = {0, 40, 120};
+        int iterations = 10_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--plies" -> pliesList = new int[]{Integer.parseInt(args[++i])};
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        ChessGameCodec codec = new ChessGameCodec();
+        for (int plies : pliesList) {
+            ChessGame game = randomGame(plies, new SplittableRandom(plies));
+            byte[] encoded = codec.encode(game);
+            byte[] serialized = serialize(game);
+
+            // Run each twice so the second, reported round is JIT-compiled
+            long codecNanos = 0;
+            long javaNanos = 0;
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    codec.decode(codec.encode(game));
+                }
+                codecNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    deserialize(serialize(game));
+                }
+                javaNanos = System.nanoTime() - start;
+            }
+
+            System.out.printf(Locale.ROOT, "%3d plies (%s): codec %,6d bytes %8.1f us/round trip | "
+                    + "Java serialization %,6d bytes %8.1f us/round trip%n",
+                game.getMoveCount(), game.getStatus(), encoded.length, codecNanos / 1e3 / iterations,
+                serialized.length, javaNanos / 1e3 / iterations);
+        }
+    }
+
+    private static ChessGame randomGame(int plies, SplittableRandom random) {
+        ChessGame game = new ChessGame();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < plies; ply++) {
+            Position position = game.snapshot();
+            int count = generator.generateLegal(position, moves, 0);
+            if (count == 0 || !game.playMove(moves[random.nextInt(count)])) {
+                break;
+            }
+        }
+        return game;
+    }
+
+    private static byte[] serialize(ChessGame game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ChessGame deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (ChessGame) in.readObject();
+        }
+    }
+}
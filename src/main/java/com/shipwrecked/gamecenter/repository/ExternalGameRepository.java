@@ -0,0 +1,140 @@
+package com.shipwrecked.gamecenter.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link GameRepository} that keeps nothing in memory: games live as bytes in a
+ * {@link GameStateStore}, encoded by a {@link GameCodec}, so any node that can reach the store
+ * can serve them. An update decodes the game, runs the action and writes it back if it changed.
+ * Updates to one game are serialized by a lock of that game's own, which only exists while
+ * someone holds or waits for it, so a slow action (a computer move's search) never holds up
+ * other games. The lock is per JVM, so a store shared by several nodes still needs requests
+ * for one game routed to one node at a time.
+ */
+public class ExternalGameRepository<T> implements GameRepository<T> {
+    private static final Logger log = LoggerFactory.getLogger(ExternalGameRepository.class);
+
+    private final GameStateStore store;
+    private final GameCodec<T> codec;
+    private final ConcurrentHashMap<String, GameLock> locks = new ConcurrentHashMap<>();
+
+    public ExternalGameRepository(GameStateStore store, GameCodec<T> codec) {
+        this.store = store;
+        this.codec = codec;
+    }
+
+    @Override
+    public String create(T game) {
+        String id = UUID.randomUUID().toString();
+        store.save(id, codec.encode(game));
+        return id;
+    }
+
+    // A decoded copy: changes to it are not stored, use update for that
+    @Override
+    public Optional<T> find(String id) {
+        return store.load(id).flatMap(state -> decode(id, state));
+    }
+
+    // find decodes a copy of its own, so no lock is needed and nothing is written back
+    @Override
+    public <R> Optional<R> read(String id, Function<T, R> action) {
+        return find(id).map(action);
+    }
+
+    @Override
+    public <R> Optional<R> update(String id, Function<T, R> action) {
+        GameLock lock = acquire(id);
+        try {
+            synchronized (lock) {
+                return updateLocked(id, action);
+            }
+        } finally {
+            release(id);
+        }
+    }
+
+    // The store has the change once updateLocked returns, and the lock keeps then in order
+    @Override
+    public <R> Optional<R> update(String id, Function<T, R> action, Consumer<? super R> then) {
+        GameLock lock = acquire(id);
+        try {
+            synchronized (lock) {
+                Optional<R> result = updateLocked(id, action);
+                result.ifPresent(then);
+                return result;
+            }
+        } finally {
+            release(id);
+        }
+    }
+
+    private <R> Optional<R> updateLocked(String id, Function<T, R> action) {
+        Optional<byte[]> before = store.load(id);
+        if (before.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<T> game = decode(id, before.get());
+        if (game.isEmpty()) {
+            return Optional.empty();
+        }
+        R result = action.apply(game.get());
+        byte[] after = codec.encode(game.get());
+        if (!Arrays.equals(before.get(), after)) {
+            store.save(id, after);
+        }
+        return Optional.ofNullable(result);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return store.delete(id);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public long evictionCount() {
+        return store.evictionCount();
+    }
+
+    // The game's lock, created on first use and counted as held until released
+    private GameLock acquire(String id) {
+        return locks.compute(id, (key, lock) -> {
+            GameLock held = lock == null ? new GameLock() : lock;
+            held.holders++;
+            return held;
+        });
+    }
+
+    private void release(String id) {
+        locks.computeIfPresent(id, (key, lock) -> --lock.holders == 0 ? null : lock);
+    }
+
+    private static final class GameLock {
+        // Only changed inside compute on this game's id
+        int holders;
+    }
+
+    // State this codec cannot read (corrupt, or written by an older format) is dropped
+    private Optional<T> decode(String id, byte[] state) {
+        try {
+            return Optional.of(codec.decode(state));
+        } catch (IllegalArgumentException e) {
+            log.warn("Dropping unreadable state of game {}: {}", id, e.getMessage());
+            store.delete(id);
+            return Optional.empty();
+        }
+    }
+}
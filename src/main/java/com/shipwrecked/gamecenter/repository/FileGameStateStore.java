@@ -0,0 +1,188 @@
+package com.shipwrecked.gamecenter.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * {@link GameStateStore} with one file per game in a local directory, for single-node use and
+ * offline testing. Saves write a temporary file and rename it over the old one, so a reader
+ * never sees half a state. States not read or written for longer than the TTL are deleted by
+ * a background sweep (and on lookup), going by the file's modification time. The number of
+ * states is counted as they are saved and deleted, so reading it never lists the directory;
+ * each sweep sets it to what it found, which undoes any drift from saves racing deletes.
+ */
+public class FileGameStateStore implements GameStateStore, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(FileGameStateStore.class);
+    private static final String SUFFIX = ".game";
+    // Ids become file names, so only plain ones (UUIDs and the like) are accepted
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    private final Path directory;
+    private final long idleTtlMillis;
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicInteger count = new AtomicInteger();
+    private final ScheduledExecutorService sweeper;
+
+    public FileGameStateStore(Path directory, Duration idleTtl) {
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create game state directory " + directory, e);
+        }
+        this.idleTtlMillis = idleTtl.toMillis();
+        count.set(countFiles());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-state-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1000L, idleTtlMillis / 4);
+        sweeper.scheduleWithFixedDelay(this::evictExpired, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<byte[]> load(String id) {
+        if (!VALID_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Path file = fileFor(id);
+        try {
+            long now = System.currentTimeMillis();
+            if (isExpired(file, now)) {
+                evict(file);
+                return Optional.empty();
+            }
+            byte[] state = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            return Optional.of(state);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(String id, byte[] state) {
+        if (!VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Bad game id: " + id);
+        }
+        try {
+            Path file = fileFor(id);
+            Path temp = Files.createTempFile(directory, id, ".tmp");
+            try {
+                Files.write(temp, state);
+                boolean added = Files.notExists(file);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                if (added) {
+                    count.incrementAndGet();
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        if (!VALID_ID.matcher(id).matches()) {
+            return false;
+        }
+        try {
+            if (!Files.deleteIfExists(fileFor(id))) {
+                return false;
+            }
+            count.decrementAndGet();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // Deletes every state idle longer than the TTL; returns how many were deleted
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        int kept = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (isExpired(file, now) && evict(file)) {
+                    evicted++;
+                } else {
+                    kept++;
+                }
+            }
+            count.set(kept);
+        } catch (IOException e) {
+            log.warn("Sweeping {} failed", directory, e);
+        }
+        return evicted;
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private int countFiles() {
+        int files = 0;
+        try (DirectoryStream<Path> states = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path ignored : states) {
+                files++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list game state directory " + directory, e);
+        }
+        return files;
+    }
+
+    private Path fileFor(String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+
+    private boolean isExpired(Path file, long now) throws IOException {
+        try {
+            return now - Files.getLastModifiedTime(file).toMillis() > idleTtlMillis;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private boolean evict(Path file) throws IOException {
+        if (!Files.deleteIfExists(file)) {
+            return false;
+        }
+        count.decrementAndGet();
+        evictions.increment();
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package com.shipwrecked.gamecenter.repository;
+
+/**
+ * Turns a game into bytes for a {@link GameStateStore} and back.
+ */
+public interface GameCodec<T> {
+
+    byte[] encode(T game);
+
+    /**
+     * Rebuilds a game from {@link #encode} output. Throws IllegalArgumentException if the
+     * bytes are corrupt or from a format this codec does not read.
+     */
+    T decode(byte[] data);
+}
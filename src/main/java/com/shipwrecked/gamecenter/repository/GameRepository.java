@@ -0,0 +1,46 @@
+package com.shipwrecked.gamecenter.repository;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Stores live games by id. Implementations must be safe for concurrent requests and must
+ * run {@link #update} actions for one game one at a time, without blocking other games.
+ */
+public interface GameRepository<T> {
+
+    /**
+     * Adds a game under a new id and returns the id. May evict idle games to stay within bounds.
+     */
+    String create(T game);
+
+    Optional<T> find(String id);
+
+    /**
+     * Runs {@code action} while holding the game's lock and returns its result,
+     * or empty if there is no such game.
+     */
+    <R> Optional<R> update(String id, Function<T, R> action);
+
+    /**
+     * Like {@link #update}, then hands the action's result to {@code then} once the change is
+     * stored as durably as this repository stores anything. For one game, {@code then} runs in
+     * the order the updates were made, so it can tell other players about the change. It is
+     * not called if there is no such game.
+     */
+    <R> Optional<R> update(String id, Function<T, R> action, Consumer<? super R> then);
+
+    /**
+     * Runs {@code action} while holding the game's lock, for actions that only look at the
+     * game: nothing is saved or journaled afterwards. Returns empty if there is no such game.
+     */
+    <R> Optional<R> read(String id, Function<T, R> action);
+
+    boolean remove(String id);
+
+    int size();
+
+    // Games dropped because they sat idle too long or the store was full
+    long evictionCount();
+}
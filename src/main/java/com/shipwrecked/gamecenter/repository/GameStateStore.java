@@ -0,0 +1,23 @@
+package com.shipwrecked.gamecenter.repository;
+
+import java.util.Optional;
+
+/**
+ * Byte-level storage for encoded games, keyed by game id. This is the piece to swap for a
+ * shared store (Redis, a database) so games outlive one server node; {@link ExternalGameRepository}
+ * puts a {@link GameCodec} in front of it. Implementations must be safe for concurrent use.
+ */
+public interface GameStateStore {
+
+    Optional<byte[]> load(String id);
+
+    // Replaces any state already stored under this id
+    void save(String id, byte[] state);
+
+    boolean delete(String id);
+
+    int size();
+
+    // States dropped because they sat idle too long
+    long evictionCount();
+}
@@ -0,0 +1,265 @@
+package com.shipwrecked.gamecenter.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link GameRepository} on a {@link ConcurrentHashMap}. Each game has its own monitor, so
+ * moves on one game never wait for another. Games idle for longer than the TTL are dropped
+ * by a background sweep (and on lookup); when the store is full, the least recently used of
+ * a small sample from a random part of the table is evicted to make room, as Redis does for
+ * approximate LRU.
+ */
+public class InMemoryGameRepository<T> implements GameRepository<T>, AutoCloseable {
+    private static final int EVICTION_SAMPLE = 8;
+    // Regions sampled before giving up on finding one with games in it
+    private static final int EVICTION_PROBES = 4;
+
+    private final ConcurrentHashMap<String, Entry<T>> games = new ConcurrentHashMap<>();
+    private final int maxGames;
+    private final long idleTtlNanos;
+    private final LongSupplier clock;
+    private final LongAdder evictions = new LongAdder();
+    private final ScheduledExecutorService sweeper;
+
+    public InMemoryGameRepository(int maxGames, Duration idleTtl) {
+        this(maxGames, idleTtl, System::nanoTime);
+        long periodMillis = Math.max(1000L, idleTtl.toMillis() / 4);
+        sweeper.scheduleWithFixedDelay(this::evictExpired, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Without a background sweep; expired games are still dropped on lookup
+    InMemoryGameRepository(int maxGames, Duration idleTtl, LongSupplier clock) {
+        if (maxGames < 1) {
+            throw new IllegalArgumentException("maxGames must be at least 1: " + maxGames);
+        }
+        this.maxGames = maxGames;
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.clock = clock;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-repository-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String create(T game) {
+        String id = UUID.randomUUID().toString();
+        while (games.size() >= maxGames) {
+            evictOne();
+        }
+        games.put(id, new Entry<>(game, clock.getAsLong()));
+        return id;
+    }
+
+    /**
+     * Puts a game back under the id it had before, e.g. when recovering after a restart.
+     * Replaces any game already stored under that id.
+     */
+    public void restore(String id, T game) {
+        while (!games.containsKey(id) && games.size() >= maxGames) {
+            evictOne();
+        }
+        Entry<T> old = games.put(id, new Entry<>(game, clock.getAsLong()));
+        if (old != null) {
+            old.removed = true;
+        }
+    }
+
+    /**
+     * Runs {@code action} on every live game, each while holding that game's lock. Games
+     * created or removed meanwhile may or may not be seen.
+     */
+    public void forEach(BiConsumer<String, T> action) {
+        for (Map.Entry<String, Entry<T>> e : games.entrySet()) {
+            Entry<T> entry = e.getValue();
+            synchronized (entry) {
+                if (!entry.removed) {
+                    action.accept(e.getKey(), entry.game);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<T> find(String id) {
+        Entry<T> entry = live(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.game);
+    }
+
+    @Override
+    public <R> Optional<R> update(String id, Function<T, R> action) {
+        Entry<T> entry = live(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        synchronized (entry) {
+            if (entry.removed) {
+                return Optional.empty();
+            }
+            entry.lastAccess = clock.getAsLong();
+            return Optional.ofNullable(action.apply(entry.game));
+        }
+    }
+
+    // Nothing is stored anywhere else, so then runs before the lock is let go
+    @Override
+    public <R> Optional<R> update(String id, Function<T, R> action, Consumer<? super R> then) {
+        return update(id, game -> {
+            R result = action.apply(game);
+            then.accept(result);
+            return result;
+        });
+    }
+
+    // Games live only here, so reading is updating without changes
+    @Override
+    public <R> Optional<R> read(String id, Function<T, R> action) {
+        return update(id, action);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        Entry<T> entry = games.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.removed = true;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return games.size();
+    }
+
+    @Override
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // Drops every game idle longer than the TTL; returns how many were dropped
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (Map.Entry<String, Entry<T>> e : games.entrySet()) {
+            if (isExpired(e.getValue(), now) && evict(e.getKey(), e.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private Entry<T> live(String id) {
+        Entry<T> entry = games.get(id);
+        if (entry == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (isExpired(entry, now)) {
+            evict(id, entry);
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry;
+    }
+
+    private void evictOne() {
+        for (int probe = 0; probe < EVICTION_PROBES; probe++) {
+            Map.Entry<String, Entry<T>> oldest = oldestIn(randomRegion());
+            if (oldest != null) {
+                evict(oldest.getKey(), oldest.getValue());
+                return;
+            }
+        }
+        // Only a nearly empty table has no games in any of the regions tried
+        Iterator<Map.Entry<String, Entry<T>>> it = games.entrySet().iterator();
+        if (it.hasNext()) {
+            Map.Entry<String, Entry<T>> e = it.next();
+            evict(e.getKey(), e.getValue());
+        }
+    }
+
+    /*
+     * A random stretch of the hash table, holding a few times EVICTION_SAMPLE games: each
+     * split halves the table range, so getting there takes O(log n), and no part of the table
+     * is favoured over another.
+     */
+    private Spliterator<Map.Entry<String, Entry<T>>> randomRegion() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Spliterator<Map.Entry<String, Entry<T>>> region = games.entrySet().spliterator();
+        while (region.estimateSize() > 4L * EVICTION_SAMPLE) {
+            Spliterator<Map.Entry<String, Entry<T>>> half = region.trySplit();
+            if (half == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                region = half;
+            }
+        }
+        return region;
+    }
+
+    // The least recently used of the first EVICTION_SAMPLE games in the region
+    private Map.Entry<String, Entry<T>> oldestIn(Spliterator<Map.Entry<String, Entry<T>>> region) {
+        List<Map.Entry<String, Entry<T>>> sample = new ArrayList<>(EVICTION_SAMPLE);
+        for (int i = 0; i < EVICTION_SAMPLE; i++) {
+            if (!region.tryAdvance(sample::add)) {
+                break;
+            }
+        }
+        Map.Entry<String, Entry<T>> oldest = null;
+        for (Map.Entry<String, Entry<T>> e : sample) {
+            if (oldest == null || e.getValue().lastAccess - oldest.getValue().lastAccess < 0) {
+                oldest = e;
+            }
+        }
+        return oldest;
+    }
+
+    private boolean isExpired(Entry<T> entry, long now) {
+        return now - entry.lastAccess > idleTtlNanos;
+    }
+
+    private boolean evict(String id, Entry<T> entry) {
+        if (!games.remove(id, entry)) {
+            return false;
+        }
+        entry.removed = true;
+        evictions.increment();
+        return true;
+    }
+
+    private static final class Entry<T> {
+        final T game;
+        volatile long lastAccess;
+        volatile boolean removed;
+
+        Entry(T game, long lastAccess) {
+            this.game = game;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.shipwrecked.gamecenter.repository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Tokens that let a player move for one seat of a shared game. A game id only lets its holder
+ * watch; moving also takes the token of the seat whose turn it is. Tokens are an HMAC of the
+ * game id and seat under a server key, so nothing is stored per game, and they stay valid
+ * across restarts for as long as the key file does.
+ */
+public final class SeatTokens {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+    // 128 bits of the MAC are plenty to be unguessable and keep tokens short
+    private static final int TOKEN_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public SeatTokens(byte[] key) {
+        if (key.length < KEY_BYTES) {
+            throw new IllegalArgumentException("The key must have at least " + KEY_BYTES + " bytes");
+        }
+        this.key = new SecretKeySpec(key.clone(), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Reads the key from {@code file}, first creating it with a random key (readable only by
+     * its owner, where the file system allows) if there is none.
+     */
+    public static SeatTokens fromKeyFile(Path file) {
+        try {
+            if (!Files.exists(file)) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                byte[] key = new byte[KEY_BYTES];
+                new SecureRandom().nextBytes(key);
+                try {
+                    if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                        Files.createFile(file, PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+                    } else {
+                        Files.createFile(file);
+                    }
+                    Files.write(file, key);
+                    return new SeatTokens(key);
+                } catch (FileAlreadyExistsException e) {
+                    // Another process made it first; use theirs
+                }
+            }
+            return new SeatTokens(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read or create seat key " + file, e);
+        }
+    }
+
+    public String issue(String gameId, String seat) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac(gameId, seat));
+    }
+
+    // Whether token lets its holder move for this seat of this game
+    public boolean holds(String token, String gameId, String seat) {
+        if (token == null) {
+            return false;
+        }
+        byte[] presented;
+        try {
+            presented = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(presented, mac(gameId, seat));
+    }
+
+    private byte[] mac(String gameId, String seat) {
+        Mac mac = macs.get();
+        // The separator cannot occur in either part, so no two pairs share an input
+        byte[] full = mac.doFinal((gameId + "\n" + seat).getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(full, TOKEN_BYTES);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
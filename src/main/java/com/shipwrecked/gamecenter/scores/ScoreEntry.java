@@ -0,0 +1,5 @@
+package com.shipwrecked.gamecenter.scores;
+
+// One score on a high-score table; achievedAt is in epoch milliseconds
+public record ScoreEntry(String game, String player, long score, long achievedAt) {
+}
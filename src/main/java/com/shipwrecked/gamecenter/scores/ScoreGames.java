@@ -0,0 +1,22 @@
+package com.shipwrecked.gamecenter.scores;
+
+import java.util.Set;
+
+/**
+ * The games whose scores the web API takes. The score store keeps at most
+ * {@link ScoreStore#MAX_GAMES} games for good, so names must come from this list rather than
+ * from whoever posts first.
+ */
+public record ScoreGames(Set<String> names) {
+
+    public ScoreGames {
+        names = Set.copyOf(names);
+        if (names.size() > ScoreStore.MAX_GAMES) {
+            throw new IllegalArgumentException("At most " + ScoreStore.MAX_GAMES + " games can keep scores: " + names);
+        }
+    }
+
+    public boolean isKnown(String game) {
+        return names.contains(game);
+    }
+}
@@ -0,0 +1,413 @@
+package com.shipwrecked.gamecenter.scores;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+
+/**
+ * High-score tables for every game, kept in one memory-mapped file that the desktop launcher
+ * and the web server can share. Each game keeps its best {@link #GAME_CAPACITY} scores, with at
+ * most {@link #PLAYER_CAPACITY} from any one player.
+ *
+ * <p>The file holds a header and two slots. A save writes the whole table into the slot that
+ * does not hold the newest copy, under the next generation number, and readers take the newest
+ * slot whose checksum matches, so a crash mid-save leaves the previous table readable. Saves
+ * by another process are merged in on the next read or save.
+ *
+ * <p>In memory the table is an immutable snapshot replaced by compare-and-set, so submitting
+ * a score never blocks a game loop: saving, and its fsync, happen on a background thread,
+ * which writes only the newest snapshot however many submissions it covers. One store per
+ * file per process.
+ */
+public final class ScoreStore implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ScoreStore.class);
+
+    public static final int VERSION = 1;
+    public static final int GAME_CAPACITY = 1000;
+    public static final int PLAYER_CAPACITY = 10;
+    public static final int MAX_GAMES = 16;
+    public static final int MAX_NAME_LENGTH = 32;
+
+    // Best first; of equal scores, the earlier one ranks higher
+    public static final Comparator<ScoreEntry> RANKING =
+        Comparator.comparingLong(ScoreEntry::score).reversed().thenComparingLong(ScoreEntry::achievedAt);
+
+    private static final int MAGIC = 0x53434F52;
+    // magic, version, slot size, unused
+    private static final int HEADER_SIZE = 16;
+    // generation, payload length, CRC32C of both and the payload
+    private static final int SLOT_HEADER_SIZE = 16;
+    // Names are at most 3 bytes a character in UTF-8
+    private static final int MAX_NAME_BYTES = 2 + 3 * MAX_NAME_LENGTH;
+    private static final int SLOT_SIZE = SLOT_HEADER_SIZE + 2
+        + MAX_GAMES * (MAX_NAME_BYTES + 4 + GAME_CAPACITY * (MAX_NAME_BYTES + 16));
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicReference<Table> table = new AtomicReference<>(Table.EMPTY);
+    private final AtomicBoolean saving = new AtomicBoolean();
+    private final ExecutorService saver;
+    // Written only by the thread that set saving
+    private final CRC32C crc = new CRC32C();
+    private volatile Table saved = Table.EMPTY;
+    private volatile long fileGeneration;
+
+    // Shared by the desktop launcher and, unless scores.file says otherwise, the web server
+    public static Path defaultFile() {
+        return Path.of(System.getProperty("user.home"), ".gamecenter", "scores.dat");
+    }
+
+    public ScoreStore(Path file) {
+        this.file = file;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE);
+            // Released by hand: try-with-resources would leave the lock variable unused
+            FileLock lock = channel.lock();
+            try {
+                boolean created = channel.size() == 0;
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * SLOT_SIZE);
+                if (created) {
+                    buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, SLOT_SIZE);
+                    buffer.force(0, HEADER_SIZE);
+                } else if (buffer.getInt(0) != MAGIC) {
+                    throw new IOException("Not a score file");
+                } else if (buffer.getInt(4) != VERSION || buffer.getInt(8) != SLOT_SIZE) {
+                    throw new IOException("Unsupported score file version " + buffer.getInt(4));
+                }
+                load();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open score file " + file, e);
+        }
+        this.saver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "score-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Records a score. Returns true if it made the game's table, false if it ranks below
+     * everything kept. Throws IllegalArgumentException for a negative score, a blank or
+     * overlong name, or a game beyond the first {@link #MAX_GAMES}.
+     */
+    public boolean submit(String game, String player, long score) {
+        checkName("game", game);
+        checkName("player", player);
+        if (score < 0) {
+            throw new IllegalArgumentException("Score must not be negative: " + score);
+        }
+        ScoreEntry entry = new ScoreEntry(game, player, score, System.currentTimeMillis());
+        Table current;
+        Table next;
+        do {
+            current = table.get();
+            next = current.with(entry);
+            if (next == current) {
+                return false;
+            }
+        } while (!table.compareAndSet(current, next));
+        saver.execute(this::save);
+        return true;
+    }
+
+    // Best scores of a game, best first
+    public List<ScoreEntry> top(String game, int limit) {
+        List<ScoreEntry> scores = current().scores(game);
+        return scores.subList(0, Math.min(limit, scores.size()));
+    }
+
+    // Best scores of one player in a game, best first
+    public List<ScoreEntry> topForPlayer(String game, String player, int limit) {
+        return current().scores(game).stream()
+            .filter(entry -> entry.player().equals(player))
+            .limit(limit)
+            .toList();
+    }
+
+    // The player's best score in a game, 0 if there is none
+    public long best(String game, String player) {
+        List<ScoreEntry> best = topForPlayer(game, player, 1);
+        return best.isEmpty() ? 0 : best.get(0).score();
+    }
+
+    public List<String> games() {
+        return current().games.keySet().stream().sorted().toList();
+    }
+
+    // Saves anything still pending and releases the file
+    @Override
+    public void close() {
+        saver.shutdown();
+        try {
+            if (!saver.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Saving scores to {} is taking long; closing anyway", file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        save();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void checkName(String what, String name) {
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException(
+                "The " + what + " name must be 1 to " + MAX_NAME_LENGTH + " characters: " + name);
+        }
+    }
+
+    // The table, with any newer save from another process merged in first
+    private Table current() {
+        long newest = Math.max(buffer.getLong(slotOffset(0)), buffer.getLong(slotOffset(1)));
+        if (newest > fileGeneration && saving.compareAndSet(false, true)) {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    load();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                log.warn("Reading {} failed", file, e);
+            } finally {
+                saving.set(false);
+            }
+            if (table.get() != saved) {
+                saver.execute(this::save);
+            }
+        }
+        return table.get();
+    }
+
+    /*
+     * Writes the newest snapshot unless another thread is already saving or loading, in
+     * which case that thread notices the change once it is done and saves again.
+     */
+    private void save() {
+        while (saving.compareAndSet(false, true)) {
+            try {
+                if (table.get() == saved) {
+                    return;
+                }
+                FileLock lock = channel.lock();
+                try {
+                    write();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                log.warn("Saving scores to {} failed", file, e);
+                return;
+            } finally {
+                saving.set(false);
+            }
+            if (table.get() == saved) {
+                return;
+            }
+        }
+    }
+
+    // Called holding the file lock: merges the file's newest table into ours
+    private void load() {
+        int slot = newestSlot();
+        if (slot < 0) {
+            return;
+        }
+        long generation = buffer.getLong(slotOffset(slot));
+        if (generation <= fileGeneration) {
+            return;
+        }
+        Table theirs = decode(slot);
+        Table merged = table.updateAndGet(ours -> ours.merge(theirs));
+        if (theirs.equals(merged)) {
+            saved = merged;
+        }
+        fileGeneration = generation;
+    }
+
+    // Called holding the file lock
+    private void write() throws IOException {
+        load();
+        Table pending = table.get();
+        int target = newestSlot() == 0 ? 1 : 0;
+        int offset = slotOffset(target);
+        ByteBuffer slot = buffer.slice(offset, SLOT_SIZE);
+
+        slot.position(SLOT_HEADER_SIZE);
+        slot.putShort((short) pending.games.size());
+        for (var game : pending.games.entrySet()) {
+            putName(slot, game.getKey());
+            slot.putInt(game.getValue().size());
+            for (ScoreEntry entry : game.getValue()) {
+                putName(slot, entry.player());
+                slot.putLong(entry.score());
+                slot.putLong(entry.achievedAt());
+            }
+        }
+        int length = slot.position() - SLOT_HEADER_SIZE;
+        long generation = fileGeneration + 1;
+        slot.putLong(0, generation);
+        slot.putInt(8, length);
+        slot.putInt(12, checksum(target, length));
+        buffer.force(offset, SLOT_HEADER_SIZE + length);
+
+        fileGeneration = generation;
+        saved = pending;
+    }
+
+    // The slot with the highest generation whose checksum matches, or -1 if neither does
+    private int newestSlot() {
+        int newest = -1;
+        long newestGeneration = 0;
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = slotOffset(slot);
+            long generation = buffer.getLong(offset);
+            int length = buffer.getInt(offset + 8);
+            if (generation > newestGeneration && length >= 0 && length <= SLOT_SIZE - SLOT_HEADER_SIZE
+                    && buffer.getInt(offset + 12) == checksum(slot, length)) {
+                newest = slot;
+                newestGeneration = generation;
+            }
+        }
+        return newest;
+    }
+
+    private int checksum(int slot, int length) {
+        int offset = slotOffset(slot);
+        crc.reset();
+        crc.update(buffer.slice(offset, 12));
+        crc.update(buffer.slice(offset + SLOT_HEADER_SIZE, length));
+        return (int) crc.getValue();
+    }
+
+    private Table decode(int slot) {
+        ByteBuffer in = buffer.slice(slotOffset(slot) + SLOT_HEADER_SIZE, SLOT_SIZE - SLOT_HEADER_SIZE);
+        Map<String, List<ScoreEntry>> games = new HashMap<>();
+        try {
+            int gameCount = in.getShort();
+            for (int g = 0; g < gameCount; g++) {
+                String game = getName(in);
+                int count = Math.min(in.getInt(), GAME_CAPACITY);
+                List<ScoreEntry> scores = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    scores.add(new ScoreEntry(game, getName(in), in.getLong(), in.getLong()));
+                }
+                scores.sort(RANKING);
+                games.put(game, List.copyOf(scores));
+            }
+        } catch (BufferUnderflowException e) {
+            // The checksum matched, so this is a bug rather than a torn write; keep what was read
+            log.warn("Score file {} is malformed", file, e);
+        }
+        return new Table(Map.copyOf(games));
+    }
+
+    private static void putName(ByteBuffer out, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getName(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    // Immutable scores of every game, each list best first
+    private record Table(Map<String, List<ScoreEntry>> games) {
+        static final Table EMPTY = new Table(Map.of());
+
+        List<ScoreEntry> scores(String game) {
+            return games.getOrDefault(game, List.of());
+        }
+
+        // This table with the entry added, or this same table if the entry is not kept
+        Table with(ScoreEntry entry) {
+            List<ScoreEntry> old = scores(entry.game());
+            if (old.isEmpty() && games.size() >= MAX_GAMES) {
+                throw new IllegalArgumentException("Only " + MAX_GAMES + " games can keep scores");
+            }
+            int at = 0;
+            while (at < old.size() && RANKING.compare(old.get(at), entry) <= 0) {
+                at++;
+            }
+            List<ScoreEntry> scores = new ArrayList<>(old.size() + 1);
+            scores.addAll(old);
+            scores.add(at, entry);
+
+            int fromPlayer = 0;
+            for (int i = 0; i < scores.size(); i++) {
+                if (scores.get(i).player().equals(entry.player()) && ++fromPlayer > PLAYER_CAPACITY) {
+                    scores.remove(i);
+                    break;
+                }
+            }
+            if (scores.size() > GAME_CAPACITY) {
+                scores.remove(scores.size() - 1);
+            }
+            if (!scores.contains(entry)) {
+                return this;
+            }
+            Map<String, List<ScoreEntry>> next = new HashMap<>(games);
+            next.put(entry.game(), List.copyOf(scores));
+            return new Table(Map.copyOf(next));
+        }
+
+        // Both tables' scores, under the same limits
+        Table merge(Table other) {
+            Table merged = this;
+            for (List<ScoreEntry> scores : other.games.values()) {
+                for (ScoreEntry entry : scores) {
+                    if (!merged.scores(entry.game()).contains(entry)) {
+                        try {
+                            merged = merged.with(entry);
+                        } catch (IllegalArgumentException e) {
+                            break; // a game over the limit; drop its scores
+                        }
+                    }
+                }
+            }
+            return merged;
+        }
+    }
+}
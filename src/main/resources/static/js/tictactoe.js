@@ -1,6 +1,8 @@
 class TicTacToe {
     constructor() {
         this.gameId = null;
+        // Seat tokens for X and O; this page plays both seats
+        this.seats = {};
         this.board = Array(9).fill(null);
         this.currentPlayer = 'X';
         this.gameEnded = false;
@@ -29,7 +31,8 @@ class TicTacToe {
         if (this.board[index] || this.gameEnded) return;
         
         try {
-            const response = await fetch(`/api/tictactoe/${this.gameId}/move?position=${index}`, {
+            const token = encodeURIComponent(this.seats[this.currentPlayer]);
+            const response = await fetch(`/api/tictactoe/${this.gameId}/move?position=${index}&token=${token}`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -87,6 +90,7 @@ class TicTacToe {
             
             const gameState = await response.json();
             this.gameId = gameState.gameId;
+            this.seats = gameState.seats;
             this.gameEnded = false;
             this.updateGameState(gameState);
         } catch (error) {
@@ -0,0 +1,84 @@
+package com.shipwrecked.gamecenter.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class TicTacToeEventsTest {
+    private final TicTacToeEvents events = new TicTacToeEvents(mock(SimpMessagingTemplate.class));
+
+    @Test
+    void countsViewersPerGame() {
+        subscribe("s1", "a", "game-1");
+        subscribe("s1", "b", "game-2");
+        subscribe("s2", "a", "game-1");
+
+        assertEquals(2, events.viewerCount("game-1"));
+        assertEquals(1, events.viewerCount("game-2"));
+    }
+
+    @Test
+    void unsubscribeLeavesOnlyThatGame() {
+        subscribe("s1", "a", "game-1");
+        subscribe("s1", "b", "game-2");
+
+        events.onUnsubscribe(new SessionUnsubscribeEvent(this, message(StompCommand.UNSUBSCRIBE, "s1", "a", null)));
+        // Unknown subscriptions change nothing
+        events.onUnsubscribe(new SessionUnsubscribeEvent(this, message(StompCommand.UNSUBSCRIBE, "s1", "a", null)));
+        events.onUnsubscribe(new SessionUnsubscribeEvent(this, message(StompCommand.UNSUBSCRIBE, "s9", "a", null)));
+
+        assertEquals(0, events.viewerCount("game-1"));
+        assertEquals(1, events.viewerCount("game-2"));
+    }
+
+    @Test
+    void disconnectLeavesEverythingTheSessionWatched() {
+        subscribe("s1", "a", "game-1");
+        subscribe("s1", "b", "game-1");
+        subscribe("s1", "c", "game-2");
+        subscribe("s2", "a", "game-1");
+
+        disconnect("s1");
+        disconnect("s1");
+
+        assertEquals(1, events.viewerCount("game-1"));
+        assertEquals(0, events.viewerCount("game-2"));
+    }
+
+    @Test
+    void ignoresOtherDestinations() {
+        events.onSubscribe(new SessionSubscribeEvent(this, message(StompCommand.SUBSCRIBE, "s1", "a", "/user/queue/errors")));
+        disconnect("s1");
+
+        assertEquals(0, events.viewerCount("game-1"));
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String gameId) {
+        events.onSubscribe(new SessionSubscribeEvent(this,
+            message(StompCommand.SUBSCRIBE, sessionId, subscriptionId, TicTacToeEvents.TOPIC_PREFIX + gameId)));
+    }
+
+    private void disconnect(String sessionId) {
+        Message<byte[]> message = message(StompCommand.DISCONNECT, sessionId, null, null);
+        events.onDisconnect(new SessionDisconnectEvent(this, message, sessionId, CloseStatus.NORMAL));
+    }
+
+    private static Message<byte[]> message(StompCommand command, String sessionId, String subscriptionId,
+                                           String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,35 @@
+package com.shipwrecked.gamecenter.engine;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PerftTest {
+    // Each position goes as deep as this many leaves allows, which keeps the suite to seconds
+    private static final long NODE_BUDGET = 5_000_000L;
+
+    static Stream<Arguments> referencePositions() {
+        return Arrays.stream(Perft.SUITE).map(entry -> Arguments.of(entry[0], entry[1], entry[2]));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("referencePositions")
+    void matchesTheReferenceCounts(String name, String fen, long[] expected) {
+        Perft perft = new Perft();
+        Position position = Fen.parse(fen);
+        long hash = position.hash();
+
+        for (int depth = 1; depth <= expected.length && expected[depth - 1] <= NODE_BUDGET; depth++) {
+            assertEquals(expected[depth - 1], perft.perft(position, depth), name + " at depth " + depth);
+        }
+
+        // Every move was taken back again
+        assertEquals(fen, Fen.toFen(position));
+        assertEquals(hash, position.hash());
+    }
+}
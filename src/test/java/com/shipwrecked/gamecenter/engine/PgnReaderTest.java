@@ -0,0 +1,91 @@
+package com.shipwrecked.gamecenter.engine;
+
+import com.shipwrecked.gamecenter.models.ChessGame;
+import com.shipwrecked.gamecenter.models.GameStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PgnReaderTest {
+    private static final String SCHOLARS_MATE = """
+        [Event "Casual"]
+        [White "Alice"]
+        [Black "Bob"]
+        [Result "1-0"]
+
+        1. e4 {the usual} e5 2. Bc4 $1 Nc6 (2... Nf6 3. d3) 3. Qh5 Nf6?? ; not again
+        4. Qxf7# 1-0
+        """;
+
+    @Test
+    void importSkipsCommentsVariationsAndNags() {
+        ChessGame game = ChessGame.fromPgn(SCHOLARS_MATE);
+
+        assertEquals(7, game.getMoveCount());
+        assertEquals(GameStatus.CHECKMATE, game.getStatus());
+        assertEquals("White", game.getWinner());
+        assertEquals("r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4", game.getFen());
+    }
+
+    @Test
+    void importStartsFromTheFenTag() {
+        ChessGame game = ChessGame.fromPgn("""
+            [FEN "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"]
+            1. e4 Kd7 *
+            """);
+
+        assertEquals("8/3k4/8/8/4P3/8/8/4K3 w - - 1 2", game.getFen());
+    }
+
+    @Test
+    void exportedGameImportsBack() {
+        ChessGame game = ChessGame.fromPgn(SCHOLARS_MATE);
+
+        String pgn = game.toPgn(Map.of("Event", "Copy"));
+        ChessGame copy = ChessGame.fromPgn(pgn);
+
+        assertEquals(game.getFen(), copy.getFen());
+        assertEquals(pgn, copy.toPgn(Map.of("Event", "Copy")));
+    }
+
+    @Test
+    void importRejectsIllegalMoves() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromPgn("1. e4 e5 2. Ke3 *"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromPgn("; only a comment"));
+    }
+
+    @Test
+    void readerCountsValidAndRejectedGames() throws IOException {
+        String pgn = SCHOLARS_MATE
+            + "\n[Event \"Bad\"]\n1. e4 e4 *\n"
+            + "\n[Event \"No result\"]\n1. d4 d5\n"
+            + "\n[Event \"Last\"]\n1. Nf3 1/2-1/2\n";
+        List<PgnGame> games = new CopyOnWriteArrayList<>();
+
+        PgnReader.Stats stats = new PgnReader(2).read(new StringReader(pgn), games::add);
+
+        assertEquals(new PgnReader.Stats(3, 1), stats);
+        assertEquals(3, games.size());
+        assertEquals(7, games.stream().filter(game -> "Casual".equals(game.getTag("Event")))
+            .findFirst().orElseThrow().getMoveCount());
+    }
+
+    @Test
+    void consumerFailureStopsTheRead() {
+        IllegalStateException failure = new IllegalStateException("full");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+            () -> new PgnReader(2).read(new StringReader(SCHOLARS_MATE + SCHOLARS_MATE), game -> {
+                throw failure;
+            }));
+
+        assertEquals(failure, thrown);
+    }
+}
@@ -0,0 +1,67 @@
+package com.shipwrecked.gamecenter.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PositionCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        Fen.START_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "8/2k5/8/8/8/8/5K2/8 b - - 99 187",
+        "7k/8/8/8/8/8/8/K7 w - - 0 1",
+    })
+    void roundTripsThePosition(String fen) {
+        Position position = Fen.parse(fen);
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.encodedSize(position));
+
+        PositionCodec.write(position, buffer);
+        Position copy = new Position();
+        PositionCodec.read(buffer.flip(), copy);
+
+        assertEquals(0, buffer.remaining());
+        assertEquals(fen, Fen.toFen(copy));
+        assertEquals(position.hash(), copy.hash());
+    }
+
+    @Test
+    void startPositionTakesThirtyBytes() {
+        assertEquals(30, PositionCodec.encodedSize(Fen.parse(Fen.START_POSITION)));
+    }
+
+    @Test
+    void readReplacesWhatThePositionHeld() {
+        Position empty = Fen.parse("7k/8/8/8/8/8/8/K7 w - - 0 1");
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.encodedSize(empty));
+        PositionCodec.write(empty, buffer);
+
+        Position position = Fen.parse(Fen.START_POSITION);
+        PositionCodec.read(buffer.flip(), position);
+
+        assertEquals("7k/8/8/8/8/8/8/K7 w - - 0 1", Fen.toFen(position));
+    }
+
+    @Test
+    void rejectsTruncatedAndBadData() {
+        Position position = Fen.parse(Fen.START_POSITION);
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.encodedSize(position));
+        PositionCodec.write(position, buffer);
+        byte[] data = buffer.array();
+
+        byte[] truncated = Arrays.copyOf(data, data.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.read(ByteBuffer.wrap(truncated), new Position()));
+
+        byte[] badPiece = data.clone();
+        badPiece[8] = (byte) 0xF0;
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.read(ByteBuffer.wrap(badPiece), new Position()));
+    }
+}
@@ -0,0 +1,119 @@
+package com.shipwrecked.gamecenter.journal;
+
+import com.shipwrecked.gamecenter.models.ChessGame;
+import com.shipwrecked.gamecenter.models.ChessMove;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournaledGameRepositoryTest {
+    private static final Duration IDLE_TTL = Duration.ofHours(1);
+    private static final Duration COMMIT_INTERVAL = Duration.ofMillis(5);
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replacedMoveSurvivesACrash() {
+        JournaledGameRepository<ChessGame> repository = open();
+        String id = repository.create(new ChessGame());
+        repository.update(id, game -> move(game, 6, 4, 4, 4));
+        // Same number of moves before and after, but a different game
+        repository.update(id, game -> game.undoMove() && move(game, 6, 3, 4, 3));
+        String fen = repository.find(id).orElseThrow().getFen();
+        repository.abandon();
+
+        JournaledGameRepository<ChessGame> recovered = open();
+        try {
+            assertEquals(fen, recovered.find(id).orElseThrow().getFen());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void recoversFromASnapshotAndTheMovesAfterIt() throws IOException {
+        JournaledGameRepository<ChessGame> repository = open();
+        String id = repository.create(new ChessGame());
+        repository.update(id, game -> move(game, 6, 4, 4, 4));
+        repository.snapshot();
+        repository.update(id, game -> move(game, 1, 4, 3, 4));
+        repository.update(id, game -> move(game, 7, 6, 5, 5));
+        String removed = repository.create(new ChessGame());
+        assertTrue(repository.remove(removed));
+        String fen = repository.find(id).orElseThrow().getFen();
+        repository.abandon();
+
+        JournaledGameRepository<ChessGame> recovered = open();
+        try {
+            assertEquals(fen, recovered.find(id).orElseThrow().getFen());
+            assertEquals(3, recovered.find(id).orElseThrow().getMoveCount());
+            assertTrue(recovered.find(removed).isEmpty());
+            assertEquals(1, recovered.size());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void callbacksRunBeforeUpdateReturnsAndInUpdateOrder() throws Exception {
+        JournaledGameRepository<ChessGame> repository = open();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            String id = repository.create(new ChessGame());
+            AtomicInteger made = new AtomicInteger();
+            List<Integer> published = Collections.synchronizedList(new ArrayList<>());
+            List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                workers.add(threads.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        // Every update changes the game, so every one is journaled
+                        int update = repository.update(id, game -> {
+                            if (game.getMoveCount() == 0) {
+                                move(game, 6, 4, 4, 4);
+                            } else {
+                                game.undoMove();
+                            }
+                            return made.getAndIncrement();
+                        }, published::add).orElseThrow();
+                        assertTrue(published.contains(update));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+
+            assertEquals(IntStream.range(0, 100).boxed().toList(), published);
+        } finally {
+            threads.shutdown();
+            repository.close();
+        }
+    }
+
+    private JournaledGameRepository<ChessGame> open() {
+        return new JournaledGameRepository<>(directory, new ChessJournalAdapter(), 100, IDLE_TTL,
+                                             COMMIT_INTERVAL, SNAPSHOT_INTERVAL, true);
+    }
+
+    private static boolean move(ChessGame game, int fromRow, int fromCol, int toRow, int toCol) {
+        game.makeMove(new ChessMove(fromRow, fromCol, toRow, toCol));
+        return true;
+    }
+}
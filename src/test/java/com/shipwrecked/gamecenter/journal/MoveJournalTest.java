@@ -0,0 +1,152 @@
+package com.shipwrecked.gamecenter.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoveJournalTest {
+    private static final int SEGMENT_RECORDS = 4;
+    private static final Duration COMMIT_INTERVAL = Duration.ofMillis(5);
+    private static final UUID GAME = new UUID(1, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenReplaysEverythingAppended() {
+        append(10);
+
+        try (MoveJournal journal = open()) {
+            assertEquals(10, journal.lastSequence());
+            assertEquals(values(1, 10), replay(journal, 1));
+            assertEquals(values(7, 10), replay(journal, 7));
+        }
+    }
+
+    @Test
+    void recoveryStopsAtATornRecord() throws IOException {
+        append(7);
+        // Record 7 is the third of the second segment; tear it
+        corrupt(5, 2);
+
+        try (MoveJournal journal = open()) {
+            assertEquals(6, journal.lastSequence());
+            assertEquals(values(1, 6), replay(journal, 1));
+        }
+    }
+
+    @Test
+    void recoveryDropsSegmentsAfterATornRecord() throws IOException {
+        append(10);
+        corrupt(1, 2);
+
+        try (MoveJournal journal = open()) {
+            assertEquals(2, journal.lastSequence());
+            assertEquals(values(1, 2), replay(journal, 1));
+        }
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void appendsAfterRecoveryReplaceTheTornTail() throws IOException {
+        append(10);
+        corrupt(5, 0);
+
+        try (MoveJournal journal = open()) {
+            assertEquals(4, journal.lastSequence());
+            for (int i = 0; i < 3; i++) {
+                journal.append(GAME, JournalRecord.MOVE, 100 + i);
+            }
+        }
+
+        // Records 8 to 10 of the old tail had good checksums but must not come back
+        try (MoveJournal journal = open()) {
+            assertEquals(7, journal.lastSequence());
+            assertEquals(List.of(1, 2, 3, 4, 100, 101, 102), replay(journal, 1));
+        }
+    }
+
+    @Test
+    void discardKeepsTheSegmentsStillNeeded() {
+        append(10);
+
+        try (MoveJournal journal = open()) {
+            journal.discardBefore(6);
+            assertEquals(values(5, 10), replay(journal, 1));
+        }
+        try (MoveJournal journal = open()) {
+            assertEquals(10, journal.lastSequence());
+            assertEquals(values(5, 10), replay(journal, 1));
+        }
+    }
+
+    private MoveJournal open() {
+        return new MoveJournal(directory, SEGMENT_RECORDS, COMMIT_INTERVAL);
+    }
+
+    // Appends records whose values are their sequence numbers
+    private void append(int count) {
+        try (MoveJournal journal = open()) {
+            for (int i = 0; i < count; i++) {
+                long sequence = journal.append(GAME, JournalRecord.MOVE, (int) journal.lastSequence() + 1);
+                journal.awaitDurable(sequence);
+            }
+        }
+    }
+
+    // The values replayed, checking that sequence numbers run on without gaps
+    private static List<Integer> replay(MoveJournal journal, long fromSequence) {
+        List<Integer> values = new ArrayList<>();
+        long[] previous = {0};
+        journal.replay(fromSequence, record -> {
+            assertEquals(GAME, record.gameId());
+            if (previous[0] != 0) {
+                assertEquals(previous[0] + 1, record.sequence());
+            }
+            previous[0] = record.sequence();
+            values.add(record.value());
+        });
+        return values;
+    }
+
+    private static List<Integer> values(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int value = from; value <= to; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    // Flips a byte of the given record's value, as a write cut short by a crash would leave it
+    private void corrupt(long firstSequence, int record) throws IOException {
+        Path file = segmentFiles().stream()
+            .filter(path -> path.getFileName().toString().equals(String.format("journal-%020d.log", firstSequence)))
+            .findFirst().orElseThrow();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            long offset = (long) record * MoveJournal.RECORD_SIZE + 26;
+            channel.read(value, offset);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, offset);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+}
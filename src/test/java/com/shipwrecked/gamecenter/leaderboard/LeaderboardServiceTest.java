@@ -0,0 +1,102 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardServiceTest {
+    private static final Duration SAVE_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsEachPlayersBestScore() {
+        try (LeaderboardService service = new LeaderboardService(100, 10)) {
+            service.submit("dino", "alice", 30);
+            service.submit("dino", "bob", 20);
+            service.submit("dino", "alice", 10);
+            service.submit("dino", "bob", 40);
+            service.awaitApplied();
+
+            Leaderboard leaderboard = service.leaderboard("dino").orElseThrow();
+            assertEquals(List.of(new RankedScore(1, "bob", 40), new RankedScore(2, "alice", 30)),
+                         leaderboard.snapshot().top(0, 10));
+            assertEquals(new RankedScore(2, "alice", 30), leaderboard.rank("alice").orElseThrow());
+            assertTrue(leaderboard.rank("carol").isEmpty());
+        }
+    }
+
+    @Test
+    void fullRankingSurvivesARestart() {
+        Path file = directory.resolve("leaderboard.dat");
+        try (LeaderboardService service = new LeaderboardService(10_000, 100, file, SAVE_INTERVAL)) {
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(service.submit(i % 2 == 0 ? "dino" : "chess", "p" + i, i));
+            }
+        }
+
+        try (LeaderboardService service = new LeaderboardService(10_000, 100, file, SAVE_INTERVAL)) {
+            Leaderboard.Snapshot dino = service.leaderboard("dino").orElseThrow().snapshot();
+            assertEquals(1000, dino.size());
+            assertEquals(new RankedScore(1, "p1998", 1998), dino.top(0, 1).get(0));
+            assertEquals(new RankedScore(1000, "p0", 0), dino.top(999, 1).get(0));
+            assertEquals(1000, service.leaderboard("chess").orElseThrow().snapshot().size());
+
+            // Loaded players still only move up
+            service.submit("dino", "p0", 5000);
+            service.submit("dino", "p1998", 1);
+            service.awaitApplied();
+            assertEquals(new RankedScore(1, "p0", 5000), service.leaderboard("dino").orElseThrow().rank("p0").orElseThrow());
+            assertEquals(1998, service.leaderboard("dino").orElseThrow().rank("p1998").orElseThrow().score());
+        }
+    }
+
+    @Test
+    void unreadableFileStartsEmpty() throws IOException {
+        Path file = directory.resolve("leaderboard.dat");
+        Files.writeString(file, "not a leaderboard");
+
+        try (LeaderboardService service = new LeaderboardService(100, 10, file, SAVE_INTERVAL)) {
+            assertTrue(service.leaderboard("dino").isEmpty());
+            service.submit("dino", "alice", 1);
+        }
+
+        try (LeaderboardService service = new LeaderboardService(100, 10, file, SAVE_INTERVAL)) {
+            assertEquals(1, service.leaderboard("dino").orElseThrow().snapshot().size());
+        }
+    }
+
+    @Test
+    void fullQueueTurnsScoresAway() {
+        try (LeaderboardService service = new LeaderboardService(1, 1)) {
+            // The writer takes scores off the queue as they come, so offer until one is refused
+            boolean refused = false;
+            for (int i = 0; i < 1_000_000 && !refused; i++) {
+                refused = !service.submit("dino", "p" + (i % 1000), i);
+            }
+            assertTrue(refused);
+        }
+    }
+
+    @Test
+    void rejectsBadScores() {
+        try (LeaderboardService service = new LeaderboardService(100, 10)) {
+            assertThrows(IllegalArgumentException.class, () -> service.submit("dino", "alice", -1));
+            assertThrows(IllegalArgumentException.class, () -> service.submit("", "alice", 1));
+            assertThrows(IllegalArgumentException.class,
+                () -> service.submit("dino", "a".repeat(LeaderboardService.MAX_NAME_LENGTH + 1), 1));
+            assertFalse(service.leaderboard("").isPresent());
+        }
+    }
+}
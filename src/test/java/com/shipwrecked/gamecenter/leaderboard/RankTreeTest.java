@@ -0,0 +1,113 @@
+package com.shipwrecked.gamecenter.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankTreeTest {
+    private record Entry(long score, String player) {
+    }
+
+    // The order RankTree keeps: higher scores first, equal scores in player order
+    private static final Comparator<Entry> ORDER =
+        Comparator.comparingLong(Entry::score).reversed().thenComparing(Entry::player);
+
+    @Test
+    void rankAndTopMatchASortedList() {
+        SplittableRandom random = new SplittableRandom(7);
+        Map<String, Long> best = new HashMap<>();
+        TreeSet<Entry> expected = new TreeSet<>(ORDER);
+        RankTree.Node root = null;
+
+        for (int round = 0; round < 200; round++) {
+            RankTree.Batch batch = new RankTree.Batch(root);
+            int changes = 1 + random.nextInt(50);
+            for (int i = 0; i < changes; i++) {
+                String player = "p" + random.nextInt(300);
+                // Few distinct scores, so many entries tie and are ordered by player
+                long score = random.nextInt(100);
+                Long old = best.get(player);
+                if (old != null) {
+                    batch.remove(old, player);
+                    expected.remove(new Entry(old, player));
+                }
+                if (random.nextInt(10) == 0) {
+                    best.remove(player);
+                    continue;
+                }
+                batch.insert(score, player);
+                expected.add(new Entry(score, player));
+                best.put(player, score);
+            }
+            root = batch.finish();
+            assertMatches(new ArrayList<>(expected), root, random);
+        }
+    }
+
+    @Test
+    void publishedTreesNeverChange() {
+        RankTree.Batch first = new RankTree.Batch(null);
+        for (int i = 0; i < 100; i++) {
+            first.insert(i, "p" + i);
+        }
+        RankTree.Node before = first.finish();
+        List<Entry> beforeEntries = entries(before);
+
+        RankTree.Batch second = new RankTree.Batch(before);
+        for (int i = 0; i < 100; i += 2) {
+            second.remove(i, "p" + i);
+            second.insert(i + 1000, "p" + i);
+        }
+        RankTree.Node after = second.finish();
+
+        assertEquals(beforeEntries, entries(before));
+        assertEquals(100, RankTree.size(after));
+        assertEquals(new Entry(1098, "p98"), entries(after).get(0));
+    }
+
+    @Test
+    void emptyTree() {
+        List<RankTree.Node> nodes = new ArrayList<>();
+        RankTree.collect(null, 0, 10, nodes);
+
+        assertEquals(0, RankTree.size(null));
+        assertEquals(List.of(), nodes);
+        assertEquals(-1, RankTree.countAhead(null, 5, "p"));
+    }
+
+    private static void assertMatches(List<Entry> expected, RankTree.Node root, SplittableRandom random) {
+        assertEquals(expected.size(), RankTree.size(root));
+        assertEquals(expected, entries(root));
+
+        for (int rank = 0; rank < expected.size(); rank++) {
+            Entry entry = expected.get(rank);
+            assertEquals(rank, RankTree.countAhead(root, entry.score(), entry.player()));
+        }
+        // An entry not in the tree reports where it would go
+        Entry absent = new Entry(random.nextInt(100), "q" + random.nextInt(1000));
+        int ahead = (int) expected.stream().filter(entry -> ORDER.compare(entry, absent) < 0).count();
+        assertEquals(-(ahead + 1), RankTree.countAhead(root, absent.score(), absent.player()));
+
+        int offset = random.nextInt(expected.size() + 5);
+        int limit = 1 + random.nextInt(40);
+        List<RankTree.Node> nodes = new ArrayList<>();
+        RankTree.collect(root, offset, limit, nodes);
+        List<Entry> page = nodes.stream().map(node -> new Entry(node.score, node.player)).toList();
+        int from = Math.min(offset, expected.size());
+        assertEquals(expected.subList(from, Math.min(expected.size(), from + limit)), page);
+    }
+
+    private static List<Entry> entries(RankTree.Node root) {
+        List<Entry> entries = new ArrayList<>();
+        RankTree.forEach(root, (player, score) -> entries.add(new Entry(score, player)));
+        return entries;
+    }
+}
@@ -0,0 +1,183 @@
+package com.shipwrecked.gamecenter.matchmaking;
+
+import com.shipwrecked.gamecenter.repository.SeatTokens;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchmakerTest {
+    private static final int RATING_BAND = 50;
+    private static final double BAND_GROWTH_PER_SECOND = 10;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(60);
+
+    private final SeatTokens seatTokens = new SeatTokens(new byte[32]);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<MatchTicket> notified = new ArrayList<>();
+    private long now;
+    private int gamesCreated;
+    private Consumer<MatchTicket> onNotify = ticket -> { };
+    private Matchmaker matchmaker = open();
+
+    @AfterEach
+    void close() {
+        matchmaker.close();
+    }
+
+    @Test
+    void pairsNeighboursWithinTheBand() {
+        MatchTicket a = matchmaker.join(GameType.TICTACTOE, 1000);
+        MatchTicket b = matchmaker.join(GameType.TICTACTOE, 1500);
+        MatchTicket c = matchmaker.join(GameType.TICTACTOE, 1040);
+        MatchTicket d = matchmaker.join(GameType.TICTACTOE, 1460);
+
+        matchmaker.tick();
+
+        assertPaired(a, c);
+        assertPaired(b, d);
+        assertNotEquals(a.getGameId(), b.getGameId());
+        assertEquals(2, gamesCreated);
+        assertEquals(Set.of(a, b, c, d), Set.copyOf(notified));
+        assertEquals(0, queueDepth());
+    }
+
+    @Test
+    void bandWidensWithTheLongerWait() {
+        MatchTicket low = matchmaker.join(GameType.TICTACTOE, 1000);
+        now += seconds(5);
+        MatchTicket high = matchmaker.join(GameType.TICTACTOE, 1150);
+
+        // 150 apart needs the first player to have waited 10 seconds
+        matchmaker.tick();
+        now += seconds(4);
+        matchmaker.tick();
+        assertEquals(MatchTicket.Status.WAITING, low.getStatus());
+        assertEquals(2, queueDepth());
+
+        now += seconds(2);
+        matchmaker.tick();
+
+        assertPaired(low, high);
+        assertEquals(0, queueDepth());
+    }
+
+    @Test
+    void expiresAfterTheLongestWait() {
+        MatchTicket ticket = matchmaker.join(GameType.TICTACTOE, null);
+        now += MAX_WAIT.toNanos();
+        matchmaker.tick();
+        assertEquals(MatchTicket.Status.WAITING, ticket.getStatus());
+
+        now += 1;
+        matchmaker.tick();
+
+        assertEquals(MatchTicket.Status.EXPIRED, ticket.getStatus());
+        assertEquals(List.of(ticket), notified);
+        assertEquals(0, queueDepth());
+        assertFalse(matchmaker.cancel(ticket.getId()));
+    }
+
+    @Test
+    void cancelledTicketIsNotPaired() {
+        MatchTicket cancelled = matchmaker.join(GameType.TICTACTOE, 1000);
+        MatchTicket other = matchmaker.join(GameType.TICTACTOE, 1000);
+        assertTrue(matchmaker.cancel(cancelled.getId()));
+        assertFalse(matchmaker.cancel(cancelled.getId()));
+
+        matchmaker.tick();
+
+        assertEquals(MatchTicket.Status.CANCELLED, cancelled.getStatus());
+        assertEquals(MatchTicket.Status.WAITING, other.getStatus());
+        assertEquals(0, gamesCreated);
+        assertEquals(1, queueDepth());
+    }
+
+    @Test
+    void candidateCancelledDuringThePassIsRetiredOnce() {
+        // Expiring the ticket rated between the two tells the listener, which cancels the
+        // lower one after the pass has already taken it as the candidate to pair
+        MatchTicket expiring = matchmaker.join(GameType.TICTACTOE, 1001);
+        now += seconds(50);
+        MatchTicket low = matchmaker.join(GameType.TICTACTOE, 1000);
+        MatchTicket high = matchmaker.join(GameType.TICTACTOE, 1002);
+        onNotify = ticket -> {
+            if (ticket == expiring) {
+                assertTrue(matchmaker.cancel(low.getId()));
+            }
+        };
+        now += seconds(11);
+
+        matchmaker.tick();
+
+        assertEquals(MatchTicket.Status.EXPIRED, expiring.getStatus());
+        assertEquals(MatchTicket.Status.CANCELLED, low.getStatus());
+        assertEquals(MatchTicket.Status.WAITING, high.getStatus());
+        assertEquals(0, gamesCreated);
+        assertEquals(1, queueDepth());
+
+        // The one left over pairs with the next player as usual
+        MatchTicket next = matchmaker.join(GameType.TICTACTOE, 1010);
+        matchmaker.tick();
+
+        assertPaired(high, next);
+        assertEquals(0, queueDepth());
+    }
+
+    @Test
+    void finishedTicketsAreForgottenAfterAWhile() {
+        MatchTicket a = matchmaker.join(GameType.TICTACTOE, 1000);
+        MatchTicket b = matchmaker.join(GameType.TICTACTOE, 1000);
+        matchmaker.tick();
+        assertTrue(matchmaker.find(a.getId()).isPresent());
+
+        now += TimeUnit.MINUTES.toNanos(6);
+        matchmaker.tick();
+
+        assertTrue(matchmaker.find(a.getId()).isEmpty());
+        assertTrue(matchmaker.find(b.getId()).isEmpty());
+    }
+
+    @Test
+    void rejectsGamesWithoutMatchmaking() {
+        assertThrows(IllegalArgumentException.class, () -> matchmaker.join(GameType.CHESS, 1000));
+    }
+
+    private Matchmaker open() {
+        return new Matchmaker(Map.of(GameType.TICTACTOE, () -> "game-" + ++gamesCreated),
+                              ticket -> {
+                                  notified.add(ticket);
+                                  onNotify.accept(ticket);
+                              },
+                              seatTokens, registry, RATING_BAND, BAND_GROWTH_PER_SECOND, MAX_WAIT, () -> now);
+    }
+
+    private void assertPaired(MatchTicket a, MatchTicket b) {
+        assertEquals(MatchTicket.Status.MATCHED, a.getStatus());
+        assertEquals(MatchTicket.Status.MATCHED, b.getStatus());
+        assertEquals(a.getGameId(), b.getGameId());
+        assertEquals(Set.of("X", "O"), Set.of(a.getSeat(), b.getSeat()));
+        assertTrue(seatTokens.holds(a.getSeatToken(), a.getGameId(), a.getSeat()));
+        assertTrue(seatTokens.holds(b.getSeatToken(), b.getGameId(), b.getSeat()));
+    }
+
+    private double queueDepth() {
+        return registry.get("matchmaking.queue.depth").tag("game", "tictactoe").gauge().value();
+    }
+
+    private static long seconds(int seconds) {
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
@@ -0,0 +1,117 @@
+package com.shipwrecked.gamecenter.models;
+
+import com.shipwrecked.gamecenter.engine.Move;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChessGameTest {
+
+    @Test
+    void legalMovesFollowEachMoveAndUndo() {
+        ChessGame game = new ChessGame();
+        assertEquals(2, game.validMovesFrom(6, 4).size());
+        // The bishop behind the pawn cannot move until the pawn has
+        assertEquals(0, game.validMovesFrom(7, 5).size());
+
+        game.makeMove(new ChessMove(6, 4, 4, 4));
+        assertFalse(game.isValidMove(new ChessMove(6, 3, 4, 3)));
+        assertTrue(game.isValidMove(new ChessMove(1, 4, 3, 4)));
+        game.makeMove(new ChessMove(1, 4, 3, 4));
+        assertEquals(5, game.validMovesFrom(7, 5).size());
+
+        assertTrue(game.undoMove());
+        assertTrue(game.undoMove());
+        assertEquals(0, game.validMovesFrom(7, 5).size());
+        assertTrue(game.isValidMove(new ChessMove(6, 3, 4, 3)));
+    }
+
+    @Test
+    void rejectedMoveChangesNothing() {
+        ChessGame game = new ChessGame();
+        int move = game.encode(new ChessMove(6, 4, 4, 4));
+        assertNotEquals(Move.NONE, move);
+
+        game.makeMove(new ChessMove(6, 4, 3, 4));
+        assertEquals(0, game.getMoveCount());
+        assertTrue(game.playMove(move));
+        // The same move again is Black's turn now
+        assertFalse(game.playMove(move));
+        assertEquals(1, game.getMoveCount());
+    }
+
+    @Test
+    void noMovesAfterCheckmate() {
+        ChessGame game = foolsMate();
+
+        assertEquals(GameStatus.CHECKMATE, game.getStatus());
+        assertEquals("Black", game.getWinner());
+        assertFalse(game.playMove(game.encode(new ChessMove(6, 0, 5, 0))));
+        assertFalse(game.isValidMove(new ChessMove(6, 0, 5, 0)));
+        assertEquals(0, game.validMovesFrom(6, 0).size());
+
+        assertTrue(game.undoMove());
+        assertEquals(GameStatus.ACTIVE, game.getStatus());
+        assertTrue(game.isValidMove(new ChessMove(0, 3, 4, 7)));
+    }
+
+    @Test
+    void deserializedGameGeneratesMovesAgain() throws IOException, ClassNotFoundException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(6, 4, 4, 4));
+        // Fills the cached moves before the game is written out
+        assertEquals(2, game.validMovesFrom(1, 4).size());
+
+        ChessGame copy = roundTrip(game);
+
+        assertEquals(game.getFen(), copy.getFen());
+        assertEquals(2, copy.validMovesFrom(1, 4).size());
+        copy.makeMove(new ChessMove(1, 4, 3, 4));
+        assertEquals(2, copy.getMoveCount());
+        assertEquals(5, copy.validMovesFrom(7, 5).size());
+    }
+
+    @Test
+    void replayMatchesPlayingTheMoves() {
+        ChessGame played = foolsMate();
+
+        MoveHistory history = played.packedHistory();
+        int[] moves = new int[history.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = history.get(i);
+        }
+
+        ChessGame replayed = ChessGame.replay(played.startFen(), moves);
+
+        assertEquals(played.getFen(), replayed.getFen());
+        assertEquals(GameStatus.CHECKMATE, replayed.getStatus());
+    }
+
+    private static ChessGame foolsMate() {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(6, 5, 5, 5));
+        game.makeMove(new ChessMove(1, 4, 3, 4));
+        game.makeMove(new ChessMove(6, 6, 4, 6));
+        game.makeMove(new ChessMove(0, 3, 4, 7));
+        return game;
+    }
+
+    private static ChessGame roundTrip(ChessGame game) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (ChessGame) in.readObject();
+        }
+    }
+}
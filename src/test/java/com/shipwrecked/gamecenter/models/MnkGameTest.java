@@ -0,0 +1,186 @@
+package com.shipwrecked.gamecenter.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MnkGameTest {
+    private static final int SIZE = 15;
+
+    @Test
+    void fiveAcrossWins() {
+        assertEquals("X", playLine(7, 3, 0, 1));
+    }
+
+    @Test
+    void fiveDownWins() {
+        assertEquals("X", playLine(2, 9, 1, 0));
+    }
+
+    @Test
+    void fiveDiagonallyWins() {
+        assertEquals("X", playLine(0, 0, 1, 1));
+    }
+
+    @Test
+    void fiveAntiDiagonallyWins() {
+        assertEquals("X", playLine(3, 14, 1, -1));
+    }
+
+    @Test
+    void fourInARowDoesNotWin() {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        for (int i = 0; i < 4; i++) {
+            game.makeMove(at(7, 3 + i));
+            game.makeMove(at(0, 2 * i));
+        }
+
+        assertNull(game.getWinner());
+        assertTrue(game.isValidMove(at(7, 7)));
+    }
+
+    @Test
+    void stoneFillingTheGapCompletesTheLine() {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        int[] xs = {at(5, 5), at(5, 6), at(5, 8), at(5, 9), at(5, 7)};
+        for (int i = 0; i < xs.length; i++) {
+            game.makeMove(xs[i]);
+            if (game.getWinner() == null) {
+                game.makeMove(at(12, 2 * i));
+            }
+        }
+
+        assertEquals("X", game.getWinner());
+        assertEquals("X", game.getCurrentPlayer());
+    }
+
+    @Test
+    void linesDoNotWrapAroundTheBoardEdge() {
+        // Cells 12 to 16 follow each other in number but sit on two rows
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        for (int i = 0; i < 5; i++) {
+            game.makeMove(at(0, 12) + i);
+            game.makeMove(at(10, 2 * i));
+        }
+
+        assertNull(game.getWinner());
+    }
+
+    @Test
+    void opponentStoneBreaksTheLine() {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        game.makeMove(at(4, 0));
+        game.makeMove(at(4, 2));
+        for (int col : new int[] {1, 3, 4, 5}) {
+            game.makeMove(at(4, col));
+            game.makeMove(at(14, col));
+        }
+
+        assertNull(game.getWinner());
+    }
+
+    @Test
+    void noMovesAfterAWin() {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        playLine(game, 7, 3, 0, 1);
+
+        assertFalse(game.isValidMove(at(0, 14)));
+        assertEquals(-1, game.hint(TicTacToeOracle.Difficulty.PERFECT, new SplittableRandom()).get().position());
+    }
+
+    @Test
+    void fullBoardWithoutALineIsADraw() {
+        MnkGame game = new MnkGame(3, 3, 3);
+        for (int cell : new int[] {0, 1, 2, 4, 3, 5, 7, 6, 8}) {
+            game.makeMove(cell);
+        }
+
+        assertTrue(game.isDraw());
+        assertNull(game.getWinner());
+    }
+
+    @Test
+    void agreesWithTheClassicBoardOnRandomGames() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int round = 0; round < 2000; round++) {
+            MnkGame mnk = new MnkGame(3, 3, 3);
+            TicTacToeGame classic = new TicTacToeGame();
+            while (mnk.getWinner() == null && !mnk.isDraw()) {
+                int cell = random.nextInt(9);
+                assertEquals(classic.isValidMove(cell), mnk.isValidMove(cell));
+                if (mnk.isValidMove(cell)) {
+                    mnk.makeMove(cell);
+                    classic.makeMove(cell);
+                }
+            }
+            assertEquals(classic.getWinner(), mnk.getWinner());
+            assertEquals(classic.isDraw(), mnk.isDraw());
+            assertEquals(classic.getBoard(), mnk.getBoard());
+        }
+    }
+
+    @Test
+    void hintFindsTheWinningMove() {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        for (int i = 0; i < 4; i++) {
+            game.makeMove(at(7, 3 + i));
+            game.makeMove(at(0, 2 * i + 1));
+        }
+
+        BoardGame.Hint hint = game.hint(TicTacToeOracle.Difficulty.PERFECT, new SplittableRandom()).get();
+
+        assertTrue(hint.position() == at(7, 2) || hint.position() == at(7, 7));
+        assertEquals(1, hint.predictedResult());
+    }
+
+    @Test
+    void hintSearchesTheBoardAsItWasWhenAsked() {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        for (int i = 0; i < 4; i++) {
+            game.makeMove(at(7, 3 + i));
+            game.makeMove(at(0, 2 * i + 1));
+        }
+        Supplier<BoardGame.Hint> search = game.hint(TicTacToeOracle.Difficulty.PERFECT, new SplittableRandom());
+        // The game moves on before the search runs
+        game.makeMove(at(7, 7));
+
+        assertEquals("X", game.getWinner());
+        assertEquals(1, search.get().predictedResult());
+    }
+
+    @Test
+    void rejectsUnsupportedSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new MnkGame(0, 3, 3));
+        assertThrows(IllegalArgumentException.class, () -> new MnkGame(MnkGame.MAX_SIZE + 1, 3, 3));
+        assertThrows(IllegalArgumentException.class, () -> new MnkGame(3, 3, 4));
+    }
+
+    // X plays five in a row from (row, col) while O plays far away; returns the winner
+    private static String playLine(int row, int col, int dRow, int dCol) {
+        MnkGame game = new MnkGame(SIZE, SIZE, 5);
+        playLine(game, row, col, dRow, dCol);
+        return game.getWinner();
+    }
+
+    private static void playLine(MnkGame game, int row, int col, int dRow, int dCol) {
+        for (int i = 0; i < 5; i++) {
+            assertNull(game.getWinner());
+            game.makeMove(at(row + i * dRow, col + i * dCol));
+            if (i < 4) {
+                // Row 13 and 14 stay clear of every line these tests play
+                game.makeMove(at(13 + (i & 1), 2 * i + (i & 1)));
+            }
+        }
+    }
+
+    private static int at(int row, int col) {
+        return row * SIZE + col;
+    }
+}
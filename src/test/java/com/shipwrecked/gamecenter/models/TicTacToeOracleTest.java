@@ -0,0 +1,144 @@
+package com.shipwrecked.gamecenter.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicTacToeOracleTest {
+    private static final int FULL = 0b111_111_111;
+    private static final int[] LINES = {
+        0b000_000_111, 0b000_111_000, 0b111_000_000,
+        0b001_001_001, 0b010_010_010, 0b100_100_100,
+        0b100_010_001, 0b001_010_100
+    };
+
+    @Test
+    void solvesEveryReachablePosition() {
+        assertEquals(5478, TicTacToeOracle.reachableStates());
+    }
+
+    @Test
+    void emptyBoardIsADrawFromEveryCell() {
+        assertEquals(0, TicTacToeOracle.value(0, 0));
+        assertEquals(FULL, TicTacToeOracle.bestMoves(0, 0));
+    }
+
+    @Test
+    void takesAnImmediateWinOverBlocking() {
+        // X on 0 and 1, O on 3 and 4, X to move: 2 wins now, though 5 would also block
+        int x = cells(0, 1);
+        int o = cells(3, 4);
+
+        assertTrue(TicTacToeOracle.value(x, o) > 0);
+        assertEquals(cells(2), TicTacToeOracle.bestMoves(x, o));
+    }
+
+    @Test
+    void blocksTheOnlyThreat() {
+        int x = cells(0, 1);
+        int o = cells(4);
+
+        assertEquals(0, TicTacToeOracle.value(x, o));
+        assertEquals(cells(2), TicTacToeOracle.bestMoves(x, o));
+    }
+
+    @Test
+    void answersOppositeCornersWithAnEdge() {
+        // Taking a corner lets X fork
+        int x = cells(0, 8);
+        int o = cells(4);
+
+        assertEquals(0, TicTacToeOracle.value(x, o));
+        assertEquals(cells(1, 3, 5, 7), TicTacToeOracle.bestMoves(x, o));
+    }
+
+    @Test
+    void finishedGameHasNoMoves() {
+        int x = cells(0, 1, 2);
+        int o = cells(3, 4);
+
+        assertTrue(TicTacToeOracle.value(x, o) < 0);
+        assertEquals(0, TicTacToeOracle.bestMoves(x, o));
+        assertEquals(-1, TicTacToeOracle.chooseMove(x, o, TicTacToeOracle.Difficulty.PERFECT, new SplittableRandom()));
+    }
+
+    @Test
+    void valuesMatchAPlainMinimax() {
+        checkFrom(0, 0, new boolean[1 << 18]);
+    }
+
+    @Test
+    void perfectPlayOnlyPicksBestMovesAndEasyPlaySometimesDoesNot() {
+        SplittableRandom random = new SplittableRandom(3);
+        int x = cells(0, 8);
+        int o = cells(4);
+        int best = TicTacToeOracle.bestMoves(x, o);
+        boolean strayed = false;
+        for (int i = 0; i < 200; i++) {
+            int perfect = TicTacToeOracle.chooseMove(x, o, TicTacToeOracle.Difficulty.PERFECT, random);
+            assertTrue((best & (1 << perfect)) != 0);
+            int easy = TicTacToeOracle.chooseMove(x, o, TicTacToeOracle.Difficulty.EASY, random);
+            assertEquals(0, (x | o) & (1 << easy));
+            strayed |= (best & (1 << easy)) == 0;
+        }
+        assertTrue(strayed);
+    }
+
+    // Compares the sign of every reachable position's value with an unmemoized minimax
+    private static void checkFrom(int x, int o, boolean[] seen) {
+        if (seen[x | o << 9]) {
+            return;
+        }
+        seen[x | o << 9] = true;
+        assertEquals(minimax(x, o), Integer.signum(TicTacToeOracle.value(x, o)), () -> "X " + x + ", O " + o);
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        if (hasLine(x) || hasLine(o)) {
+            return;
+        }
+        for (int cell = 0; cell < 9; cell++) {
+            int bit = 1 << cell;
+            if (((x | o) & bit) == 0) {
+                checkFrom(xToMove ? x | bit : x, xToMove ? o : o | bit, seen);
+            }
+        }
+    }
+
+    // 1 if the side to move wins with best play, -1 if it loses, 0 for a draw
+    private static int minimax(int x, int o) {
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        if (hasLine(xToMove ? o : x)) {
+            return -1;
+        }
+        if ((x | o) == FULL) {
+            return 0;
+        }
+        int best = -1;
+        for (int cell = 0; cell < 9 && best < 1; cell++) {
+            int bit = 1 << cell;
+            if (((x | o) & bit) == 0) {
+                best = Math.max(best, -minimax(xToMove ? x | bit : x, xToMove ? o : o | bit));
+            }
+        }
+        return best;
+    }
+
+    private static boolean hasLine(int cells) {
+        for (int line : LINES) {
+            if ((cells & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int cells(int... positions) {
+        int mask = 0;
+        for (int position : positions) {
+            mask |= 1 << position;
+        }
+        return mask;
+    }
+}
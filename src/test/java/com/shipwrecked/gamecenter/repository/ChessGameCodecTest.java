@@ -0,0 +1,114 @@
+package com.shipwrecked.gamecenter.repository;
+
+import com.shipwrecked.gamecenter.models.ChessGame;
+import com.shipwrecked.gamecenter.models.ChessMove;
+import com.shipwrecked.gamecenter.models.GameStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChessGameCodecTest {
+    private final ChessGameCodec codec = new ChessGameCodec();
+
+    @Test
+    void sizeFollowsThePositionAndTheMovesSinceAPawnMoved() {
+        ChessGame game = ChessGame.fromPgn("1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O Nf6 *");
+
+        byte[] data = codec.encode(game);
+
+        // All 32 pieces take 30 bytes; six plies since the last pawn move keep a hash each
+        assertEquals(6 + 30 + 8 * 6 + 2 * 8, data.length);
+        assertSameGame(game, codec.decode(data));
+    }
+
+    @Test
+    void newGameRoundTrips() {
+        ChessGame game = new ChessGame();
+
+        assertSameGame(game, codec.decode(codec.encode(game)));
+    }
+
+    @Test
+    void customStartRoundTrips() {
+        ChessGame game = ChessGame.fromPgn("""
+            [FEN "4k3/P7/8/8/8/8/8/4K3 w - - 0 1"]
+            1. a8=Q+ Kd7 *
+            """);
+
+        ChessGame copy = codec.decode(codec.encode(game));
+
+        assertSameGame(game, copy);
+        assertEquals(game.startFen(), copy.startFen());
+    }
+
+    @Test
+    void decodedGameCanUndoAndFinish() {
+        ChessGame game = ChessGame.fromPgn("1. f3 e5 2. g4 *");
+        ChessGame copy = codec.decode(codec.encode(game));
+
+        assertEquals(true, copy.undoMove());
+        assertEquals(game.getMoveCount() - 1, copy.getMoveCount());
+        ChessGame mated = codec.decode(codec.encode(ChessGame.fromPgn("1. f3 e5 2. g4 Qh4# 0-1")));
+        assertEquals("Black", mated.getWinner());
+    }
+
+    @Test
+    void repetitionsBeforeDecodingStillCount() {
+        // The start position comes up a third time with the last knight move
+        ChessGame game = ChessGame.fromPgn("1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Ng1 *");
+        ChessGame copy = codec.decode(codec.encode(game));
+        assertEquals(GameStatus.ACTIVE, copy.getStatus());
+
+        copy.makeMove(new ChessMove(2, 5, 0, 6));
+
+        assertEquals(GameStatus.DRAW, copy.getStatus());
+    }
+
+    @Test
+    void decodedGameUndoesBackToTheStart() {
+        ChessGame game = ChessGame.fromPgn("1. e4 d5 2. exd5 Qxd5 3. Nf3 Bg4 4. Be2 Nc6 5. O-O O-O-O *");
+        ChessGame copy = codec.decode(codec.encode(game));
+
+        while (copy.undoMove()) {
+            assertTrue(game.undoMove());
+            assertEquals(game.getFen(), copy.getFen());
+        }
+
+        assertEquals(new ChessGame().getFen(), copy.getFen());
+        assertEquals(0, copy.getMoveCount());
+    }
+
+    @Test
+    void readsTheReplayedFormat() {
+        ChessGame game = ChessGame.fromPgn("1. d4 d5 2. c4 dxc4 *");
+        ByteBuffer old = ByteBuffer.allocate(4 + 2 * game.getMoveCount());
+        old.put((byte) 1).put((byte) 0).putShort((short) game.getMoveCount());
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            old.putShort((short) game.packedHistory().get(i));
+        }
+
+        assertSameGame(game, codec.decode(old.array()));
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownData() {
+        byte[] data = codec.encode(ChessGame.fromPgn("1. d4 d5 2. c4 *"));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(Arrays.copyOf(data, data.length - 1)));
+        byte[] future = data.clone();
+        future[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(future));
+    }
+
+    private static void assertSameGame(ChessGame expected, ChessGame actual) {
+        assertEquals(expected.getFen(), actual.getFen());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.toPgn(Map.of()), actual.toPgn(Map.of()));
+    }
+}
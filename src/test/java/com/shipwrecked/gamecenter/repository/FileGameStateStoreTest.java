@@ -0,0 +1,69 @@
+package com.shipwrecked.gamecenter.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileGameStateStoreTest {
+    private static final Duration IDLE_TTL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void countsStatesAsTheyAreSavedAndDeleted() {
+        try (FileGameStateStore store = new FileGameStateStore(directory, IDLE_TTL)) {
+            store.save("a", new byte[] {1});
+            store.save("b", new byte[] {2});
+            // Saving over a state does not add one
+            store.save("a", new byte[] {3});
+            assertEquals(2, store.size());
+
+            assertTrue(store.delete("a"));
+            assertFalse(store.delete("a"));
+            assertEquals(1, store.size());
+            assertArrayEquals(new byte[] {2}, store.load("b").orElseThrow());
+        }
+    }
+
+    @Test
+    void countsStatesLeftByAnEarlierRun() {
+        try (FileGameStateStore store = new FileGameStateStore(directory, IDLE_TTL)) {
+            store.save("a", new byte[] {1});
+            store.save("b", new byte[] {2});
+        }
+
+        try (FileGameStateStore store = new FileGameStateStore(directory, IDLE_TTL)) {
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void sweepDropsIdleStatesAndRecounts() throws IOException {
+        try (FileGameStateStore store = new FileGameStateStore(directory, IDLE_TTL)) {
+            store.save("idle", new byte[] {1});
+            store.save("fresh", new byte[] {2});
+            Files.setLastModifiedTime(directory.resolve("idle.game"),
+                                      FileTime.fromMillis(System.currentTimeMillis() - 2 * IDLE_TTL.toMillis()));
+            // Removed behind the store's back, which only the sweep notices
+            Files.delete(directory.resolve("fresh.game"));
+            assertEquals(2, store.size());
+
+            assertEquals(1, store.evictExpired());
+
+            assertEquals(0, store.size());
+            assertEquals(1, store.evictionCount());
+            assertTrue(store.load("idle").isEmpty());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.shipwrecked.gamecenter.scores;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreStoreTest {
+    // Header, then two slots that each start with a 16-byte header of their own
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_HEADER_SIZE = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void scoresSurviveReopening() {
+        Path file = directory.resolve("scores.dat");
+        submit(file, "alice", 30);
+        submit(file, "bob", 50);
+
+        assertEquals(List.of("bob", "alice"), players(file));
+    }
+
+    @Test
+    void readsThePreviousSlotWhenTheNewestIsCorrupt() throws IOException {
+        Path file = directory.resolve("scores.dat");
+        // The first save goes to slot 0, the second to slot 1
+        submit(file, "alice", 30);
+        submit(file, "bob", 50);
+        corrupt(file, 1);
+
+        assertEquals(List.of("alice"), players(file));
+    }
+
+    @Test
+    void saveAfterFallbackKeepsTheGoodSlot() throws IOException {
+        Path file = directory.resolve("scores.dat");
+        submit(file, "alice", 30);
+        submit(file, "bob", 50);
+        corrupt(file, 1);
+
+        submit(file, "carol", 40);
+        corrupt(file, 0);
+
+        // Carol's save went over the corrupt slot, so it is still readable without slot 0
+        assertEquals(List.of("carol", "alice"), players(file));
+    }
+
+    @Test
+    void bothSlotsCorruptReadsAsEmpty() throws IOException {
+        Path file = directory.resolve("scores.dat");
+        submit(file, "alice", 30);
+        submit(file, "bob", 50);
+        corrupt(file, 0);
+        corrupt(file, 1);
+
+        assertEquals(List.of(), players(file));
+    }
+
+    @Test
+    void keepsOnlyEachPlayersBestScores() {
+        try (ScoreStore store = new ScoreStore(directory.resolve("scores.dat"))) {
+            for (int score = 1; score <= ScoreStore.PLAYER_CAPACITY + 5; score++) {
+                store.submit("dino", "alice", score);
+            }
+            assertFalse(store.submit("dino", "alice", 1));
+            assertTrue(store.submit("dino", "alice", 100));
+
+            List<ScoreEntry> best = store.topForPlayer("dino", "alice", ScoreStore.PLAYER_CAPACITY + 5);
+            assertEquals(ScoreStore.PLAYER_CAPACITY, best.size());
+            assertEquals(100, best.get(0).score());
+            assertEquals(100, store.best("dino", "alice"));
+        }
+    }
+
+    @Test
+    void rejectsBadNamesAndScores() {
+        try (ScoreStore store = new ScoreStore(directory.resolve("scores.dat"))) {
+            assertThrows(IllegalArgumentException.class, () -> store.submit("dino", " ", 1));
+            assertThrows(IllegalArgumentException.class,
+                () -> store.submit("dino", "a".repeat(ScoreStore.MAX_NAME_LENGTH + 1), 1));
+            assertThrows(IllegalArgumentException.class, () -> store.submit("dino", "alice", -1));
+        }
+    }
+
+    @Test
+    void refusesFilesThatAreNotScoreFiles() throws IOException {
+        Path file = directory.resolve("other.dat");
+        Files.writeString(file, "not a score file");
+
+        assertThrows(UncheckedIOException.class, () -> new ScoreStore(file).close());
+    }
+
+    private static void submit(Path file, String player, long score) {
+        try (ScoreStore store = new ScoreStore(file)) {
+            assertTrue(store.submit("dino", player, score));
+        }
+    }
+
+    private static List<String> players(Path file) {
+        try (ScoreStore store = new ScoreStore(file)) {
+            return store.top("dino", ScoreStore.GAME_CAPACITY).stream().map(ScoreEntry::player).toList();
+        }
+    }
+
+    // Flips the first payload byte of a slot, which its checksum covers
+    private static void corrupt(Path file, int slot) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long slotSize = (channel.size() - HEADER_SIZE) / 2;
+            long offset = HEADER_SIZE + slot * slotSize + SLOT_HEADER_SIZE;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, offset);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, offset);
+        }
+    }
+}